@@ -0,0 +1,114 @@
+package i5.las2peer.services.projectService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import i5.las2peer.services.projectService.project.Project;
+import i5.las2peer.services.projectService.util.CompactFormat;
+
+/**
+ * Serialized form of a {@link ProjectContainer}.
+ * When a ProjectContainer gets serialized (e.g. when storing an envelope), it is replaced by an instance of
+ * this class, which writes the container in a compact, versioned binary format. When reading, the instance
+ * gets replaced by the ProjectContainer again.
+ *
+ * Containers that were stored before this format existed are still read using the default serialization of
+ * ProjectContainer.
+ *
+ * Format (version 2):
+ * <ul>
+ * <li>format version (byte)</li>
+ * <li>version of the container (long)</li>
+ * <li>string table containing group names, group identifiers and user agent identifiers</li>
+ * <li>user projects (int count, strings)</li>
+ * <li>projects (int count, see {@link Project#writeCompact})</li>
+ * </ul>
+ * Version 2 added the pending and failed states of GitHub projects to the project format. Since these states use
+ * new values of the byte that only marked whether a GitHub project is connected, version 1 can be read in the
+ * same way.
+ */
+public class CompactProjectContainer implements Externalizable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final byte FORMAT_VERSION = 2;
+
+	/**
+	 * Oldest format version that can still be read.
+	 */
+	private static final byte MIN_FORMAT_VERSION = 1;
+
+	private ProjectContainer container;
+
+	/**
+	 * Used when reading the serialized form.
+	 */
+	public CompactProjectContainer() {
+	}
+
+	CompactProjectContainer(ProjectContainer container) {
+		this.container = container;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		// the string table gets filled while writing the projects, but needs to be written first
+		CompactFormat.StringTable table = new CompactFormat.StringTable();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream bodyOut = new DataOutputStream(body);
+
+		HashSet<String> userProjects = this.container.getUserProjects();
+		bodyOut.writeInt(userProjects.size());
+		for (String userProject : userProjects) {
+			CompactFormat.writeString(bodyOut, userProject);
+		}
+		List<Project> projects = this.container.getAllProjects();
+		bodyOut.writeInt(projects.size());
+		for (Project project : projects) {
+			project.writeCompact(bodyOut, table);
+		}
+		bodyOut.flush();
+
+		out.writeByte(FORMAT_VERSION);
+		out.writeLong(this.container.getVersion());
+		table.writeTo(out);
+		out.write(body.toByteArray());
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		byte formatVersion = in.readByte();
+		if (formatVersion < MIN_FORMAT_VERSION || formatVersion > FORMAT_VERSION) {
+			throw new InvalidObjectException("Unsupported project list format version " + formatVersion);
+		}
+		long version = in.readLong();
+		CompactFormat.StringTable table = CompactFormat.StringTable.readFrom(in);
+
+		int userProjectCount = in.readInt();
+		HashSet<String> userProjects = new HashSet<>();
+		for (int i = 0; i < userProjectCount; i++) {
+			userProjects.add(CompactFormat.readString(in));
+		}
+		int projectCount = in.readInt();
+		HashMap<String, Project> projects = new HashMap<>();
+		for (int i = 0; i < projectCount; i++) {
+			Project project = Project.readCompact(in, table);
+			projects.put(project.getName(), project);
+		}
+		this.container = new ProjectContainer(userProjects, projects, version);
+	}
+
+	private Object readResolve() throws ObjectStreamException {
+		return this.container;
+	}
+
+}
@@ -1,9 +1,25 @@
 package i5.las2peer.services.projectService;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 
 import i5.las2peer.api.Context;
 import i5.las2peer.api.execution.InternalServiceException;
@@ -13,50 +29,526 @@ import i5.las2peer.api.execution.ServiceMethodNotFoundException;
 import i5.las2peer.api.execution.ServiceNotAuthorizedException;
 import i5.las2peer.api.execution.ServiceNotAvailableException;
 import i5.las2peer.api.execution.ServiceNotFoundException;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.persistency.Envelope;
+import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.api.persistency.EnvelopeOperationFailedException;
+import i5.las2peer.api.security.GroupAgent;
+import i5.las2peer.services.projectService.util.IntegrationGuard;
+import i5.las2peer.services.projectService.util.RequestTrace;
+import i5.las2peer.services.projectService.util.ServiceMetrics;
 
 /**
  * Helper class used to send messages to the configured event listener services on specific events.
+ *
+ * Events are not sent directly, but are stored in an outbox envelope first (see {@link EventOutbox}). The outbox of
+ * a system is split into several shard envelopes and the shard of an event is chosen by the hash of the project
+ * name, like the shards of the project list. Thus, events of different projects do not all rewrite the same
+ * envelope. Afterwards, the events get delivered in the background, using the context of the service agent. If
+ * delivering an event fails (e.g., because the event listener service is not available), the delivery gets retried
+ * with increasing delays. The events of a shard (and thus the events of a project) are always delivered in the order
+ * in which they occurred. Since an event gets removed from the outbox after it got delivered, an event might be
+ * delivered more than once if removing it fails.
+ *
+ * The number of events in an outbox shard is limited. Pending events are never dropped to make room for new ones:
+ * if the shard of an event is full, storing the event fails, so that the request causing the event fails too.
+ * Events that are still pending when the node restarts get delivered once the service got started
+ * (see {@link #start(Context)}).
+ *
+ * If the event listener service implements the method _onProjectEvents(JSONArray), events are delivered in batches:
+ * new events are collected for a short time window (or until the batch size is reached) and then sent using a single
+ * call. Otherwise, the methods for the single events are called.
+ *
+ * Calls of an event listener service pass an {@link IntegrationGuard}. While its circuit is open (because most of the
+ * recent calls failed), no deliveries are attempted and the events do not use up their delivery attempts.
  * @author Philipp
  *
  */
 public class EventManager {
-	
+
 	private static final String EVENT_METHOD_PROJECT_CREATED = "_onProjectCreated";
 	private static final String EVENT_METHOD_PROJECT_DELETED = "_onProjectDeleted";
-	
+	private static final String EVENT_METHOD_PROJECT_UPDATED = "_onProjectUpdated";
+	private static final String EVENT_METHOD_BATCH = "_onProjectEvents";
+
+	/**
+	 * Event types used for the events in a batch, one per event method.
+	 */
+	private static final String EVENT_TYPE_PROJECT_CREATED = "projectCreated";
+	private static final String EVENT_TYPE_PROJECT_DELETED = "projectDeleted";
+	private static final String EVENT_TYPE_PROJECT_UPDATED = "projectUpdated";
+
+	/**
+	 * Used for the identifiers of the outbox envelopes of a system.
+	 */
+	private static final String OUTBOX_PREFIX = "eventoutbox";
+
+	/**
+	 * Number of shard envelopes that the outbox of a system is split into. Must not be changed, since events in
+	 * shards that are no longer used would not be delivered anymore.
+	 */
+	private static final int OUTBOX_SHARDS = 8;
+
+	/**
+	 * Maximum number of attempts to store the outbox envelope, if storing fails because of concurrent writes.
+	 */
+	private static final int OUTBOX_WRITE_ATTEMPTS = 5;
+
+	/**
+	 * Delays (in milliseconds) between two delivery attempts of an event. The delay gets doubled with every
+	 * failed attempt until the maximum is reached.
+	 */
+	private static final long RETRY_BASE_DELAY = 1000;
+	private static final long RETRY_MAX_DELAY = 10 * 60 * 1000;
+
+	/**
+	 * Maximum number of concurrent calls of one event listener service.
+	 */
+	private static final int MAX_CONCURRENT_CALLS = 4;
+
+	/**
+	 * Name of the integration and results of the events in the {@link ServiceMetrics}.
+	 */
+	private static final String METRICS_INTEGRATION = "event_listener";
+	private static final String METRICS_EVENT_STORED = "stored";
+	private static final String METRICS_EVENT_DELIVERED = "delivered";
+	private static final String METRICS_EVENT_FAILED = "failed";
+	private static final String METRICS_EVENT_DROPPED = "dropped";
+	private static final String METRICS_EVENT_REJECTED = "rejected";
+
+	/**
+	 * Used to start delayed delivery attempts. The deliveries themselves run in the executor of the context.
+	 */
+	private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "project-service-event-retry");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	/**
 	 * Map containing the name of the event listener service for every system.
 	 * Name of the service is the one that should be called on specific events.
 	 * Might be null for some systems if not set.
+	 * Replaced when the systems configuration changes.
+	 */
+	private volatile HashMap<String, String> eventListenerServiceMap;
+
+	/**
+	 * Used to get the service group agent, which owns the outbox envelopes.
 	 */
-	private HashMap<String, String> eventListenerServiceMap;
-	
-	public EventManager(HashMap<String, String> eventListenerServiceMap) {
+	private final Supplier<GroupAgent> serviceGroupAgentSupplier;
+
+	/**
+	 * Context of the service agent, used for delivering the events. Set once the service got started.
+	 */
+	private volatile Context serviceContext;
+
+	/**
+	 * Number of failed delivery attempts after which an event gets dropped.
+	 */
+	private final int maxDeliveryAttempts;
+
+	/**
+	 * Maximum number of events sent in one batch. Batching is disabled if set to 1 or less.
+	 */
+	private final int batchSize;
+
+	/**
+	 * Time (in milliseconds) that new events are collected before they get delivered, unless the batch size
+	 * is reached earlier.
+	 */
+	private final long batchWindow;
+
+	/**
+	 * Maximum number of events in an outbox shard.
+	 */
+	private final int shardCapacity;
+
+	/**
+	 * Event listener services that do not implement the batch method. They only get single events.
+	 */
+	private final Set<String> batchUnsupported = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Outbox shards (by their identifier) for which a delivery at the end of the current batch window is already
+	 * scheduled.
+	 */
+	private final Set<String> batchFlushScheduled = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Number of delivery requests per outbox shard (by its identifier). Only one delivery per shard runs at the
+	 * same time on this node, requests made while a delivery is running cause the delivery to run again afterwards.
+	 */
+	private final ConcurrentHashMap<String, AtomicInteger> deliveryRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * Bulkhead and circuit breaker for every event listener service.
+	 */
+	private final ConcurrentHashMap<String, IntegrationGuard> guards = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the event manager.
+	 * @param eventListenerServiceMap Map containing the name of the event listener service for every system.
+	 * @param serviceGroupAgentSupplier Used to get the service group agent, which owns the outbox envelopes.
+	 * @param maxDeliveryAttempts Number of failed delivery attempts after which an event gets dropped.
+	 * @param batchSize Maximum number of events sent in one batch.
+	 * @param batchWindow Time (in milliseconds) that new events are collected before they get delivered.
+	 * @param outboxCapacity Maximum number of pending events per system. It is split evenly between the shards of
+	 *        the outbox. New events are rejected while their shard is full.
+	 */
+	public EventManager(HashMap<String, String> eventListenerServiceMap, Supplier<GroupAgent> serviceGroupAgentSupplier,
+			int maxDeliveryAttempts, int batchSize, long batchWindow, int outboxCapacity) {
 		this.eventListenerServiceMap = eventListenerServiceMap;
+		this.serviceGroupAgentSupplier = serviceGroupAgentSupplier;
+		this.maxDeliveryAttempts = Math.max(1, maxDeliveryAttempts);
+		this.batchSize = Math.max(1, batchSize);
+		this.batchWindow = Math.max(0, batchWindow);
+		this.shardCapacity = Math.max(1, outboxCapacity / OUTBOX_SHARDS);
 	}
-	
+
 	/**
-	 * Sends the project-created event for the given project to the event listener service.
-	 * @param context Context used for invoking the event listener service.
+	 * Starts delivering the events, including the events that are still pending from before the node got
+	 * (re)started. Calling this more than once has no effect.
+	 * @param serviceContext Context of the service agent, used for delivering the events.
+	 */
+	public void start(Context serviceContext) {
+		if (this.serviceContext != null) return;
+		synchronized (this) {
+			if (this.serviceContext != null) return;
+			this.serviceContext = serviceContext;
+		}
+		this.requestDeliveryOfAllOutboxes();
+	}
+
+	/**
+	 * Replaces the event listener services of the systems, e.g. after the systems configuration changed.
+	 * Events that are already stored in an outbox get delivered to the new event listener service of the system.
+	 * @param eventListenerServiceMap Map containing the name of the event listener service for every system.
+	 */
+	public void setEventListenerServiceMap(HashMap<String, String> eventListenerServiceMap) {
+		this.eventListenerServiceMap = eventListenerServiceMap;
+		// systems might have got an event listener service, then their pending events can be delivered now
+		this.requestDeliveryOfAllOutboxes();
+	}
+
+	private void requestDeliveryOfAllOutboxes() {
+		if (this.serviceContext == null) return;
+		for (String system : this.eventListenerServiceMap.keySet()) {
+			if (this.eventListenerServiceMap.get(system) == null) continue;
+			for (int shard = 0; shard < OUTBOX_SHARDS; shard++) {
+				this.requestDelivery(system, shard);
+			}
+		}
+	}
+
+	/**
+	 * Stores the project-created event for the given project in the outbox, from where it gets sent to the
+	 * event listener service in the background.
+	 * @param context Context of the request, used for storing the event in the outbox.
 	 * @param system System that the project belongs to.
 	 * @param projectJSON Project that got created as a JSONObject.
-	 * @return If event listener is disabled, then always true. Otherwise only true, if event was sent successfully.
+	 * @return If event listener is disabled, then always true. Otherwise only true, if event was stored successfully.
 	 */
 	public boolean sendProjectCreatedEvent(Context context, String system, JSONObject projectJSON) {
-		return invokeEventListenerService(context, system, EVENT_METHOD_PROJECT_CREATED, projectJSON);
+		return enqueueEvent(context, system, EVENT_METHOD_PROJECT_CREATED, projectJSON);
 	}
-	
+
 	/**
-	 * Sends the project-deleted event for the given project to the event listener service.
-	 * @param context Context used for invoking the event listener service.
+	 * Stores the project-deleted event for the given project in the outbox, from where it gets sent to the
+	 * event listener service in the background.
+	 * @param context Context of the request, used for storing the event in the outbox.
 	 * @param system System that the project belongs to.
 	 * @param projectJSON Project that got deleted as a JSONObject.
-	 * @return If event listener is disabled, then always true. Otherwise only true, if event was sent successfully.
+	 * @return If event listener is disabled, then always true. Otherwise only true, if event was stored successfully.
 	 */
 	public boolean sendProjectDeletedEvent(Context context, String system, JSONObject projectJSON) {
-		return invokeEventListenerService(context, system, EVENT_METHOD_PROJECT_DELETED, projectJSON);
+		return enqueueEvent(context, system, EVENT_METHOD_PROJECT_DELETED, projectJSON);
+	}
+
+	/**
+	 * Stores the project-updated event for the given project in the outbox, from where it gets sent to the
+	 * event listener service in the background. Event listener services do not need to implement this event.
+	 * @param context Context used for storing the event in the outbox.
+	 * @param system System that the project belongs to.
+	 * @param projectJSON Project that got updated as a JSONObject.
+	 * @return If event listener is disabled, then always true. Otherwise only true, if event was stored successfully.
+	 */
+	public boolean sendProjectUpdatedEvent(Context context, String system, JSONObject projectJSON) {
+		return enqueueEvent(context, system, EVENT_METHOD_PROJECT_UPDATED, projectJSON);
+	}
+
+	/**
+	 * Stores the event in the outbox of the system and starts delivering the outbox.
+	 * @param context Context of the request, used for storing the event in the outbox.
+	 * @param system System that the event belongs to.
+	 * @param method Method that should be called in the event listener service.
+	 * @param data Data that should be sent to the event listener service.
+	 * @return If event listener is disabled, then always true. Otherwise only true, if event was stored successfully.
+	 *         Storing the event fails if its outbox shard is full.
+	 */
+	private boolean enqueueEvent(Context context, String system, String method, JSONObject data) {
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.EVENT_DISPATCH)) {
+			return this.enqueueEventToOutbox(context, system, method, data);
+		}
 	}
-	
+
+	private boolean enqueueEventToOutbox(Context context, String system, String method, JSONObject data) {
+		String eventListenerService = this.eventListenerServiceMap.get(system);
+		boolean enabled = eventListenerService != null;
+		if(!enabled) return true;
+
+		GroupAgent serviceGroupAgent = this.serviceGroupAgentSupplier.get();
+		if(serviceGroupAgent == null) return false;
+
+		int shard = getOutboxShard((String) data.get("name"));
+		AtomicBoolean full = new AtomicBoolean(false);
+		EventOutbox outbox = this.updateOutbox(context, system, shard, serviceGroupAgent, o -> {
+			// pending events are kept, the new event is rejected instead
+			full.set(o.size() >= this.shardCapacity);
+			if(full.get()) return false;
+			o.addEvent(method, data.toJSONString());
+			return true;
+		});
+		if(outbox == null) return false;
+		if(full.get()) {
+			ServiceMetrics.getInstance().recordEvents(METRICS_EVENT_REJECTED, 1);
+			context.monitorEvent(MonitoringEvent.SERVICE_ERROR, "Rejected event " + method + " of project "
+					+ data.get("name") + " of system " + system + ", because its outbox is full.");
+			return false;
+		}
+		ServiceMetrics.getInstance().recordEvents(METRICS_EVENT_STORED, 1);
+
+		if(this.batchSize > 1 && this.batchWindow > 0 && outbox.size() < this.batchSize) {
+			// wait for more events, so that they can be delivered in one batch
+			String identifier = getOutboxIdentifier(system, shard);
+			if(this.batchFlushScheduled.add(identifier)) {
+				RETRY_TIMER.schedule(() -> {
+					this.batchFlushScheduled.remove(identifier);
+					this.requestDelivery(system, shard);
+				}, this.batchWindow, TimeUnit.MILLISECONDS);
+			}
+		} else {
+			this.requestDelivery(system, shard);
+		}
+		return true;
+	}
+
+	/**
+	 * Starts delivering the given outbox shard in the background, using the context of the service agent. Has no
+	 * effect if the event manager was not started yet, the outbox gets delivered once it is started.
+	 * @param system System whose outbox should be delivered.
+	 * @param shard Index of the outbox shard.
+	 */
+	private void requestDelivery(String system, int shard) {
+		Context context = this.serviceContext;
+		if(context == null) return;
+		AtomicInteger requests = this.deliveryRequests.computeIfAbsent(getOutboxIdentifier(system, shard),
+				s -> new AtomicInteger());
+		if(requests.getAndIncrement() > 0) {
+			// delivery is already running and will run again afterwards
+			return;
+		}
+		try {
+			context.getExecutor().execute(() -> {
+				boolean completed = false;
+				try {
+					int handled;
+					do {
+						handled = requests.get();
+						this.deliverDueEvents(context, system, shard);
+					} while(requests.addAndGet(-handled) > 0);
+					completed = true;
+				} catch (RuntimeException e) {
+					context.monitorEvent(MonitoringEvent.SERVICE_ERROR, "Delivering the events of system " + system
+							+ " (outbox shard " + shard + ") failed: " + e.getMessage());
+				} finally {
+					if(!completed) {
+						// otherwise, later requests would assume that the delivery is still running
+						requests.set(0);
+						this.scheduleDelivery(system, shard, RETRY_BASE_DELAY);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			requests.set(0);
+			this.scheduleDelivery(system, shard, RETRY_BASE_DELAY);
+		}
+	}
+
+	private void scheduleDelivery(String system, int shard, long delay) {
+		RETRY_TIMER.schedule(() -> this.requestDelivery(system, shard), Math.max(0, delay), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Delivers all events of the outbox shard that are due and removes them from the outbox afterwards.
+	 * Stops at the first event that cannot be delivered and schedules the next delivery attempt.
+	 */
+	private void deliverDueEvents(Context context, String system, int shard) {
+		String eventListenerService = this.eventListenerServiceMap.get(system);
+		if(eventListenerService == null) return;
+
+		long retryAfter = this.getGuard(eventListenerService).getRetryAfter();
+		if(retryAfter > 0) {
+			// event listener service is not available, try again once the circuit lets calls through
+			this.scheduleDelivery(system, shard, retryAfter);
+			return;
+		}
+
+		GroupAgent serviceGroupAgent = this.serviceGroupAgentSupplier.get();
+		if(serviceGroupAgent == null) {
+			this.scheduleDelivery(system, shard, RETRY_BASE_DELAY);
+			return;
+		}
+
+		EventOutbox outbox;
+		try {
+			outbox = (EventOutbox) MeteredContext.requestEnvelope(context, getOutboxIdentifier(system, shard),
+					serviceGroupAgent).getContent();
+		} catch (EnvelopeNotFoundException e) {
+			// no event got stored in this shard yet
+			return;
+		} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
+			this.scheduleDelivery(system, shard, RETRY_BASE_DELAY);
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		List<EventOutbox.Event> due = outbox.getDueEvents(now);
+		List<Long> delivered = new ArrayList<>();
+		EventOutbox.Event failed = null;
+		// whether a call was rejected by the guard, then the event did not fail and keeps its delivery attempts
+		boolean rejected = false;
+		int index = 0;
+		while(index < due.size()) {
+			List<EventOutbox.Event> batch = due.subList(index, Math.min(index + this.batchSize, due.size()));
+			if(batch.size() > 1 && !this.batchUnsupported.contains(eventListenerService)) {
+				DeliveryResult batchResult = this.invokeBatchMethod(context, eventListenerService, batch);
+				if(batchResult == DeliveryResult.NOT_IMPLEMENTED) {
+					// event listener service does not implement the batch method, send single events instead
+					this.batchUnsupported.add(eventListenerService);
+				} else if(batchResult == DeliveryResult.DELIVERED) {
+					for(EventOutbox.Event event : batch) {
+						delivered.add(event.getId());
+					}
+					index += batch.size();
+					continue;
+				} else if(batchResult == DeliveryResult.REJECTED) {
+					rejected = true;
+					break;
+				} else {
+					failed = batch.get(0);
+					break;
+				}
+			}
+
+			EventOutbox.Event event = due.get(index);
+			JSONObject data = (JSONObject) JSONValue.parse(event.getData());
+			DeliveryResult result = this.invokeEventListenerService(context, system, event.getMethod(), data);
+			if(result == DeliveryResult.DELIVERED) {
+				delivered.add(event.getId());
+				index++;
+			} else if(result == DeliveryResult.REJECTED) {
+				// keep order of events, later events are delivered after this one
+				rejected = true;
+				break;
+			} else {
+				// keep order of events, later events are delivered after this one
+				failed = event;
+				break;
+			}
+		}
+
+		ServiceMetrics.getInstance().recordEvents(METRICS_EVENT_DELIVERED, delivered.size());
+		if(failed != null) ServiceMetrics.getInstance().recordEvents(METRICS_EVENT_FAILED, 1);
+
+		// rejected calls are tried again once the guard lets calls through again
+		long rejectedRetryDelay = Math.max(RETRY_BASE_DELAY, this.getGuard(eventListenerService).getRetryAfter());
+
+		if(delivered.isEmpty() && failed == null) {
+			if(rejected) {
+				this.scheduleDelivery(system, shard, rejectedRetryDelay);
+			} else if(!outbox.isEmpty()) {
+				this.scheduleDelivery(system, shard, outbox.getNextAttemptAt() - now);
+			}
+			return;
+		}
+
+		final Long failedId = failed == null ? null : failed.getId();
+		final long nextAttemptAt = failed == null ? 0 : now + getRetryDelay(failed.getAttempts() + 1);
+		AtomicReference<EventOutbox.Event> dropped = new AtomicReference<>();
+		EventOutbox updated = this.updateOutbox(context, system, shard, serviceGroupAgent, o -> {
+			dropped.set(null);
+			for(long eventId : delivered) {
+				o.removeEvent(eventId);
+			}
+			EventOutbox.Event event = failedId == null ? null : o.getEvent(failedId);
+			if(event != null) {
+				event.deliveryFailed(nextAttemptAt);
+				if(event.getAttempts() >= this.maxDeliveryAttempts) {
+					o.removeEvent(failedId);
+					// the update might be applied more than once, thus the dropped event is reported afterwards
+					dropped.set(event);
+				}
+			}
+			return true;
+		});
+
+		if(updated != null && dropped.get() != null) {
+			ServiceMetrics.getInstance().recordEvents(METRICS_EVENT_DROPPED, 1);
+			context.monitorEvent(MonitoringEvent.SERVICE_ERROR, "Dropped event " + dropped.get().getMethod()
+					+ " of system " + system + " after " + dropped.get().getAttempts() + " failed delivery attempts.");
+		}
+
+		if(updated == null) {
+			// delivered events could not be removed, they will be delivered again
+			this.scheduleDelivery(system, shard, RETRY_BASE_DELAY);
+		} else if(rejected) {
+			this.scheduleDelivery(system, shard, rejectedRetryDelay);
+		} else if(!updated.isEmpty()) {
+			this.scheduleDelivery(system, shard, updated.getNextAttemptAt() - System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Requests the given outbox shard, applies the given update and stores it. If storing fails, the latest
+	 * version of the shard gets requested and the update is applied again.
+	 * @param update Applies the changes and returns whether the shard needs to be stored.
+	 * @return The (stored) outbox shard, or null if storing failed.
+	 */
+	private EventOutbox updateOutbox(Context context, String system, int shard, GroupAgent serviceGroupAgent,
+			Predicate<EventOutbox> update) {
+		String identifier = getOutboxIdentifier(system, shard);
+		for(int attempt = 1; attempt <= OUTBOX_WRITE_ATTEMPTS; attempt++) {
+			try {
+				Envelope env;
+				EventOutbox outbox;
+				try {
+					env = MeteredContext.requestEnvelope(context, identifier, serviceGroupAgent);
+					outbox = (EventOutbox) env.getContent();
+				} catch (EnvelopeNotFoundException e) {
+					env = MeteredContext.createEnvelope(context, identifier, serviceGroupAgent);
+					outbox = new EventOutbox();
+				}
+				if(!update.test(outbox)) return outbox;
+				env.setContent(outbox);
+				MeteredContext.storeEnvelope(context, env, serviceGroupAgent);
+				return outbox;
+			} catch (EnvelopeAccessDeniedException e) {
+				return null;
+			} catch (EnvelopeOperationFailedException e) {
+				// most likely, the outbox got stored by another writer in the meantime
+				try {
+					Thread.sleep(ThreadLocalRandom.current().nextLong(20L << attempt));
+				} catch (InterruptedException e1) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Helper method which uses the given context to invoke the given method of the event listener service (configured
 	 * in properties file of service) using the given data.
@@ -64,22 +556,149 @@ public class EventManager {
 	 * @param system System is required to find correct event listener service.
 	 * @param method Method that should be called in the event listener service.
 	 * @param data Data that should be used as parameters in the method call.
-	 * @return If event listener is disabled, then always true. Otherwise only true, if method was called successfully.
+	 * @return If event listener is disabled, then always {@link DeliveryResult#DELIVERED}. Otherwise the result of
+	 *         the call, where a method that is not implemented counts as a failed delivery (except for the optional
+	 *         project-updated event, which then counts as delivered).
 	 */
-	private boolean invokeEventListenerService(Context context, String system, String method, Serializable... data) {
+	private DeliveryResult invokeEventListenerService(Context context, String system, String method,
+			Serializable... data) {
 		String eventListenerService = this.eventListenerServiceMap.get(system);
 		boolean enabled = eventListenerService != null;
-		if(!enabled) return true;
-		
+		if(!enabled) return DeliveryResult.DELIVERED;
+
+		DeliveryResult result = this.invoke(context, eventListenerService, method, data);
+		if(result != DeliveryResult.NOT_IMPLEMENTED) return result;
+		// event listener services written before the project-updated event was added do not implement it
+		return EVENT_METHOD_PROJECT_UPDATED.equals(method) ? DeliveryResult.DELIVERED : DeliveryResult.FAILED;
+	}
+
+	/**
+	 * Sends the given events to the event listener service using a single call of its batch method.
+	 * Every event is sent as a JSONObject containing the event type and the project.
+	 * @param context Context used for invoking the event listener service.
+	 * @param eventListenerService Name of the event listener service.
+	 * @param events Events that should be sent.
+	 * @return Result of the call.
+	 */
+	private DeliveryResult invokeBatchMethod(Context context, String eventListenerService, List<EventOutbox.Event> events) {
+		JSONArray batch = new JSONArray();
+		for(EventOutbox.Event event : events) {
+			JSONObject eventJSON = new JSONObject();
+			eventJSON.put("type", getEventType(event.getMethod()));
+			eventJSON.put("project", JSONValue.parse(event.getData()));
+			batch.add(eventJSON);
+		}
+
+		return this.invoke(context, eventListenerService, EVENT_METHOD_BATCH, batch);
+	}
+
+	/**
+	 * Invokes the given method of the event listener service, if its guard lets the call through.
+	 * The duration and outcome of the call are recorded in the {@link ServiceMetrics}.
+	 * @param context Context used for invoking the event listener service.
+	 * @param eventListenerService Name of the event listener service.
+	 * @param method Method that should be called.
+	 * @param data Parameters of the method call.
+	 * @return Result of the call.
+	 */
+	private DeliveryResult invoke(Context context, String eventListenerService, String method, Serializable... data) {
+		long start = System.nanoTime();
+		IntegrationGuard.Permit permit = this.getGuard(eventListenerService).tryAcquire();
+		if(permit == null) {
+			ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION, ServiceMetrics.OUTCOME_REJECTED, start);
+			return DeliveryResult.REJECTED;
+		}
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
 		try {
 			context.invoke(eventListenerService, method, data);
-			return true;
+			permit.release(true);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+			return DeliveryResult.DELIVERED;
+		} catch (ServiceMethodNotFoundException e) {
+			permit.release(true);
+			outcome = ServiceMetrics.OUTCOME_NOT_FOUND;
+			return DeliveryResult.NOT_IMPLEMENTED;
+		} catch (ServiceAccessDeniedException | ServiceNotAuthorizedException e) {
+			// event listener service is available, but the call is not allowed
+			permit.release(true);
+			outcome = ServiceMetrics.OUTCOME_ACCESS_DENIED;
+			return DeliveryResult.FAILED;
 		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
-				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
-				| ServiceNotAuthorizedException e) {
-			return false;
+				| ServiceInvocationFailedException e) {
+			permit.release(false);
+			return DeliveryResult.FAILED;
+		} finally {
+			// has no effect if the permit was already released
+			permit.release(false);
+			ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION, outcome, start);
 		}
 	}
-	
+
+	/**
+	 * Returns the guard for calls of the given event listener service.
+	 * @param eventListenerService Name of the event listener service.
+	 * @return The guard, created on first use.
+	 */
+	private IntegrationGuard getGuard(String eventListenerService) {
+		return this.guards.computeIfAbsent(eventListenerService,
+				service -> IntegrationGuard.create("event listener " + service, MAX_CONCURRENT_CALLS));
+	}
+
+	/**
+	 * Result of a call of an event listener service.
+	 */
+	private enum DeliveryResult {
+		/**
+		 * The method was called successfully.
+		 */
+		DELIVERED,
+		/**
+		 * The call failed, this uses up a delivery attempt of the event.
+		 */
+		FAILED,
+		/**
+		 * The call was not made, because the bulkhead is full or the circuit is open. Does not use up a delivery
+		 * attempt.
+		 */
+		REJECTED,
+		/**
+		 * The event listener service does not implement the method.
+		 */
+		NOT_IMPLEMENTED
+	}
+
+	private static String getEventType(String method) {
+		if(EVENT_METHOD_PROJECT_DELETED.equals(method)) return EVENT_TYPE_PROJECT_DELETED;
+		if(EVENT_METHOD_PROJECT_UPDATED.equals(method)) return EVENT_TYPE_PROJECT_UPDATED;
+		return EVENT_TYPE_PROJECT_CREATED;
+	}
+
+	/**
+	 * Returns the delay before the given delivery attempt of an event.
+	 * @param attempt Number of the failed attempt.
+	 * @return Delay in milliseconds.
+	 */
+	private static long getRetryDelay(int attempt) {
+		return Math.min(RETRY_MAX_DELAY, RETRY_BASE_DELAY << Math.min(attempt - 1, 20));
+	}
+
+	/**
+	 * Returns the index of the outbox shard that the events of the given project are stored in.
+	 * @param projectName Name of the project.
+	 * @return Index of the outbox shard.
+	 */
+	private static int getOutboxShard(String projectName) {
+		return projectName == null ? 0 : ProjectListStore.getShardIndex(projectName, OUTBOX_SHARDS);
+	}
+
+	/**
+	 * Returns the identifier of the envelope of the given outbox shard.
+	 * @param system Name of the system.
+	 * @param shard Index of the outbox shard.
+	 * @return Identifier of the outbox shard envelope.
+	 */
+	public static String getOutboxIdentifier(String system, int shard) {
+		return system + "_" + OUTBOX_PREFIX + "_" + shard;
+	}
 
 }
@@ -0,0 +1,145 @@
+package i5.las2peer.services.projectService;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Content of an outbox shard envelope of a system.
+ * Contains the events that still need to be delivered to the event listener service of the system,
+ * in the order in which they occurred.
+ */
+public class EventOutbox implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long nextEventId = 1;
+
+	private ArrayList<Event> events = new ArrayList<>();
+
+	/**
+	 * Adds a new event to the end of the outbox.
+	 * @param method Method of the event listener service that should be called.
+	 * @param data JSON string that should be sent to the event listener service.
+	 * @return The event that got added.
+	 */
+	public Event addEvent(String method, String data) {
+		Event event = new Event(this.nextEventId++, method, data);
+		this.events.add(event);
+		return event;
+	}
+
+	/**
+	 * Returns the events that are due for delivery, i.e., all events up to the first event whose
+	 * next delivery attempt lies in the future. Events are always delivered in order.
+	 * @param now Current time in milliseconds.
+	 * @return Events that are due, in the order in which they occurred.
+	 */
+	public List<Event> getDueEvents(long now) {
+		List<Event> due = new ArrayList<>();
+		for (Event event : this.events) {
+			if (event.nextAttemptAt > now) break;
+			due.add(event);
+		}
+		return due;
+	}
+
+	/**
+	 * Removes the event with the given id from the outbox.
+	 * @param eventId Id of the event.
+	 * @return Whether the outbox contained the event.
+	 */
+	public boolean removeEvent(long eventId) {
+		Iterator<Event> it = this.events.iterator();
+		while (it.hasNext()) {
+			if (it.next().id == eventId) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the event with the given id.
+	 * @param eventId Id of the event.
+	 * @return The event or null, if the outbox does not contain the event.
+	 */
+	public Event getEvent(long eventId) {
+		for (Event event : this.events) {
+			if (event.id == eventId) return event;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the time of the next delivery attempt of the first event.
+	 * @return Time in milliseconds, or -1 if the outbox is empty.
+	 */
+	public long getNextAttemptAt() {
+		if (this.events.isEmpty()) return -1;
+		return this.events.get(0).nextAttemptAt;
+	}
+
+	public boolean isEmpty() {
+		return this.events.isEmpty();
+	}
+
+	public int size() {
+		return this.events.size();
+	}
+
+	/**
+	 * An event that needs to be delivered to the event listener service.
+	 */
+	public static class Event implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long id;
+		private final String method;
+		private final String data;
+		private final long createdAt;
+		private int attempts = 0;
+		private long nextAttemptAt;
+
+		private Event(long id, String method, String data) {
+			this.id = id;
+			this.method = method;
+			this.data = data;
+			this.createdAt = System.currentTimeMillis();
+			this.nextAttemptAt = this.createdAt;
+		}
+
+		/**
+		 * Stores that delivering the event failed.
+		 * @param nextAttemptAt Time (in milliseconds) of the next delivery attempt.
+		 */
+		public void deliveryFailed(long nextAttemptAt) {
+			this.attempts++;
+			this.nextAttemptAt = nextAttemptAt;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		public String getData() {
+			return data;
+		}
+
+		public long getCreatedAt() {
+			return createdAt;
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+	}
+
+}
@@ -0,0 +1,379 @@
+package i5.las2peer.services.projectService;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.persistency.Envelope;
+import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.api.persistency.EnvelopeOperationFailedException;
+import i5.las2peer.api.security.Agent;
+import i5.las2peer.api.security.GroupAgent;
+import i5.las2peer.services.projectService.project.Project;
+import i5.las2peer.services.projectService.util.SystemsConfig;
+import i5.las2peer.services.projectService.util.github.GitHubHelper;
+import i5.las2peer.services.projectService.util.github.GitHubProject;
+import i5.las2peer.services.projectService.util.github.GitHubRequestScheduler.Priority;
+
+/**
+ * Synchronizes the access to the GitHub projects of all projects in the background.
+ *
+ * In every run, the collaborators of every connected GitHub project are compared with the members of the group
+ * of the las2peer project: group members whose GitHub username is stored get access to the GitHub project, users
+ * that left the group lose their access. Thus, the access gets corrected continuously, also for users that never
+ * send their GitHub username again.
+ *
+ * The requests to the GitHub API are sent with background priority, and only a limited number of projects is
+ * synchronized at the same time. The stored GitHub usernames of users that left their group are removed at the
+ * end of the run, so that every shard of the project list gets stored at most once per run.
+ *
+ * Only one node synchronizes the access of a system: before synchronizing a system, the node needs to hold the
+ * lease of the system. The lease envelope contains the node holding it and the time of its last run. If that
+ * node stops running, another node takes the lease over once it expired.
+ */
+public class GitHubAccessReconciler {
+
+	/**
+	 * The lease of a system expires if it did not get renewed for this number of intervals.
+	 */
+	private static final int LEASE_TIMEOUT_FACTOR = 3;
+
+	/**
+	 * Used to start the runs. The runs themselves are executed in the executor of the context.
+	 */
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "project-service-github-reconciler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ProjectListStore projectListStore;
+	private final Supplier<GroupAgent> serviceGroupAgentSupplier;
+	private final Supplier<SystemsConfig> systemsConfigSupplier;
+
+	/**
+	 * Time (in milliseconds) between two runs. Disabled if 0 or less.
+	 */
+	private final long interval;
+
+	/**
+	 * Maximum number of projects whose access is synchronized at the same time.
+	 */
+	private final int maxConcurrentProjects;
+
+	/**
+	 * Identifies this reconciler in the lease envelopes.
+	 */
+	private final String leaseHolder = UUID.randomUUID().toString();
+
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	public GitHubAccessReconciler(ProjectListStore projectListStore, Supplier<GroupAgent> serviceGroupAgentSupplier,
+			Supplier<SystemsConfig> systemsConfigSupplier, long interval, int maxConcurrentProjects) {
+		this.projectListStore = projectListStore;
+		this.serviceGroupAgentSupplier = serviceGroupAgentSupplier;
+		this.systemsConfigSupplier = systemsConfigSupplier;
+		this.interval = interval;
+		this.maxConcurrentProjects = Math.max(1, maxConcurrentProjects);
+	}
+
+	/**
+	 * Whether the access gets synchronized in the background.
+	 * @return Whether the reconciler is enabled.
+	 */
+	public boolean isEnabled() {
+		return this.interval > 0;
+	}
+
+	/**
+	 * Starts the periodic runs, if they are not started yet. Since the runs need a context, this gets called
+	 * when the service handles a request.
+	 * The runs stop automatically once the reconciler is no longer used (i.e., got garbage collected).
+	 * @param context Context used for the runs. Should be the context of the service agent, since the runs do not
+	 *        belong to the request that started them.
+	 */
+	public void start(Context context) {
+		if (!this.isEnabled() || !this.started.compareAndSet(false, true)) return;
+		// the task must not keep the reconciler (and thus the service) alive
+		WeakReference<GitHubAccessReconciler> ref = new WeakReference<>(this);
+		ScheduledFuture<?>[] task = new ScheduledFuture<?>[1];
+		task[0] = TIMER.scheduleWithFixedDelay(() -> {
+			GitHubAccessReconciler reconciler = ref.get();
+			if (reconciler == null) {
+				task[0].cancel(false);
+				return;
+			}
+			reconciler.requestRun(context);
+		}, this.interval, this.interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts a run in the executor of the context, unless the previous run is still running.
+	 */
+	private void requestRun(Context context) {
+		if (!this.running.compareAndSet(false, true)) return;
+		try {
+			context.getExecutor().execute(() -> {
+				try {
+					this.run(context);
+				} finally {
+					this.running.set(false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.running.set(false);
+		}
+	}
+
+	/**
+	 * Synchronizes the access to the GitHub projects of all systems that have the GitHub projects enabled and
+	 * whose lease is held by this node.
+	 * @param context Context used to access the project lists and group agents.
+	 */
+	public void run(Context context) {
+		GroupAgent serviceGroupAgent = this.serviceGroupAgentSupplier.get();
+		if (serviceGroupAgent == null) return;
+		SystemsConfig systemsConfig = this.systemsConfigSupplier.get();
+		for (String system : systemsConfig.getSystemNames()) {
+			if (!systemsConfig.gitHubProjectsEnabled(system)) continue;
+			try {
+				// another node synchronizes the access of this system
+				if (!this.acquireLease(context, system, serviceGroupAgent)) continue;
+				this.reconcileSystem(context, system, serviceGroupAgent);
+			} catch (EnvelopeNotFoundException e) {
+				// no project got created in this system yet
+			} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
+				context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+						"Synchronizing GitHub access of system " + system + " failed: " + e.getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Acquires or renews the lease of the given system. Since storing an envelope fails if another node stored
+	 * it in the meantime, at most one node acquires the lease, also when taking over an expired lease.
+	 * @return Whether this node holds the lease.
+	 */
+	private boolean acquireLease(Context context, String system, Agent serviceGroupAgent)
+			throws EnvelopeAccessDeniedException {
+		String identifier = getLeaseIdentifier(system);
+		Envelope envelope;
+		try {
+			envelope = MeteredContext.requestEnvelope(context, identifier, serviceGroupAgent);
+			Lease lease = (Lease) envelope.getContent();
+			if (!this.leaseHolder.equals(lease.holder)
+					&& System.currentTimeMillis() - lease.renewedAt < this.interval * LEASE_TIMEOUT_FACTOR) {
+				return false;
+			}
+		} catch (EnvelopeNotFoundException e) {
+			try {
+				envelope = MeteredContext.createEnvelope(context, identifier, serviceGroupAgent);
+			} catch (EnvelopeOperationFailedException e1) {
+				return false;
+			}
+		} catch (EnvelopeOperationFailedException e) {
+			return false;
+		}
+		envelope.setContent(new Lease(this.leaseHolder, System.currentTimeMillis()));
+		try {
+			MeteredContext.storeEnvelope(context, envelope, serviceGroupAgent);
+			return true;
+		} catch (EnvelopeOperationFailedException e) {
+			// another node acquired the lease in the meantime
+			return false;
+		}
+	}
+
+	private static String getLeaseIdentifier(String system) {
+		return system + "_githubreconciler_lease";
+	}
+
+	private void reconcileSystem(Context context, String system, GroupAgent serviceGroupAgent)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException,
+			InterruptedException {
+		ProjectContainer projectList = this.projectListStore.getProjectList(system, serviceGroupAgent);
+		RunResult result = new RunResult();
+		Semaphore limit = new Semaphore(this.maxConcurrentProjects);
+		List<CompletableFuture<Void>> projects = new ArrayList<>();
+		// member lists of the groups, requested at most once per run
+		Map<String, Set<String>> groupMemberIds = new HashMap<>();
+
+		for (Project project : projectList.getAllProjects()) {
+			if (!project.gitHubProjectConnected()) continue;
+			Map<String, String> gitHubUsernames = project.getMemberGitHubUsernamesByUser();
+			if (gitHubUsernames.isEmpty()) continue;
+
+			Set<String> memberIds = groupMemberIds.get(project.getGroupIdentifier());
+			if (memberIds == null) {
+				try {
+					GroupAgent groupAgent = (GroupAgent) MeteredContext.fetchAgent(context, project.getGroupIdentifier());
+					memberIds = new HashSet<>(Arrays.asList(groupAgent.getMemberList()));
+				} catch (Exception e) {
+					// group cannot be fetched now, try again in the next run
+					result.failed.incrementAndGet();
+					continue;
+				}
+				groupMemberIds.put(project.getGroupIdentifier(), memberIds);
+			}
+
+			limit.acquire();
+			projects.add(this.reconcileProject(system, project, gitHubUsernames, memberIds, result)
+					.whenComplete((v, e) -> limit.release()));
+		}
+		CompletableFuture.allOf(projects.toArray(new CompletableFuture<?>[0])).join();
+
+		if (!result.removedUsernames.isEmpty()) {
+			this.removeGitHubUsernames(system, serviceGroupAgent, result.removedUsernames);
+		}
+		if (result.granted.get() > 0 || result.revoked.get() > 0 || result.failed.get() > 0) {
+			context.monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "Synchronized GitHub access of system " + system
+					+ ": " + result.granted + " granted, " + result.revoked + " revoked, " + result.failed + " failed");
+		}
+	}
+
+	/**
+	 * Compares the collaborators of the GitHub project with the group members and grants or removes access.
+	 * @return Future that completes when all requests for the project are done. Does not complete exceptionally,
+	 *         failed requests are counted in the result.
+	 */
+	private CompletableFuture<Void> reconcileProject(String system, Project project,
+			Map<String, String> gitHubUsernames, Set<String> memberIds, RunResult result) {
+		GitHubHelper gitHubHelper = GitHubHelper.getInstance();
+		GitHubProject gitHubProject = project.getConnectedGitHubProject();
+		return gitHubHelper.getProjectCollaboratorsAsync(system, gitHubProject, Priority.BACKGROUND)
+				.thenCompose(collaborators -> {
+					// GitHub usernames are case-insensitive
+					Set<String> collaboratorNames = new HashSet<>();
+					for (String collaborator : collaborators) {
+						collaboratorNames.add(collaborator.toLowerCase());
+					}
+
+					List<CompletableFuture<?>> requests = new ArrayList<>();
+					for (Map.Entry<String, String> entry : gitHubUsernames.entrySet()) {
+						String userId = entry.getKey();
+						String gitHubUsername = entry.getValue();
+						if (gitHubUsername == null) continue;
+						boolean member = memberIds.contains(userId);
+						boolean collaborator = collaboratorNames.contains(gitHubUsername.toLowerCase());
+						if (member && !collaborator) {
+							requests.add(count(gitHubHelper.grantUserAccessToProjectAsync(system, gitHubUsername,
+									gitHubProject, Priority.BACKGROUND), result.granted, result.failed));
+						} else if (!member && collaborator) {
+							// the username is only removed once the access got removed, otherwise the next run
+							// tries again
+							requests.add(count(gitHubHelper.removeUserAccessToProjectAsync(system, gitHubUsername,
+									gitHubProject, Priority.BACKGROUND), result.revoked, result.failed)
+									.thenAccept(removed -> {
+										if (removed) result.removedUsernames
+												.add(new RemovedUsername(project.getName(), userId, gitHubUsername));
+									}));
+						} else if (!member) {
+							// user left the group, but has no access to the GitHub project anyway
+							result.removedUsernames.add(new RemovedUsername(project.getName(), userId, gitHubUsername));
+						}
+					}
+					return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]));
+				})
+				.exceptionally(e -> {
+					result.failed.incrementAndGet();
+					return null;
+				});
+	}
+
+	/**
+	 * Counts the result of the given request.
+	 * @return Future that completes with whether the request succeeded.
+	 */
+	private static CompletableFuture<Boolean> count(CompletableFuture<Void> request, AtomicInteger succeeded,
+			AtomicInteger failed) {
+		return request.handle((v, e) -> {
+			(e == null ? succeeded : failed).incrementAndGet();
+			return e == null;
+		});
+	}
+
+	/**
+	 * Removes the stored GitHub usernames of users that left their group. Only shards containing one of the
+	 * projects get stored.
+	 */
+	private void removeGitHubUsernames(String system, Agent serviceGroupAgent,
+			ConcurrentLinkedQueue<RemovedUsername> removedUsernames)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		this.projectListStore.updateAll(system, serviceGroupAgent, projectList -> {
+			boolean changed = false;
+			for (RemovedUsername removed : removedUsernames) {
+				Project project = projectList.getProjectByName(removed.projectName);
+				if (project != null && project.removeGitHubUsername(removed.userId, removed.gitHubUsername)) {
+					changed = true;
+				}
+			}
+			return changed ? ProjectListStore.UpdateResult.store(null) : ProjectListStore.UpdateResult.unchanged(null);
+		});
+	}
+
+	/**
+	 * Content of the lease envelope of a system.
+	 */
+	private static class Lease implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String holder;
+		private final long renewedAt;
+
+		private Lease(String holder, long renewedAt) {
+			this.holder = holder;
+			this.renewedAt = renewedAt;
+		}
+	}
+
+	/**
+	 * Results of synchronizing the access of one system.
+	 */
+	private static class RunResult {
+		private final AtomicInteger granted = new AtomicInteger();
+		private final AtomicInteger revoked = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final ConcurrentLinkedQueue<RemovedUsername> removedUsernames = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * GitHub username of a user that left the group of a project.
+	 */
+	private static class RemovedUsername {
+		private final String projectName;
+		private final String userId;
+		private final String gitHubUsername;
+
+		private RemovedUsername(String projectName, String userId, String gitHubUsername) {
+			this.projectName = projectName;
+			this.userId = userId;
+			this.gitHubUsername = gitHubUsername;
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package i5.las2peer.services.projectService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.persistency.Envelope;
+import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.api.persistency.EnvelopeOperationFailedException;
+import i5.las2peer.api.security.GroupAgent;
+import i5.las2peer.services.projectService.project.Project;
+import i5.las2peer.services.projectService.util.github.GitHubException;
+import i5.las2peer.services.projectService.util.github.GitHubHelper;
+import i5.las2peer.services.projectService.util.github.GitHubProject;
+
+/**
+ * Creates the GitHub projects of new las2peer projects in the background.
+ *
+ * A new project is stored with a pending GitHub project first. Afterwards, the GitHub project gets created and
+ * the las2peer project is updated: the GitHub project gets connected (or marked as failed) in the project envelope
+ * and in the project list. Members that already sent their GitHub username in the meantime get access to the
+ * GitHub project afterwards. Then, a project-updated event is sent to the event listener service, so that it learns
+ * about the GitHub project (or that creating it failed). If the las2peer project got deleted before the GitHub project
+ * was created, the GitHub project gets deleted again.
+ */
+public class GitHubProjectProvisioner {
+
+	/**
+	 * Maximum number of attempts to store the project envelope, if storing fails because of concurrent writes.
+	 */
+	private static final int PROJECT_WRITE_ATTEMPTS = 5;
+
+	private final ProjectListStore projectListStore;
+	private final EventManager eventManager;
+
+	public GitHubProjectProvisioner(ProjectListStore projectListStore, EventManager eventManager) {
+		this.projectListStore = projectListStore;
+		this.eventManager = eventManager;
+	}
+
+	/**
+	 * Starts creating the GitHub project for the given (already stored) project.
+	 * @param context Context of the request that created the project. The project gets updated in a task of
+	 *        its executor.
+	 * @param system Name of the system.
+	 * @param projectName Name of the project.
+	 * @param groupAgent Unlocked group agent of the project, used to update the project envelope.
+	 * @param serviceGroupAgent Service group agent, used to update the project list.
+	 */
+	public void provision(Context context, String system, String projectName, GroupAgent groupAgent,
+			GroupAgent serviceGroupAgent) {
+		GitHubHelper.getInstance().createPublicGitHubProjectAsync(system, projectName)
+				.whenComplete((gitHubProject, e) -> {
+					try {
+						context.getExecutor().execute(() -> this.complete(context, system, projectName,
+								groupAgent, serviceGroupAgent, gitHubProject, e));
+					} catch (RejectedExecutionException e1) {
+						context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+								"Could not update GitHub project of " + projectName + ": " + e1.getMessage());
+					}
+				});
+	}
+
+	/**
+	 * Stores the result of creating the GitHub project.
+	 */
+	private void complete(Context context, String system, String projectName, GroupAgent groupAgent,
+			GroupAgent serviceGroupAgent, GitHubProject gitHubProject, Throwable error) {
+		if (error != null) {
+			context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+					"Creation of GitHub project for " + projectName + " failed: " + error.getMessage());
+		}
+		try {
+			boolean exists = this.updateProjectEnvelope(context, system, projectName, groupAgent, gitHubProject);
+			if (!exists) {
+				// project got deleted while the GitHub project was created
+				this.deleteGitHubProject(context, system, gitHubProject);
+				return;
+			}
+
+			// updated project, only set if it got stored
+			AtomicReference<JSONObject> projectJSON = new AtomicReference<>();
+			List<String> gitHubUsernames = this.projectListStore.update(system, projectName, serviceGroupAgent,
+					projectList -> {
+						projectJSON.set(null);
+						Project project = projectList.getProjectByName(projectName);
+						if (project == null) return ProjectListStore.UpdateResult.unchanged(new ArrayList<String>());
+						applyResult(project, gitHubProject);
+						projectJSON.set(project.toJSONObject());
+						return ProjectListStore.UpdateResult.store(project.getMemberGitHubUsernames());
+					});
+
+			if (projectJSON.get() != null
+					&& !this.eventManager.sendProjectUpdatedEvent(context, system, projectJSON.get())) {
+				context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+						"Storing project-updated event of " + projectName + " failed.");
+			}
+
+			// members that sent their GitHub username before the GitHub project existed get access now
+			if (gitHubProject != null) {
+				for (String gitHubUsername : gitHubUsernames) {
+					try {
+						GitHubHelper.getInstance().grantUserAccessToProject(system, gitHubUsername, gitHubProject);
+					} catch (GitHubException e) {
+						context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+								"Granting " + gitHubUsername + " access to GitHub project failed: " + e.getMessage());
+					}
+				}
+			}
+		} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
+			context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+					"Storing GitHub project of " + projectName + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stores the result in the project envelope.
+	 * @return Whether the project still exists.
+	 */
+	private boolean updateProjectEnvelope(Context context, String system, String projectName, GroupAgent groupAgent,
+			GitHubProject gitHubProject) throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		String identifier = ProjectService.getProjectIdentifier(system, projectName);
+		for (int attempt = 1;; attempt++) {
+			try {
+				Envelope env = MeteredContext.requestEnvelope(context, identifier, groupAgent);
+				ProjectContainer cc = (ProjectContainer) env.getContent();
+				Project project = cc.getProjectByName(projectName);
+				if (project == null) return false;
+				applyResult(project, gitHubProject);
+				env.setContent(cc);
+				MeteredContext.storeEnvelope(context, env, groupAgent);
+				return true;
+			} catch (EnvelopeNotFoundException e) {
+				return false;
+			} catch (EnvelopeOperationFailedException e) {
+				// project got changed concurrently
+				if (attempt >= PROJECT_WRITE_ATTEMPTS) throw e;
+			}
+		}
+	}
+
+	private static void applyResult(Project project, GitHubProject gitHubProject) {
+		if (gitHubProject != null) {
+			project.setConnectedGitHubProject(gitHubProject);
+		} else {
+			project.setGitHubProjectFailed();
+		}
+	}
+
+	private void deleteGitHubProject(Context context, String system, GitHubProject gitHubProject) {
+		if (gitHubProject == null) return;
+		try {
+			GitHubHelper.getInstance().deleteGitHubProject(system, gitHubProject);
+		} catch (GitHubException e) {
+			context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+					"Deleting GitHub project " + gitHubProject.getId() + " failed: " + e.getMessage());
+		}
+	}
+
+}
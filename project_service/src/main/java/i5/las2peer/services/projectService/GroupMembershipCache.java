@@ -0,0 +1,109 @@
+package i5.las2peer.services.projectService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node-local cache storing whether a user is a member of a group.
+ * Checking the membership requires requesting (fetching and unlocking) the group agent with the
+ * user agent. When listing projects, this needs to be done for every project, thus the results
+ * are cached for a limited time.
+ *
+ * Entries are stored per group, so that all entries of a group can be removed at once (e.g.,
+ * if a project gets linked to a different group).
+ */
+public class GroupMembershipCache {
+
+	/**
+	 * After this number of insertions, expired entries get removed from the cache.
+	 */
+	private static final int PURGE_INTERVAL = 1000;
+
+	/**
+	 * Time (in milliseconds) that a cached membership may be used.
+	 * If set to zero or a negative value, caching is disabled.
+	 */
+	private final long maxAge;
+
+	/**
+	 * Maps group identifiers to a map, which maps user agent identifiers to the cached membership.
+	 */
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> groups = new ConcurrentHashMap<>();
+
+	private final AtomicInteger insertions = new AtomicInteger();
+
+	public GroupMembershipCache(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Returns the cached membership of the user in the group.
+	 * @param userId Identifier of the user agent.
+	 * @param groupId Identifier of the group agent.
+	 * @return True if the user is a member, false if not, or null if nothing (valid) is cached.
+	 */
+	public Boolean get(String userId, String groupId) {
+		if (!this.isEnabled()) return null;
+
+		Map<String, Entry> members = this.groups.get(groupId);
+		if (members == null) return null;
+		Entry entry = members.get(userId);
+		if (entry == null) return null;
+		if (entry.isExpired(this.maxAge)) {
+			members.remove(userId, entry);
+			return null;
+		}
+		return entry.member;
+	}
+
+	/**
+	 * Stores the membership of the user in the group.
+	 * @param userId Identifier of the user agent.
+	 * @param groupId Identifier of the group agent.
+	 * @param member Whether the user is a member of the group.
+	 */
+	public void put(String userId, String groupId, boolean member) {
+		if (!this.isEnabled()) return;
+
+		this.groups.computeIfAbsent(groupId, id -> new ConcurrentHashMap<>()).put(userId, new Entry(member));
+		if (this.insertions.incrementAndGet() % PURGE_INTERVAL == 0) {
+			this.purgeExpired();
+		}
+	}
+
+	/**
+	 * Removes all cached memberships of the given group.
+	 * @param groupId Identifier of the group agent.
+	 */
+	public void invalidateGroup(String groupId) {
+		if (groupId == null) return;
+		this.groups.remove(groupId);
+	}
+
+	private void purgeExpired() {
+		for (Map<String, Entry> members : this.groups.values()) {
+			members.values().removeIf(entry -> entry.isExpired(this.maxAge));
+		}
+		this.groups.values().removeIf(Map::isEmpty);
+	}
+
+	private boolean isEnabled() {
+		return this.maxAge > 0;
+	}
+
+	private static class Entry {
+		private final boolean member;
+		private final long createdAt;
+
+		private Entry(boolean member) {
+			this.member = member;
+			this.createdAt = System.currentTimeMillis();
+		}
+
+		private boolean isExpired(long maxAge) {
+			return System.currentTimeMillis() - this.createdAt > maxAge;
+		}
+	}
+
+}
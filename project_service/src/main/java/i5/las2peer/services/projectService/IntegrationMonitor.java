@@ -0,0 +1,41 @@
+package i5.las2peer.services.projectService;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.services.projectService.util.IntegrationGuard;
+
+/**
+ * Reports state changes of the {@link IntegrationGuard}s (GitHub, RocketChat and event listener services) as
+ * monitoring events. An opened circuit is reported as an error, together with the state of all integrations.
+ */
+public class IntegrationMonitor {
+
+	/**
+	 * Context of the service agent used for the monitoring events, set with the first request.
+	 */
+	private final AtomicReference<Context> context = new AtomicReference<>();
+
+	/**
+	 * Starts reporting the state changes. Calling this more than once has no effect.
+	 * @param context Context used for the monitoring events.
+	 */
+	public void start(Context context) {
+		if (this.context.compareAndSet(null, context)) {
+			IntegrationGuard.addStateListener(this::report);
+		}
+	}
+
+	private void report(IntegrationGuard guard) {
+		Context context = this.context.get();
+		IntegrationGuard.State state = guard.getState();
+		StringBuilder message = new StringBuilder("Integration " + guard.getName() + " changed to " + state + ".");
+		for (IntegrationGuard other : IntegrationGuard.getAll()) {
+			message.append(" ").append(other);
+		}
+		context.monitorEvent(state == IntegrationGuard.State.OPEN ? MonitoringEvent.SERVICE_ERROR
+				: MonitoringEvent.SERVICE_MESSAGE, message.toString());
+	}
+
+}
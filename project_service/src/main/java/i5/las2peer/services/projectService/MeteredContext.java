@@ -0,0 +1,143 @@
+package i5.las2peer.services.projectService;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.persistency.Envelope;
+import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.api.persistency.EnvelopeOperationFailedException;
+import i5.las2peer.api.security.Agent;
+import i5.las2peer.api.security.AgentAccessDeniedException;
+import i5.las2peer.api.security.AgentNotFoundException;
+import i5.las2peer.api.security.AgentOperationFailedException;
+import i5.las2peer.services.projectService.util.RequestTrace;
+import i5.las2peer.services.projectService.util.ServiceMetrics;
+
+/**
+ * Envelope and agent operations of the las2peer context, whose duration and outcome are recorded in the
+ * {@link ServiceMetrics} and in the {@link RequestTrace} of the current request. The service uses these methods
+ * instead of calling the context directly.
+ *
+ * las2peer decrypts and deserializes the content of an envelope while requesting it, thus the deserialization is
+ * part of the envelope fetch phase of the trace.
+ */
+public final class MeteredContext {
+
+	private static final String OPERATION_REQUEST_ENVELOPE = "request";
+	private static final String OPERATION_CREATE_ENVELOPE = "create";
+	private static final String OPERATION_STORE_ENVELOPE = "store";
+	private static final String OPERATION_REQUEST_AGENT = "requestAgent";
+	private static final String OPERATION_FETCH_AGENT = "fetchAgent";
+
+	private MeteredContext() {
+	}
+
+	/**
+	 * See {@link Context#requestEnvelope(String)}.
+	 */
+	public static Envelope requestEnvelope(Context context, String identifier)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		return requestEnvelope(context, identifier, null);
+	}
+
+	/**
+	 * See {@link Context#requestEnvelope(String, Agent)}.
+	 * @param using Agent used to open the envelope, or null to use the main agent.
+	 */
+	public static Envelope requestEnvelope(Context context, String identifier, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		long start = System.nanoTime();
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENVELOPE_FETCH)) {
+			Envelope env = using == null ? context.requestEnvelope(identifier) : context.requestEnvelope(identifier, using);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+			return env;
+		} catch (EnvelopeNotFoundException e) {
+			outcome = ServiceMetrics.OUTCOME_NOT_FOUND;
+			throw e;
+		} catch (EnvelopeAccessDeniedException e) {
+			outcome = ServiceMetrics.OUTCOME_ACCESS_DENIED;
+			throw e;
+		} finally {
+			ServiceMetrics.getInstance().recordEnvelopeOperation(OPERATION_REQUEST_ENVELOPE, outcome, start);
+		}
+	}
+
+	/**
+	 * See {@link Context#createEnvelope(String, Agent)}.
+	 */
+	public static Envelope createEnvelope(Context context, String identifier, Agent using)
+			throws EnvelopeOperationFailedException, EnvelopeAccessDeniedException {
+		long start = System.nanoTime();
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENVELOPE_STORE)) {
+			Envelope env = context.createEnvelope(identifier, using);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+			return env;
+		} catch (EnvelopeAccessDeniedException e) {
+			outcome = ServiceMetrics.OUTCOME_ACCESS_DENIED;
+			throw e;
+		} finally {
+			ServiceMetrics.getInstance().recordEnvelopeOperation(OPERATION_CREATE_ENVELOPE, outcome, start);
+		}
+	}
+
+	/**
+	 * See {@link Context#storeEnvelope(Envelope, Agent)}.
+	 */
+	public static void storeEnvelope(Context context, Envelope env, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		long start = System.nanoTime();
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENVELOPE_STORE)) {
+			context.storeEnvelope(env, using);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+		} catch (EnvelopeAccessDeniedException e) {
+			outcome = ServiceMetrics.OUTCOME_ACCESS_DENIED;
+			throw e;
+		} finally {
+			ServiceMetrics.getInstance().recordEnvelopeOperation(OPERATION_STORE_ENVELOPE, outcome, start);
+		}
+	}
+
+	/**
+	 * See {@link Context#requestAgent(String, Agent)}.
+	 */
+	public static Agent requestAgent(Context context, String agentId, Agent using)
+			throws AgentAccessDeniedException, AgentNotFoundException, AgentOperationFailedException {
+		long start = System.nanoTime();
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.AGENT_REQUEST)) {
+			Agent agent = context.requestAgent(agentId, using);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+			return agent;
+		} catch (AgentNotFoundException e) {
+			outcome = ServiceMetrics.OUTCOME_NOT_FOUND;
+			throw e;
+		} catch (AgentAccessDeniedException e) {
+			outcome = ServiceMetrics.OUTCOME_ACCESS_DENIED;
+			throw e;
+		} finally {
+			ServiceMetrics.getInstance().recordAgentOperation(OPERATION_REQUEST_AGENT, outcome, start);
+		}
+	}
+
+	/**
+	 * See {@link Context#fetchAgent(String)}.
+	 */
+	public static Agent fetchAgent(Context context, String agentId)
+			throws AgentNotFoundException, AgentOperationFailedException {
+		long start = System.nanoTime();
+		String outcome = ServiceMetrics.OUTCOME_ERROR;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.AGENT_REQUEST)) {
+			Agent agent = context.fetchAgent(agentId);
+			outcome = ServiceMetrics.OUTCOME_SUCCESS;
+			return agent;
+		} catch (AgentNotFoundException e) {
+			outcome = ServiceMetrics.OUTCOME_NOT_FOUND;
+			throw e;
+		} finally {
+			ServiceMetrics.getInstance().recordAgentOperation(OPERATION_FETCH_AGENT, outcome, start);
+		}
+	}
+
+}
@@ -1,10 +1,16 @@
 package i5.las2peer.services.projectService;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import i5.las2peer.services.projectService.project.Project;
 
@@ -22,9 +28,82 @@ public class ProjectContainer implements Serializable {
 
 	private HashMap<String, Project> allProjects;
 
+	/**
+	 * Version of the project list. Gets increased every time the envelope containing this
+	 * container is stored. Containers that were stored before this field existed start with 0.
+	 */
+	private long version = 0;
+
+	/**
+	 * All projects sorted by their name. Computed on demand and reset whenever a project
+	 * gets added or removed.
+	 */
+	private transient volatile List<Project> sortedProjects;
+
+	/**
+	 * Names of the projects linked to a group, by group identifier. Not serialized, but
+	 * rebuilt from the projects when a container gets read.
+	 */
+	private transient HashMap<String, HashSet<String>> projectsByGroup;
+
 	public ProjectContainer() {
 		userProjects = new HashSet<>();
 		allProjects = new HashMap<>();
+		projectsByGroup = new HashMap<>();
+	}
+
+	/**
+	 * Used when reading a container in the compact format.
+	 */
+	ProjectContainer(HashSet<String> userProjects, HashMap<String, Project> allProjects, long version) {
+		this.userProjects = userProjects;
+		this.allProjects = allProjects;
+		this.version = version;
+		this.rebuildGroupIndex();
+	}
+
+	/**
+	 * Rebuilds the group index after reading a container serialized using the default
+	 * serialization of this class.
+	 * 
+	 * @param in Stream the container is read from.
+	 * @throws IOException If reading the container failed.
+	 * @throws ClassNotFoundException If a class of the serialized container could not be found.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.rebuildGroupIndex();
+	}
+
+	private void rebuildGroupIndex() {
+		projectsByGroup = new HashMap<>();
+		for (Project p : allProjects.values()) {
+			addToGroupIndex(p);
+		}
+	}
+
+	private void addToGroupIndex(Project p) {
+		projectsByGroup.computeIfAbsent(p.getGroupIdentifier(), g -> new HashSet<>()).add(p.getName());
+	}
+
+	private void removeFromGroupIndex(Project p) {
+		if (p == null) return;
+		HashSet<String> names = projectsByGroup.get(p.getGroupIdentifier());
+		if (names != null) {
+			names.remove(p.getName());
+			if (names.isEmpty()) projectsByGroup.remove(p.getGroupIdentifier());
+		}
+	}
+
+	/**
+	 * Containers are serialized in the compact format of {@link CompactProjectContainer}.
+	 * Containers serialized before (using the default serialization of this class) can still be read.
+	 * 
+	 * @return Serialized form of this container.
+	 * @throws ObjectStreamException never
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactProjectContainer(this);
 	}
 
 	public HashSet<String> getUserProjects() {
@@ -32,23 +111,106 @@ public class ProjectContainer implements Serializable {
 	}
 
 	public void addProject(Project p) {
-		allProjects.put(p.getName(), p);
+		removeFromGroupIndex(allProjects.put(p.getName(), p));
+		addToGroupIndex(p);
+		sortedProjects = null;
 	}
 
+	/**
+	 * Removes the project from the container. Note: If the group of the project should be
+	 * changed, the project needs to be removed before changing its group and added again
+	 * afterwards, so that the group index stays consistent.
+	 * 
+	 * @param p Project to remove.
+	 */
 	public void removeProject(Project p) {
-		allProjects.remove(p.getName());
+		removeProject(p.getName());
 	}
 	
 	public void removeProject(String projectName) {
-		allProjects.remove(projectName);
+		removeFromGroupIndex(allProjects.remove(projectName));
+		sortedProjects = null;
 	}
 	
 	public Project getProjectByName(String projectName) {
 		return allProjects.get(projectName);
 	}
 
+	/**
+	 * Returns the names of the projects linked to the given group.
+	 * 
+	 * @param groupIdentifier Identifier of the group agent.
+	 * @return Unmodifiable set of project names, empty if no project is linked to the group.
+	 */
+	public Set<String> getProjectNamesByGroup(String groupIdentifier) {
+		HashSet<String> names = projectsByGroup.get(groupIdentifier);
+		if (names == null) return Collections.emptySet();
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Returns the projects linked to the given group, sorted by their name.
+	 * 
+	 * @param groupIdentifier Identifier of the group agent.
+	 * @return List of the projects linked to the group.
+	 */
+	public List<Project> getProjectsByGroup(String groupIdentifier) {
+		List<Project> projects = new ArrayList<>();
+		for (String projectName : getProjectNamesByGroup(groupIdentifier)) {
+			projects.add(allProjects.get(projectName));
+		}
+		projects.sort(Comparator.comparing(Project::getName));
+		return projects;
+	}
+
 	public List<Project> getAllProjects() {
 		return new ArrayList<>(allProjects.values());
 	}
 
+	/**
+	 * Returns all projects sorted by their name. The sorted list is reused until the
+	 * container gets modified.
+	 * 
+	 * @return Unmodifiable list of all projects, sorted by name.
+	 */
+	public List<Project> getAllProjectsSortedByName() {
+		List<Project> sorted = sortedProjects;
+		if (sorted == null) {
+			List<Project> projects = new ArrayList<>(allProjects.values());
+			projects.sort(Comparator.comparing(Project::getName));
+			sorted = Collections.unmodifiableList(projects);
+			sortedProjects = sorted;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Creates a container holding the projects of all given containers. The version of the
+	 * created container is the sum of the versions of the given containers.
+	 * 
+	 * @param containers Containers that should be merged.
+	 * @return New container containing all projects.
+	 */
+	static ProjectContainer merge(List<ProjectContainer> containers) {
+		ProjectContainer merged = new ProjectContainer();
+		for (ProjectContainer container : containers) {
+			for (Project p : container.allProjects.values()) {
+				merged.addProject(p);
+			}
+			merged.version += container.version;
+		}
+		return merged;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Increases the version of the container. Should be called before storing the container.
+	 */
+	public void incrementVersion() {
+		version++;
+	}
+
 }
\ No newline at end of file
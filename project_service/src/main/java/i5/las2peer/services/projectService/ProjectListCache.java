@@ -0,0 +1,92 @@
+package i5.las2peer.services.projectService;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local cache of decoded project list envelopes (ProjectContainer), keyed by the envelope identifier.
+ * Reading a project list envelope requires a storage round-trip and decrypting + deserializing
+ * the whole container. This cache allows read-only requests to reuse the last decoded container.
+ *
+ * Entries are keyed by the version of the container (see {@link ProjectContainer#getVersion()}),
+ * which gets increased whenever the project list envelope is stored. A cached entry is only replaced
+ * by a container with the same or a newer version. Since other nodes may also write the envelope,
+ * entries are only used for a limited time and are reloaded from storage afterwards.
+ *
+ * Containers handed out by this cache are shared between requests and must not be modified.
+ * Write operations need to request the envelope themselves and put the updated container into
+ * the cache afterwards.
+ */
+public class ProjectListCache {
+
+	/**
+	 * Time (in milliseconds) that a cached project list may be used before it gets reloaded.
+	 * If set to zero or a negative value, caching is disabled.
+	 */
+	private final long maxAge;
+
+	/**
+	 * Maps envelope identifiers to the cached content of the envelope.
+	 */
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public ProjectListCache(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Returns the cached content of the given project list envelope.
+	 * @param identifier Identifier of the envelope.
+	 * @return Cached ProjectContainer or null, if there is no (valid) entry for the envelope.
+	 */
+	public ProjectContainer get(String identifier) {
+		if (!this.isEnabled()) return null;
+
+		Entry entry = this.entries.get(identifier);
+		if (entry == null) return null;
+		if (System.currentTimeMillis() - entry.loadedAt > this.maxAge) {
+			// entry is outdated, it might not contain changes made on other nodes
+			this.entries.remove(identifier, entry);
+			return null;
+		}
+		return entry.container;
+	}
+
+	/**
+	 * Stores the given project list in the cache, unless the cache already contains a newer
+	 * version of the project list.
+	 * @param identifier Identifier of the envelope.
+	 * @param container Project list that was just loaded from or written to the storage.
+	 */
+	public void put(String identifier, ProjectContainer container) {
+		if (!this.isEnabled() || container == null) return;
+
+		Entry entry = new Entry(container);
+		this.entries.merge(identifier, entry, (cached, loaded) -> loaded.version >= cached.version ? loaded : cached);
+	}
+
+	/**
+	 * Removes the cached content of the given envelope.
+	 * Should be used whenever it is unclear whether the envelope got updated, e.g. if storing it failed.
+	 * @param identifier Identifier of the envelope.
+	 */
+	public void invalidate(String identifier) {
+		this.entries.remove(identifier);
+	}
+
+	private boolean isEnabled() {
+		return this.maxAge > 0;
+	}
+
+	private static class Entry {
+		private final ProjectContainer container;
+		private final long version;
+		private final long loadedAt;
+
+		private Entry(ProjectContainer container) {
+			this.container = container;
+			this.version = container.getVersion();
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+
+}
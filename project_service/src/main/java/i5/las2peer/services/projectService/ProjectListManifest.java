@@ -0,0 +1,27 @@
+package i5.las2peer.services.projectService;
+
+import java.io.Serializable;
+
+/**
+ * Content of the manifest envelope of a system's project list.
+ * The project list of a system is split into several shard envelopes. The manifest stores
+ * the number of shards, which is fixed once the project list of the system got created.
+ */
+public class ProjectListManifest implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Number of shard envelopes that the project list is split into.
+	 */
+	private int shardCount;
+
+	public ProjectListManifest(int shardCount) {
+		this.shardCount = shardCount;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+}
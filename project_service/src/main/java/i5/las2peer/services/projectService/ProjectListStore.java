@@ -0,0 +1,699 @@
+package i5.las2peer.services.projectService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.persistency.Envelope;
+import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.api.persistency.EnvelopeOperationFailedException;
+import i5.las2peer.api.security.Agent;
+import i5.las2peer.services.projectService.project.Project;
+
+/**
+ * Manages the envelopes storing the project list of every system.
+ *
+ * The project list of a system is split into several shard envelopes, each containing a ProjectContainer.
+ * The shard of a project is chosen by the hash of the project name. Thus, creating, changing or deleting a
+ * project only requires to rewrite a single shard, and writers working on different shards do not collide.
+ * A small manifest envelope stores the number of shards of the system.
+ *
+ * Systems that still use the single project list envelope (see {@link ProjectService#getProjectListIdentifier(String)})
+ * get migrated to the sharded layout on first access. The old envelope is not modified during the migration.
+ * Only one thread per node migrates a system and a lock envelope keeps other nodes from migrating at the same
+ * time. The migration only creates shards that do not exist yet, thus it never overwrites projects that were
+ * already added to a shard.
+ *
+ * Decoded shards are kept in a {@link ProjectListCache}, so that reading the project list does not need a storage
+ * round-trip for every shard.
+ *
+ * Shards are modified using {@link #update(String, String, Agent, ShardUpdate)}. If storing a shard fails, e.g.
+ * because another writer stored a newer version of it in the meantime, the latest version of the shard gets
+ * requested and the update is applied again (after a short, randomized delay).
+ *
+ * Requests that modify several projects (or the same shard several times) use a {@link UnitOfWork}, which collects
+ * the updates and stores every modified shard only once.
+ */
+public class ProjectListStore {
+
+	/**
+	 * Used for the identifiers of the manifest and shard envelopes. Differs from the prefix of the
+	 * project envelopes, so that project names cannot collide with shard identifiers.
+	 */
+	private static final String PROJECT_LIST_PREFIX = "projectlist";
+
+	/**
+	 * Delays (in milliseconds) used between two attempts to store a shard. The delay gets doubled with
+	 * every attempt until the maximum is reached. The actual delay is chosen randomly up to this value,
+	 * so that concurrent writers do not retry at the same time again.
+	 */
+	private static final long RETRY_BASE_DELAY = 20;
+	private static final long RETRY_MAX_DELAY = 1000;
+
+	/**
+	 * Time (in milliseconds) after which the migration lock of a system is considered stale, e.g. because the
+	 * node migrating the system crashed. Afterwards, another node may take over the migration.
+	 */
+	private static final long MIGRATION_LOCK_TIMEOUT = 60000;
+
+	/**
+	 * Delay (in milliseconds) between two checks whether another node finished migrating a system.
+	 */
+	private static final long MIGRATION_WAIT_DELAY = 500;
+
+	/**
+	 * Number of shards used when creating the project list of a system.
+	 * Systems that already have a project list keep their number of shards.
+	 */
+	private final int defaultShardCount;
+
+	/**
+	 * Maximum number of attempts to store a shard before an update fails.
+	 */
+	private final int maxWriteAttempts;
+
+	private final ProjectListCache cache;
+
+	/**
+	 * Maps system names to the number of shards of their project list.
+	 * The number of shards never changes once the manifest got stored.
+	 */
+	private final ConcurrentHashMap<String, Integer> shardCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Maps system names to a container merging all shards of the system. The version of a merged
+	 * container is the sum of the versions of its shards.
+	 */
+	private final ConcurrentHashMap<String, ProjectContainer> mergedProjectLists = new ConcurrentHashMap<>();
+
+	/**
+	 * Maps system names to the monitor used to look up (and possibly migrate) the project list of the system, so
+	 * that only one thread of this node does so at a time.
+	 */
+	private final ConcurrentHashMap<String, Object> shardCountLocks = new ConcurrentHashMap<>();
+
+	public ProjectListStore(int defaultShardCount, int maxWriteAttempts, ProjectListCache cache) {
+		this.defaultShardCount = Math.max(1, defaultShardCount);
+		this.maxWriteAttempts = Math.max(1, maxWriteAttempts);
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the whole project list of the given system.
+	 * Note: The returned container may be shared with other requests and must not be modified.
+	 * @param system Name of the system.
+	 * @param using Agent used to access the project list envelopes.
+	 * @return Container containing all projects of the system.
+	 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+	 * @throws EnvelopeNotFoundException There does not exist a project list for the system yet.
+	 * @throws EnvelopeOperationFailedException Requesting one of the envelopes failed.
+	 */
+	public ProjectContainer getProjectList(String system, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		int shardCount = this.getShardCount(system, using, false);
+
+		List<ProjectContainer> shards = new ArrayList<>(shardCount);
+		long version = 0;
+		for (int i = 0; i < shardCount; i++) {
+			ProjectContainer shard = this.getShard(system, i, using);
+			shards.add(shard);
+			version += shard.getVersion();
+		}
+
+		// shard versions only increase, thus an equal sum means that no shard changed
+		ProjectContainer merged = this.mergedProjectLists.get(system);
+		if (merged == null || merged.getVersion() != version) {
+			merged = ProjectContainer.merge(shards);
+			this.mergedProjectLists.put(system, merged);
+		}
+		return merged;
+	}
+
+	/**
+	 * Returns the project with the given name. Only the shard containing the project gets loaded.
+	 * Note: The returned project may be shared with other requests and must not be modified.
+	 * @param system Name of the system.
+	 * @param projectName Name of the project.
+	 * @param using Agent used to access the project list envelopes.
+	 * @return The project or null, if there is no project with the given name.
+	 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+	 * @throws EnvelopeOperationFailedException Requesting one of the envelopes failed.
+	 */
+	public Project getProject(String system, String projectName, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		try {
+			int shardCount = this.getShardCount(system, using, false);
+			return this.getShard(system, getShardIndex(projectName, shardCount), using).getProjectByName(projectName);
+		} catch (EnvelopeNotFoundException e) {
+			// there does not exist a project list for the system yet
+			return null;
+		}
+	}
+
+	/**
+	 * Applies the given update to the shard that contains (or should contain) the project with the given name.
+	 * If the system does not have a project list yet, it gets created.
+	 * The update gets called with the latest version of the shard. If storing the shard fails, the shard gets
+	 * requested again and the update is applied again, thus the update should only modify the given container.
+	 * @param system Name of the system.
+	 * @param projectName Name of the project.
+	 * @param using Agent used to access the project list envelopes. Should be the service group agent, because it
+	 *        is used to create the envelopes if they do not exist yet.
+	 * @param update Update that should be applied to the shard.
+	 * @return Value of the result returned by the last call of the update.
+	 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+	 * @throws EnvelopeOperationFailedException Requesting or storing the shard still failed after the maximum number
+	 *         of attempts.
+	 */
+	public <T> T update(String system, String projectName, Agent using, ShardUpdate<T> update)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		int shardCount;
+		try {
+			shardCount = this.getShardCount(system, using, true);
+		} catch (EnvelopeNotFoundException e) {
+			// cannot happen, since the project list gets created if it does not exist
+			throw new EnvelopeOperationFailedException("Project list of system " + system + " could not be created.");
+		}
+		return this.update(system, getShardIndex(projectName, shardCount), using, update);
+	}
+
+	/**
+	 * Applies the given update to every shard of the project list of the given system.
+	 * See {@link #update(String, String, Agent, ShardUpdate)} for how conflicting writes are handled.
+	 * @param system Name of the system.
+	 * @param using Agent used to access the project list envelopes.
+	 * @param update Update that should be applied to every shard.
+	 * @return Values of the results returned by the update, one per shard.
+	 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+	 * @throws EnvelopeNotFoundException There does not exist a project list for the system yet.
+	 * @throws EnvelopeOperationFailedException Requesting or storing one of the shards still failed after the
+	 *         maximum number of attempts.
+	 */
+	public <T> List<T> updateAll(String system, Agent using, ShardUpdate<T> update)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		int shardCount = this.getShardCount(system, using, false);
+		List<T> values = new ArrayList<>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			values.add(this.update(system, i, using, update));
+		}
+		return values;
+	}
+
+	private <T> T update(String system, int index, Agent using, ShardUpdate<T> update)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		for (int attempt = 1;; attempt++) {
+			Shard shard = this.requestShard(system, index, using);
+			UpdateResult<T> result = update.apply(shard.container);
+			if (!result.store) return result.value;
+			try {
+				this.storeShard(shard, using);
+				return result.value;
+			} catch (EnvelopeOperationFailedException e) {
+				// most likely, the shard got stored by another writer in the meantime
+				if (attempt >= this.maxWriteAttempts) throw e;
+				this.waitBeforeRetry(attempt);
+			}
+		}
+	}
+
+	/**
+	 * Starts a unit of work for the project list of the given system.
+	 * @param system Name of the system.
+	 * @param using Agent used to access the project list envelopes. Should be the service group agent, because it
+	 *        is used to create the envelopes if they do not exist yet.
+	 * @return New unit of work. Nothing gets stored until it is flushed.
+	 */
+	public UnitOfWork beginUnitOfWork(String system, Agent using) {
+		return new UnitOfWork(system, using);
+	}
+
+	private void waitBeforeRetry(int attempt) throws EnvelopeOperationFailedException {
+		long maxDelay = Math.min(RETRY_MAX_DELAY, RETRY_BASE_DELAY << Math.min(attempt - 1, 16));
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EnvelopeOperationFailedException("Interrupted while waiting to store project list.");
+		}
+	}
+
+	/**
+	 * Stores the given (modified) shard and updates the cache.
+	 */
+	private void storeShard(Shard shard, Agent using) throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		String identifier = shard.envelope.getIdentifier();
+		shard.container.incrementVersion();
+		shard.envelope.setContent(shard.container);
+		try {
+			MeteredContext.storeEnvelope(Context.get(), shard.envelope, using);
+		} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
+			// we do not know which version is stored now
+			this.cache.invalidate(identifier);
+			throw e;
+		}
+		this.cache.put(identifier, shard.container);
+	}
+
+	/**
+	 * Returns the shard with the given index, either from the cache or from the storage.
+	 * Shard envelopes that do not exist are treated as empty shards.
+	 */
+	private ProjectContainer getShard(String system, int index, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		String identifier = getShardIdentifier(system, index);
+		ProjectContainer shard = this.cache.get(identifier);
+		if (shard == null) {
+			try {
+				shard = (ProjectContainer) MeteredContext.requestEnvelope(Context.get(), identifier, using).getContent();
+			} catch (EnvelopeNotFoundException e) {
+				shard = new ProjectContainer();
+			}
+			this.cache.put(identifier, shard);
+		}
+		return shard;
+	}
+
+	private Shard requestShard(String system, int index, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		String identifier = getShardIdentifier(system, index);
+		Envelope env;
+		try {
+			env = MeteredContext.requestEnvelope(Context.get(), identifier, using);
+		} catch (EnvelopeNotFoundException e) {
+			env = MeteredContext.createEnvelope(Context.get(), identifier, using);
+			env.setPublic();
+			return new Shard(env, new ProjectContainer());
+		}
+		return new Shard(env, (ProjectContainer) env.getContent());
+	}
+
+	/**
+	 * Returns the number of shards of the project list of the given system. If the system does not have a
+	 * sharded project list yet, but an old single project list envelope exists, it gets migrated.
+	 * @param create Whether the project list should be created if it does not exist yet.
+	 */
+	private int getShardCount(String system, Agent using, boolean create)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		Integer shardCount = this.shardCounts.get(system);
+		if (shardCount != null) return shardCount;
+
+		// only one thread per node requests the manifest and migrates the project list, the others wait for it
+		synchronized (this.shardCountLocks.computeIfAbsent(system, s -> new Object())) {
+			shardCount = this.shardCounts.get(system);
+			if (shardCount != null) return shardCount;
+			shardCount = this.requestOrCreateShardCount(system, using, create);
+			this.shardCounts.put(system, shardCount);
+			return shardCount;
+		}
+	}
+
+	/**
+	 * Requests the number of shards from the manifest. If there is no manifest, the project list gets created
+	 * (or migrated), unless another node is already doing so. Then, this waits until the other node stored the
+	 * manifest, or until its migration lock timed out.
+	 */
+	private int requestOrCreateShardCount(String system, Agent using, boolean create)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		ProjectContainer oldProjectList = null;
+		boolean oldProjectListRequested = false;
+		while (true) {
+			Integer shardCount = this.requestManifestShardCount(system, using);
+			if (shardCount != null) return shardCount;
+
+			if (!oldProjectListRequested) {
+				try {
+					oldProjectList = (ProjectContainer) MeteredContext.requestEnvelope(Context.get(),
+							ProjectService.getProjectListIdentifier(system), using).getContent();
+				} catch (EnvelopeNotFoundException e) {
+					// there does not exist any project list for this system
+					if (!create) throw e;
+				}
+				oldProjectListRequested = true;
+			}
+
+			if (this.acquireMigrationLock(system, using)) {
+				boolean created = false;
+				try {
+					// another node might have finished the migration before the lock was acquired
+					shardCount = this.requestManifestShardCount(system, using);
+					if (shardCount == null) shardCount = this.createShardedProjectList(system, oldProjectList, using);
+					created = true;
+					return shardCount;
+				} finally {
+					// once the manifest exists, the lock is not needed anymore
+					if (!created) this.releaseMigrationLock(system, using);
+				}
+			}
+
+			// another node is migrating the project list
+			try {
+				Thread.sleep(MIGRATION_WAIT_DELAY);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EnvelopeOperationFailedException("Interrupted while waiting for the project list of system "
+						+ system + " to be migrated.");
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of shards stored in the manifest of the given system, or null if there is no manifest.
+	 */
+	private Integer requestManifestShardCount(String system, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		try {
+			Envelope manifest = MeteredContext.requestEnvelope(Context.get(), getManifestIdentifier(system), using);
+			return ((ProjectListManifest) manifest.getContent()).getShardCount();
+		} catch (EnvelopeNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Tries to acquire the lock for creating the project list of the given system. The lock envelope contains the
+	 * time when the lock was acquired. Since storing an envelope fails if another node stored it in the meantime,
+	 * at most one node acquires the lock, also when taking over a stale lock.
+	 * @return Whether the lock was acquired.
+	 */
+	private boolean acquireMigrationLock(String system, Agent using) throws EnvelopeAccessDeniedException {
+		String identifier = getMigrationLockIdentifier(system);
+		Envelope lock;
+		try {
+			lock = MeteredContext.requestEnvelope(Context.get(), identifier, using);
+			if (System.currentTimeMillis() - (Long) lock.getContent() < MIGRATION_LOCK_TIMEOUT) return false;
+		} catch (EnvelopeNotFoundException e) {
+			try {
+				lock = MeteredContext.createEnvelope(Context.get(), identifier, using);
+			} catch (EnvelopeOperationFailedException e1) {
+				return false;
+			}
+		} catch (EnvelopeOperationFailedException e) {
+			return false;
+		}
+		lock.setContent(System.currentTimeMillis());
+		try {
+			MeteredContext.storeEnvelope(Context.get(), lock, using);
+			return true;
+		} catch (EnvelopeOperationFailedException e) {
+			// another node acquired the lock in the meantime
+			return false;
+		}
+	}
+
+	/**
+	 * Releases the migration lock after a failed migration, so that other nodes do not need to wait until it
+	 * times out.
+	 */
+	private void releaseMigrationLock(String system, Agent using) {
+		try {
+			Envelope lock = MeteredContext.requestEnvelope(Context.get(), getMigrationLockIdentifier(system), using);
+			lock.setContent(0L);
+			MeteredContext.storeEnvelope(Context.get(), lock, using);
+		} catch (EnvelopeAccessDeniedException | EnvelopeNotFoundException | EnvelopeOperationFailedException e) {
+			// the lock times out anyway
+		}
+	}
+
+	/**
+	 * Creates the shard envelopes and the manifest of the given system. The manifest is stored last, so an
+	 * interrupted creation gets repeated on the next access. Shards that already exist (e.g., because a previous
+	 * migration was interrupted) are kept as they are, thus projects stored in them are never overwritten.
+	 * Needs to be called while holding the migration lock of the system.
+	 * @param oldProjectList Projects of the old single project list envelope which should be migrated, or null.
+	 * @return Number of shards.
+	 */
+	private int createShardedProjectList(String system, ProjectContainer oldProjectList, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		int shardCount = this.defaultShardCount;
+		List<ProjectContainer> containers = new ArrayList<>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			containers.add(new ProjectContainer());
+		}
+		if (oldProjectList != null) {
+			for (Project project : oldProjectList.getAllProjects()) {
+				containers.get(getShardIndex(project.getName(), shardCount)).addProject(project);
+			}
+		}
+
+		for (int i = 0; i < shardCount; i++) {
+			this.seedShard(system, i, containers.get(i), using);
+		}
+
+		Envelope manifest = MeteredContext.createEnvelope(Context.get(), getManifestIdentifier(system), using);
+		manifest.setPublic();
+		manifest.setContent(new ProjectListManifest(shardCount));
+		try {
+			MeteredContext.storeEnvelope(Context.get(), manifest, using);
+		} catch (EnvelopeOperationFailedException e) {
+			// another node may have created the manifest in the meantime
+			Integer stored = this.requestManifestShardCount(system, using);
+			if (stored == null) throw e;
+			return stored;
+		}
+		return shardCount;
+	}
+
+	/**
+	 * Stores the given projects in the shard with the given index, if the shard does not exist yet.
+	 */
+	private void seedShard(String system, int index, ProjectContainer projects, Agent using)
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		String identifier = getShardIdentifier(system, index);
+		try {
+			MeteredContext.requestEnvelope(Context.get(), identifier, using);
+			// the shard already exists and might contain projects that were added after it got seeded
+			return;
+		} catch (EnvelopeNotFoundException e) {
+			// shard needs to be created
+		}
+		Envelope env = MeteredContext.createEnvelope(Context.get(), identifier, using);
+		env.setPublic();
+		try {
+			this.storeShard(new Shard(env, projects), using);
+		} catch (EnvelopeOperationFailedException e) {
+			// the shard may have been created in the meantime, then it is kept as it is
+			try {
+				MeteredContext.requestEnvelope(Context.get(), identifier, using);
+			} catch (EnvelopeNotFoundException e1) {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the shard that contains the project with the given name.
+	 * @param projectName Name of the project.
+	 * @param shardCount Number of shards of the system.
+	 * @return Index of the shard.
+	 */
+	public static int getShardIndex(String projectName, int shardCount) {
+		return Math.floorMod(projectName.hashCode(), shardCount);
+	}
+
+	/**
+	 * Returns the identifier of the manifest envelope of the project list of the given system.
+	 * @param system Name of the system.
+	 * @return Identifier of the manifest envelope.
+	 */
+	public static String getManifestIdentifier(String system) {
+		return system + "_" + PROJECT_LIST_PREFIX + "_manifest";
+	}
+
+	/**
+	 * Returns the identifier of the envelope used as lock while creating the project list of the given system.
+	 * @param system Name of the system.
+	 * @return Identifier of the lock envelope.
+	 */
+	public static String getMigrationLockIdentifier(String system) {
+		return system + "_" + PROJECT_LIST_PREFIX + "_migrationlock";
+	}
+
+	/**
+	 * Returns the identifier of the envelope of the given project list shard.
+	 * @param system Name of the system.
+	 * @param index Index of the shard.
+	 * @return Identifier of the shard envelope.
+	 */
+	public static String getShardIdentifier(String system, int index) {
+		return system + "_" + PROJECT_LIST_PREFIX + "_shard_" + index;
+	}
+
+	/**
+	 * Modification of a project list shard, used with {@link ProjectListStore#update(String, String, Agent, ShardUpdate)}.
+	 */
+	@FunctionalInterface
+	public interface ShardUpdate<T> {
+		/**
+		 * Applies the modification to the given shard. Might be called several times (with the latest
+		 * version of the shard), if storing the shard fails.
+		 * @param container Content of the shard that may be modified.
+		 * @return Result telling whether the shard should be stored.
+		 */
+		UpdateResult<T> apply(ProjectContainer container);
+	}
+
+	/**
+	 * Result of a {@link ShardUpdate}.
+	 */
+	public static class UpdateResult<T> {
+		private final boolean store;
+		private final T value;
+
+		private UpdateResult(boolean store, T value) {
+			this.store = store;
+			this.value = value;
+		}
+
+		/**
+		 * The shard got modified and should be stored.
+		 * @param value Value that should be returned by the update method.
+		 * @return Update result.
+		 */
+		public static <T> UpdateResult<T> store(T value) {
+			return new UpdateResult<>(true, value);
+		}
+
+		/**
+		 * The shard did not get modified (e.g., because the project does not exist) and should not be stored.
+		 * @param value Value that should be returned by the update method.
+		 * @return Update result.
+		 */
+		public static <T> UpdateResult<T> unchanged(T value) {
+			return new UpdateResult<>(false, value);
+		}
+	}
+
+	/**
+	 * Collects the updates of the project list of one system made while handling a request.
+	 *
+	 * Every shard is requested at most once and the updates are applied to it in memory. When the unit of work
+	 * gets flushed, every modified shard is stored once, no matter how many updates modified it. If storing a shard
+	 * fails, the latest version of the shard gets requested and all updates that modified it are applied again.
+	 * Thus, the values returned by the update methods are the ones of the first application of the updates.
+	 *
+	 * A unit of work is used by a single thread and must not be used anymore after it got flushed.
+	 */
+	public class UnitOfWork {
+		private final String system;
+		private final Agent using;
+
+		/**
+		 * Shards that got requested, by their index.
+		 */
+		private final Map<Integer, Shard> shards = new LinkedHashMap<>();
+
+		/**
+		 * Updates that modified a shard (in the order they were applied), by the index of the shard.
+		 */
+		private final Map<Integer, List<ShardUpdate<?>>> changes = new LinkedHashMap<>();
+
+		private UnitOfWork(String system, Agent using) {
+			this.system = system;
+			this.using = using;
+		}
+
+		/**
+		 * Applies the given update to the shard that contains (or should contain) the project with the given name.
+		 * If the system does not have a project list yet, it gets created.
+		 * @param projectName Name of the project.
+		 * @param update Update that should be applied to the shard.
+		 * @return Value of the result returned by the update.
+		 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+		 * @throws EnvelopeOperationFailedException Requesting the shard failed.
+		 */
+		public <T> T update(String projectName, ShardUpdate<T> update)
+				throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+			int shardCount;
+			try {
+				shardCount = getShardCount(this.system, this.using, true);
+			} catch (EnvelopeNotFoundException e) {
+				// cannot happen, since the project list gets created if it does not exist
+				throw new EnvelopeOperationFailedException("Project list of system " + this.system
+						+ " could not be created.");
+			}
+			return this.apply(getShardIndex(projectName, shardCount), update);
+		}
+
+		/**
+		 * Applies the given update to every shard of the project list.
+		 * @param update Update that should be applied to every shard.
+		 * @return Values of the results returned by the update, one per shard.
+		 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+		 * @throws EnvelopeNotFoundException There does not exist a project list for the system yet.
+		 * @throws EnvelopeOperationFailedException Requesting one of the shards failed.
+		 */
+		public <T> List<T> updateAll(ShardUpdate<T> update)
+				throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+			int shardCount = getShardCount(this.system, this.using, false);
+			List<T> values = new ArrayList<>(shardCount);
+			for (int i = 0; i < shardCount; i++) {
+				values.add(this.apply(i, update));
+			}
+			return values;
+		}
+
+		private <T> T apply(int index, ShardUpdate<T> update)
+				throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+			Shard shard = this.shards.get(index);
+			if (shard == null) {
+				shard = requestShard(this.system, index, this.using);
+				this.shards.put(index, shard);
+			}
+			UpdateResult<T> result = update.apply(shard.container);
+			if (result.store) {
+				this.changes.computeIfAbsent(index, i -> new ArrayList<>()).add(update);
+			}
+			return result.value;
+		}
+
+		/**
+		 * Stores every shard that got modified by one of the updates.
+		 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+		 * @throws EnvelopeOperationFailedException Requesting or storing one of the shards still failed after the
+		 *         maximum number of attempts.
+		 */
+		public void flush() throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+			for (Map.Entry<Integer, List<ShardUpdate<?>>> entry : this.changes.entrySet()) {
+				int index = entry.getKey();
+				Shard shard = this.shards.get(index);
+				for (int attempt = 1;; attempt++) {
+					try {
+						storeShard(shard, this.using);
+						break;
+					} catch (EnvelopeOperationFailedException e) {
+						// most likely, the shard got stored by another writer in the meantime
+						if (attempt >= maxWriteAttempts) throw e;
+						waitBeforeRetry(attempt);
+						shard = requestShard(this.system, index, this.using);
+						boolean store = false;
+						for (ShardUpdate<?> update : entry.getValue()) {
+							store |= update.apply(shard.container).store;
+						}
+						if (!store) break;
+					}
+				}
+			}
+			this.changes.clear();
+			this.shards.clear();
+		}
+	}
+
+	/**
+	 * A shard of a project list that was requested for modification.
+	 */
+	private static class Shard {
+		private final Envelope envelope;
+		private final ProjectContainer container;
+
+		private Shard(Envelope envelope, ProjectContainer container) {
+			this.envelope = envelope;
+			this.container = container;
+		}
+	}
+
+}
@@ -1,8 +1,20 @@
 package i5.las2peer.services.projectService;
 
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -22,7 +34,6 @@ import i5.las2peer.api.security.AgentAccessDeniedException;
 import i5.las2peer.api.security.AgentOperationFailedException;
 import i5.las2peer.api.security.AnonymousAgent;
 import i5.las2peer.api.security.GroupAgent;
-import i5.las2peer.api.security.ServiceAgent;
 import i5.las2peer.api.logging.MonitoringEvent;
 import i5.las2peer.api.persistency.Envelope;
 import i5.las2peer.api.persistency.EnvelopeAccessDeniedException;
@@ -38,6 +49,7 @@ import io.swagger.annotations.ApiResponses;
 import io.swagger.annotations.Info;
 import io.swagger.annotations.SwaggerDefinition;
 
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import org.json.simple.parser.ParseException;
@@ -46,12 +58,18 @@ import org.json.simple.JSONValue;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.QueryParam;
 
 import i5.las2peer.services.projectService.project.Project;
 import i5.las2peer.services.projectService.util.ProjectVisibility;
+import i5.las2peer.services.projectService.util.RequestTrace;
+import i5.las2peer.services.projectService.util.ServiceMetrics;
 import i5.las2peer.services.projectService.util.SystemsConfig;
+import i5.las2peer.services.projectService.util.SystemsConfigWatcher;
 import i5.las2peer.services.projectService.util.github.GitHubException;
 import i5.las2peer.services.projectService.util.github.GitHubHelper;
+import i5.las2peer.services.projectService.util.github.GitHubProject;
 
 /**
  * las2peer-project-service
@@ -71,20 +89,130 @@ public class ProjectService extends RESTService {
 	 * default value is used.
 	 */
 	public static final ProjectVisibility visibilityOfProjectsDefault = ProjectVisibility.OWN;
+	
+	/**
+	 * Values of the "scope" query parameter when listing projects.
+	 * "mine" only lists projects where the user is a member of, "all" lists every project that the user may read.
+	 */
+	public static final String SCOPE_ALL = "all";
+	public static final String SCOPE_MINE = "mine";
+	
+	/**
+	 * Content type of the Prometheus text format, returned by the metrics endpoint.
+	 */
+	private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
 
 	// service that should be called on specific events such as project creation
 	private EventManager eventManager;
+	
+	/**
+	 * Number of failed attempts to deliver an event to the event listener service, after which the event gets dropped.
+	 */
+	private int eventDeliveryMaxAttempts = 20;
+	
+	/**
+	 * Maximum number of events sent in one call to the event listener service (if it implements _onProjectEvents)
+	 * and time (in milliseconds) that new events are collected before they are sent.
+	 */
+	private int eventBatchSize = 50;
+	private int eventBatchWindow = 200;
+	
+	/**
+	 * Maximum number of pending events per system. If the outbox is full, new events are rejected.
+	 */
+	private int eventOutboxCapacity = 1000;
+	
+	/**
+	 * Context of the service agent, used for the work done in the background. Created with the first request.
+	 */
+	private Context serviceContext;
+	
+	/**
+	 * Monitoring events of the work done in the background, which occurred before the context of the service agent
+	 * got created. They are emitted once it is created.
+	 */
+	private final List<Map.Entry<MonitoringEvent, String>> pendingMonitoringEvents = new ArrayList<>();
 
 	private String serviceGroupId;
 	private String oldServiceAgentId;
 	private String oldServiceAgentPw;
 	
 	private String systems;
-	private SystemsConfig systemsConfig = null;
+	
+	/**
+	 * Time (in milliseconds) between two checks whether the "systems" property in the properties file changed.
+	 * Set to 0 to disable reloading the systems configuration.
+	 */
+	private int systemsConfigReloadInterval = 10000;
+	private SystemsConfigWatcher systemsConfigWatcher;
+	
+	/**
+	 * Time (in milliseconds) that a cached project list may be used before it gets reloaded
+	 * from the storage. Set to 0 to disable the project list cache.
+	 */
+	private int projectListCacheMaxAge = 5000;
+	
+	/**
+	 * Number of shard envelopes that the project list of a system is split into.
+	 * Only used when the project list of a system gets created (or migrated from the single project list envelope).
+	 */
+	private int projectListShards = 16;
+	
+	/**
+	 * Maximum number of attempts to store a project list shard, if storing it fails because of concurrent writes.
+	 */
+	private int projectListMaxWriteAttempts = 5;
+	private ProjectListStore projectListStore;
+	
+	/**
+	 * Creates GitHub projects for new projects in the background.
+	 */
+	private GitHubProjectProvisioner gitHubProjectProvisioner;
+	
+	/**
+	 * Time (in milliseconds) between two runs of the background synchronization of the GitHub project access and
+	 * maximum number of projects that are synchronized at the same time. Set the interval to 0 to disable the
+	 * background synchronization, then the access only gets synchronized when a user sends the GitHub username.
+	 */
+	private int gitHubAccessReconcileInterval = 600000;
+	private int gitHubAccessReconcileConcurrency = 8;
+	private GitHubAccessReconciler gitHubAccessReconciler;
+	
+	/**
+	 * Reports the state of the circuit breakers of GitHub, RocketChat and the event listener services.
+	 */
+	private IntegrationMonitor integrationMonitor;
+	
+	/**
+	 * Time (in milliseconds) that the result of a group membership check may be reused.
+	 * Set to 0 to disable the membership cache.
+	 */
+	private int membershipCacheMaxAge = 30000;
+	private GroupMembershipCache membershipCache;
+	
+	/**
+	 * Time (in milliseconds) after which the unlocked service group agent gets requested again.
+	 */
+	private int serviceGroupAgentRefreshInterval = 300000;
+	private ServiceGroupAgentCache serviceGroupAgentCache;
+	
+	/**
+	 * Time (in milliseconds) that creating a project may wait for checking the group membership and connecting
+	 * the chat channel.
+	 */
+	private int postProjectTimeout = 30000;
+	
+	/**
+	 * Requests taking longer than this time (in milliseconds) are written to the slow request log together with
+	 * the time spent in their phases. Set to 0 to disable the slow request log.
+	 */
+	private int slowRequestThreshold = 1000;
 
 	@Override
 	protected void initResources() {
 		getResourceConfig().register(this);
+		getResourceConfig().register(new RequestMetricsFilter());
+		getResourceConfig().register(new RequestTracingFilter(() -> this.slowRequestThreshold));
 	}
 
 	public ProjectService() throws ServiceException {
@@ -101,42 +229,94 @@ public class ProjectService extends RESTService {
 			throw new ServiceException("Property 'systems' is not set!");
 		
 		try {
-			JSONObject systemsJSON = (JSONObject) JSONValue.parseWithException(this.systems);
-			systemsConfig = new SystemsConfig(systemsJSON);
-		} catch (ParseException e) {
+			this.systemsConfigWatcher = new SystemsConfigWatcher(this.systems,
+					SystemsConfigWatcher.findPropertiesFile(ProjectService.class));
+		} catch (ParseException | RuntimeException e) {
 			throw new ServiceException("Property 'systems' is not well-formatted!");
 		}
+		SystemsConfig systemsConfig = this.systemsConfigWatcher.get();
 		
 		// setup GitHubHelper
 		GitHubHelper gitHubHelper = GitHubHelper.getInstance();
 		gitHubHelper.setSystemsConfig(systemsConfig);
 		
-		this.eventManager = new EventManager(systemsConfig.getSystemEventListenerServiceMap());
+		this.projectListStore = new ProjectListStore(this.projectListShards, this.projectListMaxWriteAttempts,
+				new ProjectListCache(this.projectListCacheMaxAge));
+		this.gitHubAccessReconciler = new GitHubAccessReconciler(this.projectListStore, this::getServiceGroupAgent,
+				this::getSystemsConfig, this.gitHubAccessReconcileInterval, this.gitHubAccessReconcileConcurrency);
+		this.integrationMonitor = new IntegrationMonitor();
+		this.membershipCache = new GroupMembershipCache(this.membershipCacheMaxAge);
+		this.serviceGroupAgentCache = new ServiceGroupAgentCache(this.serviceGroupId, this.oldServiceAgentId,
+				this.oldServiceAgentPw, this.serviceGroupAgentRefreshInterval);
+		this.eventManager = new EventManager(systemsConfig.getSystemEventListenerServiceMap(), this::getServiceGroupAgent,
+				this.eventDeliveryMaxAttempts, this.eventBatchSize, this.eventBatchWindow, this.eventOutboxCapacity);
+		this.gitHubProjectProvisioner = new GitHubProjectProvisioner(this.projectListStore, this.eventManager);
+		
+		// systems can be added or changed in the properties file without restarting the node
+		this.systemsConfigWatcher.addListener(config -> {
+			GitHubHelper.getInstance().setSystemsConfig(config);
+			this.eventManager.setEventListenerServiceMap(config.getSystemEventListenerServiceMap());
+			this.monitorBackgroundEvent(MonitoringEvent.SERVICE_MESSAGE,
+					"Reloaded systems configuration: " + config.getSystemNames());
+		});
+		this.systemsConfigWatcher.addErrorListener(
+				message -> this.monitorBackgroundEvent(MonitoringEvent.SERVICE_ERROR, message));
+		this.systemsConfigWatcher.start(this.systemsConfigReloadInterval);
+	}
+	
+	/**
+	 * Returns the current systems configuration. Since the configuration might get replaced when the properties
+	 * file changes, methods that need the configuration several times should only call this once.
+	 * @return Current systems configuration.
+	 */
+	private SystemsConfig getSystemsConfig() {
+		return this.systemsConfigWatcher.get();
 	}
 
+	/**
+	 * Returns the unlocked service group agent. The agent is cached and only requested again
+	 * after serviceGroupAgentRefreshInterval.
+	 * @return Service group agent or null, if it could not be requested.
+	 */
 	public GroupAgent getServiceGroupAgent() {
-		try {
-			return (GroupAgent) Context.get().requestAgent(this.serviceGroupId, Context.get().getServiceAgent());
-		} catch (AgentAccessDeniedException | AgentNotFoundException | AgentOperationFailedException e) {
-			// TODO: error handling
-			try {
-				// Dont know if this is the best solution, but works, the user just needs to
-				// take care of the old service agent id field + pw
-				// Note: when calling this method at the same time, sometimes a problem occurs
-				// when trying to store groups at the same time
-
-				System.out.println("Adding service agent " + Context.get().getServiceAgent().getIdentifier());
-
-				ServiceAgent sAgent = (ServiceAgent) Context.get().fetchAgent(this.oldServiceAgentId);
-				sAgent.unlock(this.oldServiceAgentPw);
-				GroupAgent gAgent = (GroupAgent) Context.get().requestAgent(this.serviceGroupId, sAgent);
-				gAgent.addMember(Context.get().getServiceAgent());
-				Context.get().storeAgent(gAgent);
-				return gAgent;
-			} catch (Exception e1) {
-				System.out.println("Getting Service Group Agent failed because of:" + e1);
-				return null;
+		// the background synchronization, the event delivery and the monitoring need a context, thus they get
+		// started with the first request
+		this.gitHubAccessReconciler.start(this.getServiceContext());
+		this.integrationMonitor.start(this.getServiceContext());
+		this.eventManager.start(this.getServiceContext());
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.SERVICE_GROUP_AGENT)) {
+			return this.serviceGroupAgentCache.get();
+		}
+	}
+
+	/**
+	 * Returns the context of the service agent, which is used for the work done in the background (instead of the
+	 * context of the request that started the work). Gets created on the first call, which needs to be made while
+	 * handling a request.
+	 * @return Context of the service agent.
+	 */
+	private synchronized Context getServiceContext() {
+		if (this.serviceContext == null) {
+			this.serviceContext = ServiceContext.create(Context.get());
+			for (Map.Entry<MonitoringEvent, String> event : this.pendingMonitoringEvents) {
+				this.serviceContext.monitorEvent(event.getKey(), event.getValue());
 			}
+			this.pendingMonitoringEvents.clear();
+		}
+		return this.serviceContext;
+	}
+
+	/**
+	 * Emits a monitoring event of the work done in the background (i.e., outside of a request) using the context
+	 * of the service agent. If the context was not created yet, the event gets emitted once it is created.
+	 * @param event Type of the monitoring event.
+	 * @param message Message of the monitoring event.
+	 */
+	private synchronized void monitorBackgroundEvent(MonitoringEvent event, String message) {
+		if (this.serviceContext != null) {
+			this.serviceContext.monitorEvent(event, message);
+		} else {
+			this.pendingMonitoringEvents.add(new AbstractMap.SimpleImmutableEntry<>(event, message));
 		}
 	}
 
@@ -153,7 +333,7 @@ public class ProjectService extends RESTService {
 	public boolean hasAccessToProject(String system, String projectName) {
 		String identifier = getProjectIdentifier(system, projectName);
 		try {
-			Context.getCurrent().requestEnvelope(identifier);
+			MeteredContext.requestEnvelope(Context.getCurrent(), identifier);
 		} catch (EnvelopeAccessDeniedException e) {
 			return false;
 		} catch (EnvelopeNotFoundException | EnvelopeOperationFailedException e) {
@@ -199,6 +379,38 @@ public class ProjectService extends RESTService {
 		return chatInfo;
 	}
 
+	/**
+	 * Method for RMI to request the projects linked to a group, e.g. after the members of the
+	 * group changed.
+	 * @param system System where the projects should be searched.
+	 * @param groupId Identifier of the group agent.
+	 * @return Projects linked to the group as JSONArray (empty if there are none) or null if error occurred.
+	 */
+	public JSONArray getProjectsByGroupRMI(String system, String groupId) {
+		Response r = this.getProjectsByGroup(system, groupId);
+		if(r.getStatus() != 200) return null;
+		String entity = (String) r.getEntity();
+		JSONObject result = (JSONObject) JSONValue.parse(entity);
+		return (JSONArray) result.get("projects");
+	}
+
+	/**
+	 * Returns the metrics of the service on this node in the Prometheus text format. Besides request counts and
+	 * latencies per endpoint, the metrics contain the counts and latencies of envelope and agent operations, of
+	 * calls to GitHub, RocketChat and the event listener services and the results of the event delivery.
+	 * 
+	 * @return Response containing the metrics.
+	 */
+	@GET
+	@Path("/metrics")
+	@Produces(MediaType.TEXT_PLAIN)
+	@ApiOperation(value = "Returns the metrics of the service in the Prometheus text format.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, metrics returned.") })
+	public Response getMetrics() {
+		return Response.status(HttpURLConnection.HTTP_OK).entity(ServiceMetrics.getInstance().toPrometheusText())
+				.type(PROMETHEUS_CONTENT_TYPE).build();
+	}
+
 	/**
 	 * Creates a new project in the pastry storage. Therefore, the user needs to be
 	 * authorized. First, checks if a project with the given name already exists. If
@@ -220,11 +432,13 @@ public class ProjectService extends RESTService {
 			@ApiResponse(code = HttpURLConnection.HTTP_UNAUTHORIZED, message = "User not authorized."),
 			@ApiResponse(code = HttpURLConnection.HTTP_CONFLICT, message = "There already exists a project with the given name."),
 			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Input project is not well formatted or some attribute is missing."),
-			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
+			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error."),
+			@ApiResponse(code = HttpURLConnection.HTTP_GATEWAY_TIMEOUT, message = "Creating the project took too long.") })
 	public Response postProject(@PathParam("system") String system, String inputProject) {
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "postProject: trying to store a new project");
 		
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		SystemsConfig systemsConfig = this.getSystemsConfig();
+		if(!systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 
 		if (Context.getCurrent().getMainAgent() instanceof AnonymousAgent) {
@@ -237,7 +451,6 @@ public class ProjectService extends RESTService {
 
 			Agent agent = Context.getCurrent().getMainAgent();
 			Envelope env = null;
-			Envelope env2 = null;
 			Project project;
 			String creatorGitHubUsername = null;
 
@@ -256,120 +469,136 @@ public class ProjectService extends RESTService {
 			}
 
 			String identifier = getProjectIdentifier(system, project.getName());
-			String identifier2 = getProjectListIdentifier(system);
-
-			try {
-				Context.get().requestEnvelope(identifier);
-				// if requesting the envelope does not fail, then there already exists a project
-				// with the given name
-				return Response.status(HttpURLConnection.HTTP_CONFLICT).entity("Project already exists").build();
-			} catch (EnvelopeNotFoundException e) {
-				// requesting the envelope failed, thus no project with the given name exists
-				// and we can create it
-			} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
-				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+			
+			// check if chat channel connection is enabled for the system and if a channel should be linked
+			// for the new project
+			JSONObject bodyChatInfo = null;
+			if(systemsConfig.isChannelConnectionEnabled(system)) {
+				bodyChatInfo = (JSONObject) bodyJSON.get("chatInfo");
+				boolean connectChannel = (boolean) bodyChatInfo.get("connectChannel");
+				if(!connectChannel) bodyChatInfo = null;
 			}
-
-			GroupAgent groupAgent;
+			
+			// checking the project name and checking the group membership are independent, thus they run
+			// concurrently
+			// the chat channel only gets connected once the name check passed, so that no channel gets created
+			// (and deleted again) for a project that already exists
+			Context context = Context.get();
+			long deadline = System.currentTimeMillis() + this.postProjectTimeout;
+			CompletableFuture<Response> projectNameCheck = CompletableFuture.supplyAsync(
+					RequestTrace.wrap(() -> this.checkProjectDoesNotExist(context, identifier)), context.getExecutor());
+			CompletableFuture<GroupAgent> groupAgentRequest = CompletableFuture.supplyAsync(
+					RequestTrace.wrap(() -> this.requestGroupAgent(context, project.getGroupIdentifier(), agent)),
+					context.getExecutor());
+			JSONObject chatInfo = bodyChatInfo;
+			CompletableFuture<ChatChannel> chatChannel = chatInfo == null
+					? CompletableFuture.completedFuture(null)
+					: projectNameCheck.thenCompose(nameCheckFailure -> nameCheckFailure != null
+							? CompletableFuture.completedFuture(null)
+							: this.connectChatChannel(context, systemsConfig.getChatManager(system), project, system,
+									chatInfo));
+			
 			try {
-				// use main agent (user) to request the group agent
-				groupAgent = (GroupAgent) Context.get().requestAgent(project.getGroupIdentifier(),
-						Context.get().getMainAgent());
-			} catch (AgentAccessDeniedException e) {
-				// could not unlock group agent => user is no group member
-				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-						.entity("User is no member of the group linked to the given project.").build();
-			} catch (AgentNotFoundException e) {
-				// could not find group agent
-				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-						.entity("The group linked to the given project cannot be found.").build();
-			} catch (AgentOperationFailedException e) {
+				CompletableFuture.allOf(projectNameCheck, groupAgentRequest, chatChannel)
+						.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// the channel might still get created, then it needs to be deleted again
+				chatChannel.thenAccept(ChatChannel::delete);
+				return Response.status(HttpURLConnection.HTTP_GATEWAY_TIMEOUT)
+						.entity("Creating the project took too long.").build();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				chatChannel.thenAccept(ChatChannel::delete);
 				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+			} catch (ExecutionException e) {
+				// handled below, using the results of the single steps
+			}
+			
+			Response failure = projectNameCheck.isCompletedExceptionally() ? Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build()
+					: projectNameCheck.join();
+			if (failure == null && groupAgentRequest.isCompletedExceptionally()) {
+				failure = this.getGroupAgentFailureResponse(groupAgentRequest);
+			}
+			if (failure == null && chatChannel.isCompletedExceptionally()) {
+				failure = Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+			}
+			ChatChannel connectedChannel = chatChannel.isCompletedExceptionally() ? null : chatChannel.join();
+			if (failure != null) {
+				// undo the steps that succeeded
+				if (connectedChannel != null) connectedChannel.delete();
+				return failure;
 			}
 			
+			GroupAgent groupAgent = groupAgentRequest.join();
+			// user could unlock the group agent, remember this for listing the projects
+			this.membershipCache.put(agent.getIdentifier(), project.getGroupIdentifier(), true);
+			
 			// check if GitHub project should be created for this las2peer project
-			if(this.systemsConfig.gitHubProjectsEnabled(system)) {
-				// create corresponding GitHub project
-				try {
-					project.createGitHubProject(system);
-				} catch (GitHubException e) {
-					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
-							.entity("Creation of GitHub project failed.").build();
-				}
+			// the GitHub project gets created in the background after the project got stored
+			boolean createGitHubProject = systemsConfig.gitHubProjectsEnabled(system);
+			if(createGitHubProject) {
+				project.setGitHubProjectPending();
 			}
 
-			// check if chat channel connection is enabled for the system
-			if(this.systemsConfig.isChannelConnectionEnabled(system)) {
-				// check if channel should be linked for the new project
-				JSONObject bodyChatInfo = (JSONObject) bodyJSON.get("chatInfo");
-				boolean connectChannel = (boolean) bodyChatInfo.get("connectChannel");
-				if(connectChannel) {
-					ChatManager chatManager = this.systemsConfig.getChatManager(system);
-					JSONObject chatInfo;
-
-					boolean newChannel = (boolean) bodyChatInfo.get("newChannel");
-					if (newChannel) {
-						chatInfo = chatManager.createProjectChannel(project, system);
-					} else {
-						// use existing channel
-						String channelName = (String) bodyChatInfo.get("channelName");
-						chatInfo = chatManager.getChannelInfoForExistingChannel(channelName);
-					}
-
-					if (chatInfo != null) {
-						project.setChatInfo(chatInfo);
-					}
-				}
+			if (connectedChannel != null && connectedChannel.chatInfo != null) {
+				project.setChatInfo(connectedChannel.chatInfo);
 			}
 
 			ProjectContainer cc = new ProjectContainer();
 
 			cc.addProject(project);
+			List<GitHubAccessChange> gitHubAccessChanges = new ArrayList<>();
 			try {
 				// create envelope for project using the group agent
-				env = Context.get().createEnvelope(identifier, groupAgent);
+				env = MeteredContext.createEnvelope(Context.get(), identifier, groupAgent);
 				// set the project container (which only contains the new project) as the
 				// envelope content
 				env.setContent(cc);
 				// store envelope using the group agent
-				Context.get().storeEnvelope(env, groupAgent);
+				MeteredContext.storeEnvelope(Context.get(), env, groupAgent);
 
 				// writing to user
-				try {
-					// try to add project to project list (with service group agent)
-					env2 = Context.get().requestEnvelope(identifier2, serviceGroupAgent);
-					cc = (ProjectContainer) env2.getContent();
-					cc.addProject(project);
-					env2.setContent(cc);
-					Context.get().storeEnvelope(env2, serviceGroupAgent);
-				} catch (EnvelopeNotFoundException e) {
-					// create new project list (with service group agent)
-					cc = new ProjectContainer();
-					env2 = Context.get().createEnvelope(identifier2, serviceGroupAgent);
-					env2.setPublic();
-					cc.addProject(project);
-					env2.setContent(cc);
-					Context.get().storeEnvelope(env2, serviceGroupAgent);
+				// add project to project list (with service group agent), the project list gets created if needed
+				ProjectListStore.UnitOfWork projectListChanges = this.projectListStore.beginUnitOfWork(system,
+						serviceGroupAgent);
+				projectListChanges.update(project.getName(), projectList -> {
+					projectList.addProject(project);
+					return ProjectListStore.UpdateResult.store(null);
+				});
+				
+				if(systemsConfig.gitHubProjectsEnabled(system) && creatorGitHubUsername != null) {
+					// project creator has sent a GitHub username
+					// store it in the user's projects (the shard of the new project is only stored once)
+					gitHubAccessChanges = this.collectUserGitHubProjectsAccessChanges(projectListChanges, agent,
+							creatorGitHubUsername);
 				}
-			} catch (EnvelopeOperationFailedException | EnvelopeAccessDeniedException e1) {
+				projectListChanges.flush();
+			} catch (EnvelopeOperationFailedException | EnvelopeAccessDeniedException | EnvelopeNotFoundException e1) {
 				System.out.println(e1);
+				if (connectedChannel != null) connectedChannel.delete();
 				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 			}
 			
-			if(this.systemsConfig.gitHubProjectsEnabled(system) && creatorGitHubUsername != null) {
-				// project creator has sent a GitHub username
-				// grant access to corresponding GitHub project
-				try {
-					this.updateUserGitHubProjectsAccess(system, serviceGroupAgent, agent, creatorGitHubUsername);
-				} catch (Exception e) {
-					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
-				}
+			if(createGitHubProject) {
+				// access for the creator is granted once the GitHub project got created
+				this.gitHubProjectProvisioner.provision(Context.get(), system, project.getName(), groupAgent,
+						serviceGroupAgent);
+			}
+			
+			try {
+				// grant access to the GitHub projects of the creator's other projects
+				// the project is already stored, thus failing grants do not fail the request
+				// they are corrected by the background synchronization or when the user sends the GitHub username again
+				this.applyGitHubAccessChanges(system, gitHubAccessChanges);
+			} catch (GitHubException e) {
+				Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "Granting access to the GitHub projects of "
+						+ creatorGitHubUsername + " failed: " + e.getMessage());
 			}
 
 			if (this.eventManager.sendProjectCreatedEvent(Context.get(), system, project.toJSONObject())) {
 				return Response.status(HttpURLConnection.HTTP_CREATED).entity("Added Project To l2p Storage").build();
 			} else {
-				// could not send event to event listener service
+				// could not store event for the event listener service
 				// delete project again
 				try {
 					// remove project from "project envelope"
@@ -378,17 +607,152 @@ public class ProjectService extends RESTService {
 					// also update project list and remove the project there
 					this.removeProjectFromProjectListEnvelope(system, project.getName(), serviceGroupAgent);
 				} catch (Exception e) {}
+				if (connectedChannel != null) connectedChannel.delete();
 				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
-						.entity("Sending event to event listener service failed.").build();
+						.entity("Storing event for event listener service failed.").build();
+			}
+		}
+	}
+	
+	/**
+	 * Checks that no project with the given identifier exists yet.
+	 * @param context Context of the request.
+	 * @param identifier Identifier of the project envelope.
+	 * @return Error response, if the project already exists or the check failed, null otherwise.
+	 */
+	private Response checkProjectDoesNotExist(Context context, String identifier) {
+		try {
+			MeteredContext.requestEnvelope(context, identifier);
+			// if requesting the envelope does not fail, then there already exists a project
+			// with the given name
+			return Response.status(HttpURLConnection.HTTP_CONFLICT).entity("Project already exists").build();
+		} catch (EnvelopeNotFoundException e) {
+			// requesting the envelope failed, thus no project with the given name exists
+			// and we can create it
+			return null;
+		} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
+			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+		}
+	}
+	
+	/**
+	 * Requests the group agent using the given user agent, which only works if the user is a member of the group.
+	 * @param context Context of the request.
+	 * @param groupId Identifier of the group agent.
+	 * @param userAgent Agent of the user.
+	 * @return The unlocked group agent.
+	 * @throws CompletionException Wrapping the exception of requesting the group agent.
+	 */
+	private GroupAgent requestGroupAgent(Context context, String groupId, Agent userAgent) {
+		try {
+			return (GroupAgent) MeteredContext.requestAgent(context, groupId, userAgent);
+		} catch (AgentAccessDeniedException | AgentNotFoundException | AgentOperationFailedException e) {
+			throw new CompletionException(e);
+		}
+	}
+	
+	/**
+	 * Maps the failure of requesting the group agent to the response of postProject.
+	 * @param groupAgentRequest Request of the group agent that completed exceptionally.
+	 * @return Error response.
+	 */
+	private Response getGroupAgentFailureResponse(CompletableFuture<GroupAgent> groupAgentRequest) {
+		try {
+			groupAgentRequest.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof AgentAccessDeniedException) {
+				// could not unlock group agent => user is no group member
+				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+						.entity("User is no member of the group linked to the given project.").build();
+			} else if (e.getCause() instanceof AgentNotFoundException) {
+				// could not find group agent
+				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+						.entity("The group linked to the given project cannot be found.").build();
+			}
+		}
+		return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+	}
+	
+	/**
+	 * Starts creating a new chat channel or looking up the existing chat channel for a new project.
+	 * @param context Context of the request, whose executor is used.
+	 * @param chatManager Chat manager of the system.
+	 * @param project Project that gets created.
+	 * @param system Name of the system.
+	 * @param bodyChatInfo "chatInfo" sent with the project.
+	 * @return The connected channel. If the channel could not be connected, its chat info is null.
+	 */
+	private CompletableFuture<ChatChannel> connectChatChannel(Context context, ChatManager chatManager,
+			Project project, String system, JSONObject bodyChatInfo) {
+		boolean newChannel = (boolean) bodyChatInfo.get("newChannel");
+		String channelName = (String) bodyChatInfo.get("channelName");
+		return CompletableFuture.supplyAsync(RequestTrace.wrap(() -> {
+			if (newChannel) {
+				return new ChatChannel(context, chatManager, project, system,
+						chatManager.createProjectChannel(project, system), true);
+			} else {
+				// use existing channel
+				return new ChatChannel(context, chatManager, project, system,
+						chatManager.getChannelInfoForExistingChannel(channelName), false);
+			}
+		}), context.getExecutor());
+	}
+	
+	/**
+	 * Chat channel connected to a new project.
+	 */
+	private static class ChatChannel {
+		/**
+		 * Context of the request creating the project, used to report a failed deletion.
+		 */
+		private final Context context;
+		private final ChatManager chatManager;
+		private final Project project;
+		private final String system;
+		private final JSONObject chatInfo;
+		/**
+		 * Whether the channel got created for the project. Only then, it gets deleted if creating the project fails.
+		 */
+		private final boolean created;
+		
+		private ChatChannel(Context context, ChatManager chatManager, Project project, String system,
+				JSONObject chatInfo, boolean created) {
+			this.context = context;
+			this.chatManager = chatManager;
+			this.project = project;
+			this.system = system;
+			this.chatInfo = chatInfo;
+			this.created = created;
+		}
+		
+		/**
+		 * Deletes the channel again, if it got created for the project.
+		 */
+		private void delete() {
+			if (!this.created || this.chatInfo == null) return;
+			String error;
+			try {
+				if (this.chatManager.deleteProjectChannel(this.project, this.system, this.chatInfo)) return;
+				error = "request was not successful";
+			} catch (RuntimeException e) {
+				error = e.getMessage();
 			}
+			// the channel is left over in the chat and needs to be deleted manually
+			this.context.monitorEvent(MonitoringEvent.SERVICE_ERROR,
+					"Deleting chat channel of " + this.project.getName() + " failed: " + error);
 		}
 	}
 
 	/**
 	 * Gets a user's projects Therefore, the user needs to be authorized.
+	 * Projects are sorted by name. If a limit is given, only one page of projects is returned
+	 * together with a "nextCursor" that can be used to request the next page.
 	 * 
 	 * @param system This prefix is used to store all the envelopes of a system. It should be
 	 *        unique for every system using the project service.
+	 * @param limit Maximum number of projects to return. 0 means that all projects are returned.
+	 * @param cursor Cursor returned as "nextCursor" by the previous request (optional).
+	 * @param scope Either "all" (every project the user may read) or "mine" (only projects where the user is a member of).
 	 * @return Response containing the status code
 	 */
 	@GET
@@ -396,12 +760,30 @@ public class ProjectService extends RESTService {
 	@Produces(MediaType.APPLICATION_JSON)
 	@ApiOperation(value = "Creates a new project in the database if no project with the same name is already existing.")
 	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_CREATED, message = "OK, projects fetched."),
+			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Invalid system, limit, cursor or scope."),
 			@ApiResponse(code = HttpURLConnection.HTTP_UNAUTHORIZED, message = "User not authorized."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
-	public Response getProjects(@PathParam("system") String system) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+	public Response getProjects(@PathParam("system") String system, @QueryParam("limit") @DefaultValue("0") int limit,
+			@QueryParam("cursor") String cursor, @QueryParam("scope") @DefaultValue(SCOPE_ALL) String scope) {
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
+		if (limit < 0) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+				.entity("Parameter limit must not be negative.").build();
+		
+		if (!SCOPE_ALL.equals(scope) && !SCOPE_MINE.equals(scope)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+				.entity("Parameter scope must be either '" + SCOPE_ALL + "' or '" + SCOPE_MINE + "'.").build();
+		
+		// name of the last project of the previous page
+		String lastProjectName = null;
+		if (cursor != null && !cursor.isEmpty()) {
+			try {
+				lastProjectName = decodeCursor(cursor);
+			} catch (IllegalArgumentException e) {
+				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Parameter cursor is not valid.").build();
+			}
+		}
+		
 		Agent agent = Context.getCurrent().getMainAgent();
 		if (agent instanceof AnonymousAgent) {
 			return Response.status(HttpURLConnection.HTTP_UNAUTHORIZED).entity("User not authorized.").build();
@@ -412,38 +794,47 @@ public class ProjectService extends RESTService {
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity("Cannot access service group agent.")
 					.build();
 
-		String identifier = getProjectListIdentifier(system);
 		JSONObject result = new JSONObject();
 		try {
-			Envelope stored = Context.get().requestEnvelope(identifier, serviceGroupAgent);
-			ProjectContainer cc = (ProjectContainer) stored.getContent();
+			ProjectContainer cc = this.projectListStore.getProjectList(system, serviceGroupAgent);
 			// read all projects from the project list
-			List<Project> projects = cc.getAllProjects();
+			List<Project> projects = cc.getAllProjectsSortedByName();
 			// create another list for storing the projects that should be returned as JSON
 			// objects
 			List<JSONObject> projectsJSON = new ArrayList<>();
+			
+			// projects where the user is no member of are only returned if the service is configured that all 
+			// projects are readable by any user and if the user requested all projects
+			boolean onlyMemberProjects = SCOPE_MINE.equals(scope)
+					|| this.getSystemsConfig().getVisibilityOfProjectsBySystem(system) != ProjectVisibility.ALL;
 
-			for (Project project : projects) {
+			// time spent converting the projects to JSON, recorded in the metrics
+			long serializationNanos = 0;
+			// membership is only checked for the projects that are part of the requested page (and until the
+			// next visible project is found)
+			for (int i = indexOfFirstProjectAfter(projects, lastProjectName); i < projects.size(); i++) {
+				Project project = projects.get(i);
 				// To check whether the user is a member of the project/group, we need the group
 				// identifier
 				String groupId = project.getGroupIdentifier();
-				JSONObject projectJSON = project.toJSONObject();
-				try {
-					GroupAgent ga = (GroupAgent) Context.get().requestAgent(groupId, agent);
-					// user is allowed to access group agent => user is a project/group member
-					// add attribute to project JSON which tells that the user is a project member
-					projectJSON.put("is_member", true);
-					projectsJSON.add(projectJSON);
-				} catch (AgentAccessDeniedException e) {
-					// user is not allowed to access group agent => user is no project/group member
-					// only return this project if the service is configured that all projects are
-					// readable by any user
-					if (this.systemsConfig.getVisibilityOfProjectsBySystem(system) == ProjectVisibility.ALL) {
-						projectJSON.put("is_member", false);
-						projectsJSON.add(projectJSON);
-					}
+				boolean member = this.isGroupMember(groupId, agent);
+				if (!member && onlyMemberProjects) continue;
+				
+				if (limit > 0 && projectsJSON.size() == limit) {
+					// page is full, but there is a further project the user can see
+					result.put("nextCursor", encodeCursor((String) projectsJSON.get(limit - 1).get("name")));
+					break;
 				}
+				
+				long serializationStart = System.nanoTime();
+				JSONObject projectJSON = project.toJSONObject();
+				serializationNanos += System.nanoTime() - serializationStart;
+				// add attribute to project JSON which tells whether the user is a project member
+				projectJSON.put("is_member", member);
+				projectsJSON.add(projectJSON);
 			}
+			ServiceMetrics.getInstance().recordSerialization("getProjects", serializationNanos);
+			RequestTrace.record(RequestTrace.SERIALIZATION, serializationNanos);
 
 			result.put("projects", projectsJSON);
 			// System.out.println(result);
@@ -460,6 +851,35 @@ public class ProjectService extends RESTService {
 		}
 	}
 	
+	/**
+	 * Returns the index of the first project in the given list, whose name is greater than the given name.
+	 * @param projects List of projects sorted by name.
+	 * @param projectName Name of the last project of the previous page, or null to start at the beginning.
+	 * @return Index of the first project of the next page.
+	 */
+	private static int indexOfFirstProjectAfter(List<Project> projects, String projectName) {
+		if (projectName == null) return 0;
+		int low = 0;
+		int high = projects.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (projects.get(mid).getName().compareTo(projectName) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+	private static String encodeCursor(String projectName) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(projectName.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static String decodeCursor(String cursor) {
+		return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+	}
+	
 	/**
 	 * Method for loading information on a single project.
 	 * @param system This prefix is used to store all the envelopes of a system. It should be
@@ -476,7 +896,7 @@ public class ProjectService extends RESTService {
 			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "Could not find project with given name."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
 	public Response getProjectByName(@PathParam("system") String system, @PathParam("projectName") String projectName) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
 		GroupAgent serviceGroupAgent = getServiceGroupAgent();
@@ -484,28 +904,24 @@ public class ProjectService extends RESTService {
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity("Cannot access service group agent.")
 					.build();
 
-		String identifier = getProjectListIdentifier(system);
 		try {
-			Envelope stored = Context.get().requestEnvelope(identifier, serviceGroupAgent);
-			ProjectContainer cc = (ProjectContainer) stored.getContent();
-			
-			Project p = cc.getProjectByName(projectName);
+			// only the shard of the project list containing the project needs to be loaded
+			Project p = this.projectListStore.getProject(system, projectName, serviceGroupAgent);
 			if(p != null) {
 				// To check whether the user is a member of the project/group, we need the group
 				// identifier
 				String groupId = p.getGroupIdentifier();
 				JSONObject projectJSON = p.toJSONObject();
-				try {
-					GroupAgent ga = (GroupAgent) Context.get().requestAgent(groupId, Context.get().getMainAgent());
+				if (this.isGroupMember(groupId, Context.get().getMainAgent())) {
 					// user is allowed to access group agent => user is a project/group member
 					// add attribute to project JSON which tells that the user is a project member
 					projectJSON.put("is_member", true);
 					return Response.status(HttpURLConnection.HTTP_OK).entity(projectJSON.toJSONString()).build();
-				} catch (AgentAccessDeniedException e) {
+				} else {
 					// user is not allowed to access group agent => user is no project/group member
 					// only return this project if the service is configured that all projects are
 					// readable by any user
-					if (this.systemsConfig.getVisibilityOfProjectsBySystem(system) == ProjectVisibility.ALL) {
+					if (this.getSystemsConfig().getVisibilityOfProjectsBySystem(system) == ProjectVisibility.ALL) {
 						projectJSON.put("is_member", false);
 						return Response.status(HttpURLConnection.HTTP_OK).entity(projectJSON.toJSONString()).build();
 					} else {
@@ -522,6 +938,58 @@ public class ProjectService extends RESTService {
 		}
 	}
 	
+	/**
+	 * Returns the projects that are linked to the given group. The projects are looked up using the
+	 * group index of the project list, thus the list does not need to be scanned.
+	 * @param system This prefix is used to store all the envelopes of a system. It should be
+	 *        unique for every system using the project service.
+	 * @param groupId Identifier of the group agent.
+	 * @return Response containing the projects linked to the group, sorted by name.
+	 */
+	@GET
+	@Path("/{system}/byGroup/{groupId}")
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Returns the projects that are linked to the given group.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, projects fetched."),
+			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Used system is not valid."),
+			@ApiResponse(code = HttpURLConnection.HTTP_FORBIDDEN, message = "Not allowed to access the projects of the group."),
+			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
+	public Response getProjectsByGroup(@PathParam("system") String system, @PathParam("groupId") String groupId) {
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+				.entity("Used system is not valid.").build();
+		
+		GroupAgent serviceGroupAgent = getServiceGroupAgent();
+		if (serviceGroupAgent == null)
+			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity("Cannot access service group agent.")
+					.build();
+
+		JSONObject result = new JSONObject();
+		try {
+			// all projects of the group share the group, thus membership only needs to be checked once
+			boolean member = this.isGroupMember(groupId, Context.get().getMainAgent());
+			if (!member && this.getSystemsConfig().getVisibilityOfProjectsBySystem(system) != ProjectVisibility.ALL) {
+				// user is not allowed to read the projects of this group
+				return Response.status(HttpURLConnection.HTTP_FORBIDDEN).build();
+			}
+
+			ProjectContainer cc = this.projectListStore.getProjectList(system, serviceGroupAgent);
+			List<JSONObject> projectsJSON = new ArrayList<>();
+			for (Project project : cc.getProjectsByGroup(groupId)) {
+				JSONObject projectJSON = project.toJSONObject();
+				projectJSON.put("is_member", member);
+				projectsJSON.add(projectJSON);
+			}
+			result.put("projects", projectsJSON);
+			return Response.status(HttpURLConnection.HTTP_OK).entity(result.toJSONString()).build();
+		} catch (AgentNotFoundException | EnvelopeNotFoundException e) {
+			// group or project list does not exist, thus no project is linked to the group
+			result.put("projects", new ArrayList<>());
+			return Response.status(HttpURLConnection.HTTP_OK).entity(result.toJSONString()).build();
+		} catch (Exception e) {
+			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity("Unknown error occured: " + e.getMessage()).build();
+		}
+	}
+	
 	/**
 	 * Deleted the project with the given name.
 	 * @param system This prefix is used to store all the envelopes of a system. It should be
@@ -537,7 +1005,7 @@ public class ProjectService extends RESTService {
 			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "Could not find a project with the given name."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
 	public Response deleteProject(@PathParam("system") String system, @PathParam("projectName") String projectName) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
 		Agent agent = Context.getCurrent().getMainAgent();
@@ -574,7 +1042,7 @@ public class ProjectService extends RESTService {
 			return Response.status(HttpURLConnection.HTTP_OK).build();
 		} else {
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
-					.entity("Sending event to event listener service failed.").build();
+					.entity("Storing event for event listener service failed.").build();
 		}
 	}
 	
@@ -583,23 +1051,23 @@ public class ProjectService extends RESTService {
 		Project deletedProject;
 		String projectIdentifier = getProjectIdentifier(system, projectName);
 		
-		Envelope env = Context.get().requestEnvelope(projectIdentifier, agent);
+		Envelope env = MeteredContext.requestEnvelope(Context.get(), projectIdentifier, agent);
 		ProjectContainer cc = (ProjectContainer) env.getContent();
 		deletedProject = cc.getProjectByName(projectName);
 		cc.removeProject(projectName);
 		env.setContent(cc);
-		Context.get().storeEnvelope(env, agent);
+		MeteredContext.storeEnvelope(Context.get(), env, agent);
 		
 		return deletedProject;
 	}
 	
 	private void removeProjectFromProjectListEnvelope(String system, String projectName, GroupAgent serviceGroupAgent) 
-			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
-		Envelope envList = Context.get().requestEnvelope(getProjectListIdentifier(system), serviceGroupAgent);
-		ProjectContainer ccList = (ProjectContainer) envList.getContent();
-		ccList.removeProject(projectName);
-		envList.setContent(ccList);
-		Context.get().storeEnvelope(envList, serviceGroupAgent);
+			throws EnvelopeAccessDeniedException, EnvelopeOperationFailedException {
+		this.projectListStore.update(system, projectName, serviceGroupAgent, projectList -> {
+			if (projectList.getProjectByName(projectName) == null) return ProjectListStore.UpdateResult.unchanged(null);
+			projectList.removeProject(projectName);
+			return ProjectListStore.UpdateResult.store(null);
+		});
 	}
 
 	/**
@@ -625,7 +1093,7 @@ public class ProjectService extends RESTService {
 			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Input project is not well formatted or some attribute is missing."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
 	public Response changeGroup(@PathParam("system") String system, String body) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "changeGroup: trying to change group of project");
@@ -640,7 +1108,6 @@ public class ProjectService extends RESTService {
 				String projectName = (String) jsonBody.get("projectName");
 				String newGroupId = (String) jsonBody.get("newGroupId");
 				String newGroupName = (String) jsonBody.get("newGroupName");
-				String identifier = getProjectListIdentifier(system);
 
 				// check if user currently has access to project
 				if (!this.hasAccessToProject(system, projectName)) {
@@ -648,52 +1115,62 @@ public class ProjectService extends RESTService {
 							.entity("User is no member of the project and thus not allowed to edit its linked group.")
 							.build();
 				}
+				
+				GroupAgent serviceGroupAgent = getServiceGroupAgent();
+				if (serviceGroupAgent == null)
+					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
+							.entity("Cannot access service group agent.").build();
+
+				// the user needs to be a member of the new group
+				// this is checked only once, not on every retry of the update below
+				try {
+					MeteredContext.requestAgent(Context.get(), newGroupId, agent);
+					// user is allowed to access group agent => user is a project/group member
+				} catch (AgentAccessDeniedException e) {
+					// user is not allowed to access group agent => user is no project/group member
+					// cant use group which user is not a part of
+					return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+							.entity("You are not a part of this group!").build();
+				} catch (AgentNotFoundException e) {
+					// or: group does not exist
+					return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Non-existing group").build();
+				} catch (AgentOperationFailedException e) {
+					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity(e).build();
+				}
 
 				try {
-					Envelope stored = Context.get().requestEnvelope(identifier, Context.get().getServiceAgent());
-					ProjectContainer cc = (ProjectContainer) stored.getContent();
-					// read all projects from the project list
-					List<Project> projects = cc.getAllProjects();
-
-					for (Project project : projects) {
-						// To check whether the user is a member of the project/group, we need the group
-						// identifier
+					// group of the project before it got changed (only set if the change gets stored)
+					AtomicReference<String> oldGroupId = new AtomicReference<>();
+					// only the shard of the project list containing the project gets modified
+					// if the shard got changed concurrently, the change gets applied again to its latest version
+					Response result = this.projectListStore.update(system, projectName, serviceGroupAgent, cc -> {
+						oldGroupId.set(null);
+						Project project = cc.getProjectByName(projectName);
+						if (project == null) {
+							return ProjectListStore.UpdateResult.unchanged(
+									Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build());
+						}
 						String groupId = project.getGroupIdentifier();
-						// Search correct project
-						if (projectName.equals(project.getName())) {
-							// check if new group actually differs from old group
-							if (!newGroupId.equals(groupId)) {
-								try {
-									GroupAgent ga = (GroupAgent) Context.get().requestAgent(newGroupId, agent);
-									// user is allowed to access group agent => user is a project/group member
-									cc.removeProject(project);
-									project.changeGroup(newGroupId, newGroupName);
-									cc.addProject(project);
-									stored.setContent(cc);
-									Context.get().storeEnvelope(stored, Context.get().getServiceAgent());
-									JSONObject response = new JSONObject();
-									response.put("project", project);
-									return Response.status(Status.OK).entity("Group successfully changed!")
-											.entity(response).build();
-								} catch (AgentAccessDeniedException e) {
-									// user is not allowed to access group agent => user is no project/group member
-									// cant use group which user is not a part of
-									return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-											.entity("You are not a part of this group!").build();
-
-								} catch (AgentNotFoundException e) {
-									// or: group does not exist
-									return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-											.entity("Non-existing group").build();
-								} catch (AgentOperationFailedException e) {
-									return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity(e).build();
-								}
-							}
+						// check if new group actually differs from old group
+						if (newGroupId.equals(groupId)) {
+							return ProjectListStore.UpdateResult.unchanged(
+									Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build());
 						}
+						cc.removeProject(project);
+						project.changeGroup(newGroupId, newGroupName);
+						cc.addProject(project);
+						oldGroupId.set(groupId);
+						JSONObject response = new JSONObject();
+						response.put("project", project);
+						return ProjectListStore.UpdateResult.store(Response.status(Status.OK)
+								.entity("Group successfully changed!").entity(response).build());
+					});
+					if (oldGroupId.get() != null) {
+						// memberships of the old and new group need to be checked again
+						this.membershipCache.invalidateGroup(oldGroupId.get());
+						this.membershipCache.invalidateGroup(newGroupId);
 					}
-					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
-				} catch (EnvelopeNotFoundException e) {
-					return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("No projects available.").build();
+					return result;
 				} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
 					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 				}
@@ -724,10 +1201,11 @@ public class ProjectService extends RESTService {
 	@ApiOperation(value = "Change metadata corresponding to project.")
 	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_CREATED, message = "OK, metadata changed."),
 			@ApiResponse(code = HttpURLConnection.HTTP_UNAUTHORIZED, message = "User not authorized."),
+			@ApiResponse(code = HttpURLConnection.HTTP_CONFLICT, message = "The group of the project was changed concurrently."),
 			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Input project is not well formatted or some attribute is missing."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.") })
 	public Response changeMetadata(@PathParam("system") String system, String body) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "changeGroup: trying to change group of project");
@@ -741,63 +1219,69 @@ public class ProjectService extends RESTService {
 			String projectName = (String) jsonBody.get("projectName");
 			String oldMetadata = jsonBody.get("oldMetadata").toString();
 			String newMetadata = jsonBody.get("newMetadata").toString();
-			String identifier = getProjectListIdentifier(system);
 			// check if user currently has access to project
 			if (!this.hasAccessToProject(system, projectName)) {
 				return Response.status(HttpURLConnection.HTTP_FORBIDDEN)
 						.entity("User is no member of the project and thus not allowed to edit its linked group.")
 						.build();
 			}
+			
+			GroupAgent serviceGroupAgent = getServiceGroupAgent();
+			if (serviceGroupAgent == null)
+				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
+						.entity("Cannot access service group agent.").build();
 
 			try {
-				Envelope stored = Context.get().requestEnvelope(identifier, Context.get().getServiceAgent());
-				ProjectContainer cc = (ProjectContainer) stored.getContent();
-				// read all projects from the project list
-				List<Project> projects = cc.getAllProjects();
+				Project current = this.projectListStore.getProject(system, projectName, serviceGroupAgent);
+				if (current == null) {
+					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+				}
+				// To check whether the user is a member of the project/group, we need the group
+				// identifier
+				// this is checked only once, not on every retry of the update below
+				String groupId = current.getGroupIdentifier();
+				try {
+					MeteredContext.requestAgent(Context.get(), groupId, agent);
+					// user is allowed to access group agent => user is a project/group member
+				} catch (AgentAccessDeniedException e) {
+					// user is not allowed to access group agent => user is no project/group member
+					// cant use group which user is not a part of
+					return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+							.entity("You are not a part of this group!").build();
+				} catch (AgentNotFoundException e) {
+					// or: group does not exist
+					return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Non-existing group").build();
+				} catch (AgentOperationFailedException e) {
+					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity(e).build();
+				}
 
-				for (Project project : projects) {
+				// only the shard of the project list containing the project gets modified
+				// if the shard got changed concurrently, the change gets applied again to its latest version
+				return this.projectListStore.update(system, projectName, serviceGroupAgent, cc -> {
+					Project project = cc.getProjectByName(projectName);
+					if (project == null) {
+						return ProjectListStore.UpdateResult.unchanged(
+								Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build());
+					}
+					// the membership was checked for the group the project was linked to before
+					if (!groupId.equals(project.getGroupIdentifier())) {
+						return ProjectListStore.UpdateResult.unchanged(Response.status(HttpURLConnection.HTTP_CONFLICT)
+								.entity("The group of the project was changed, please reload page and try again!").build());
+					}
 					// To check whether there is an inconsistency, we compare the old metadata given
-					// as a parameter;
-					// Search correct project
-					if (projectName.equals(project.getName())) {
-						// check if new group actually differs from old group
-						if (oldMetadata.equals(project.getMetadataString())) {
-							try {
-								GroupAgent ga = (GroupAgent) Context.get().requestAgent(project.getGroupIdentifier(),
-										agent);
-								// user is allowed to access group agent => user is a project/group member
-								cc.removeProject(project);
-								project.changeMetadata(newMetadata);
-								cc.addProject(project);
-								stored.setContent(cc);
-								Context.get().storeEnvelope(stored, Context.get().getServiceAgent());
-								JSONObject response = new JSONObject();
-								response.put("project", project);
-								return Response.status(Status.OK).entity("Metadata successfully changed!")
-										.entity(response).build();
-							} catch (AgentAccessDeniedException e) {
-								// user is not allowed to access group agent => user is no project/group member
-								// cant use group which user is not a part of
-								return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-										.entity("You are not a part of this group!").build();
-
-							} catch (AgentNotFoundException e) {
-								// or: group does not exist
-								return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Non-existing group")
-										.build();
-							} catch (AgentOperationFailedException e) {
-								return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).entity(e).build();
-							}
-						} else {
-							return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
-									.entity("Inconsistency with old metadata, please reload page and try again!")
-									.build();
-						}
+					// as a parameter
+					if (!oldMetadata.equals(project.getMetadataString())) {
+						return ProjectListStore.UpdateResult.unchanged(Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+								.entity("Inconsistency with old metadata, please reload page and try again!").build());
 					}
-				}
-				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
-			} catch (EnvelopeNotFoundException e) {
-				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("No projects available.").build();
+					cc.removeProject(project);
+					project.changeMetadata(newMetadata);
+					cc.addProject(project);
+					JSONObject response = new JSONObject();
+					response.put("project", project);
+					return ProjectListStore.UpdateResult.store(Response.status(Status.OK)
+							.entity("Metadata successfully changed!").entity(response).build());
+				});
 			} catch (EnvelopeAccessDeniedException | EnvelopeOperationFailedException e) {
 				return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 			}
@@ -820,10 +1304,10 @@ public class ProjectService extends RESTService {
 	@Consumes(MediaType.TEXT_PLAIN)
 	@Path("/{system}/user/githubinfo")
 	public Response updateUserGitHubInfo(@PathParam("system") String system, String body) {
-		if(!this.systemsConfig.isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+		if(!this.getSystemsConfig().isValidSystemName(system)) return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 				.entity("Used system is not valid.").build();
 		
-		if(!this.systemsConfig.gitHubProjectsEnabled(system)) return Response.status(HttpURLConnection.HTTP_OK).build();
+		if(!this.getSystemsConfig().gitHubProjectsEnabled(system)) return Response.status(HttpURLConnection.HTTP_OK).build();
 		
 		if (Context.getCurrent().getMainAgent() instanceof AnonymousAgent) {
 			return Response.status(HttpURLConnection.HTTP_UNAUTHORIZED).entity("User not authorized.").build();
@@ -864,8 +1348,8 @@ public class ProjectService extends RESTService {
 	/**
 	 * Grants user access to all relevant GitHub projects (i.e., projects where the user 
 	 * is a member of) in the given system.
-	 * Also checks if someone who still has access to the GitHub project is no group
-	 * member anymore. In this case, access to GitHub project will be removed.
+	 * If the background synchronization is disabled, also checks if someone who still has access
+	 * to the GitHub project is no group member anymore. In this case, access to GitHub project will be removed.
 	 * @param system System
 	 * @param serviceGroupAgent Group agent of the service used to access the project list envelope.
 	 * @param userAgent Agent of the user
@@ -877,60 +1361,148 @@ public class ProjectService extends RESTService {
 	 */
 	private void updateUserGitHubProjectsAccess(String system, GroupAgent serviceGroupAgent, Agent userAgent, String gitHubUsername)
 			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException, GitHubException {
-		Envelope stored = null;
-		stored = Context.get().requestEnvelope(getProjectListIdentifier(system), serviceGroupAgent);
-	    ProjectContainer cc = (ProjectContainer) stored.getContent();
-		
-		// load all projects where the user is a member of
-		List<Project> userProjects = this.getProjectsOfUser(system, serviceGroupAgent, userAgent);
-		for(Project project : userProjects) {
-			if(!project.hasUserGitHubNameStored(userAgent)) {
-				// store the GitHub username of this user
-				project.addGitHubUsername(userAgent, gitHubUsername);
-				
-				// need to update project in envelope
-				cc.removeProject(project);
-				cc.addProject(project);
-				stored.setContent(cc);
-				Context.get().storeEnvelope(stored, Context.get().getServiceAgent());
-				
-				// since we now know the GitHub username, we can add the user to the GitHub project
-				GitHubHelper.getInstance().grantUserAccessToProject(system, gitHubUsername, project.getConnectedGitHubProject());
+		ProjectListStore.UnitOfWork projectListChanges = this.projectListStore.beginUnitOfWork(system, serviceGroupAgent);
+		List<GitHubAccessChange> changes = this.collectUserGitHubProjectsAccessChanges(projectListChanges, userAgent,
+				gitHubUsername);
+		// the GitHub API gets called after the shards got stored
+		projectListChanges.flush();
+		this.applyGitHubAccessChanges(system, changes);
+	}
+	
+	/**
+	 * Stores the GitHub username of the user in all projects where the user is a member of and (if the background
+	 * synchronization is disabled) removes the usernames of users that left the groups. The changes are applied to
+	 * the given unit of work, which needs to be flushed by the caller.
+	 * @param projectListChanges Unit of work of the project list of the system.
+	 * @param userAgent Agent of the user
+	 * @param gitHubUsername GitHub username of the user
+	 * @return Access to GitHub projects that needs to be granted or removed after the unit of work got flushed.
+	 * @throws EnvelopeAccessDeniedException Project list envelopes could not be accessed.
+	 * @throws EnvelopeNotFoundException Project list envelope not found.
+	 * @throws EnvelopeOperationFailedException Requesting one of the envelopes failed.
+	 */
+	private List<GitHubAccessChange> collectUserGitHubProjectsAccessChanges(ProjectListStore.UnitOfWork projectListChanges,
+			Agent userAgent, String gitHubUsername)
+			throws EnvelopeAccessDeniedException, EnvelopeNotFoundException, EnvelopeOperationFailedException {
+		// member lists of the groups, requested at most once even if a shard update gets repeated
+		Map<String, String[]> groupMemberIds = new HashMap<>();
+		// groups whose member list could not be requested (with the error), reported once the update is done
+		Map<String, String> failedGroups = new LinkedHashMap<>();
+		
+		List<List<GitHubAccessChange>> changesPerShard = projectListChanges.updateAll(cc -> {
+			List<GitHubAccessChange> changes = new ArrayList<>();
+			// usernames also get stored for projects whose GitHub project is not connected (yet), thus the
+			// shard might be modified even if no access needs to be changed
+			boolean modified = false;
+			// load all projects where the user is a member of
+			List<Project> userProjects = this.getProjectsOfUser(cc, userAgent);
+			for(Project project : userProjects) {
+				if(!project.hasUserGitHubNameStored(userAgent)) {
+					// store the GitHub username of this user
+					project.addGitHubUsername(userAgent, gitHubUsername);
+					modified = true;
+					
+					// since we now know the GitHub username, we can add the user to the GitHub project
+					// if the GitHub project is still being created, access is granted after it got created
+					if(project.gitHubProjectConnected()) {
+						changes.add(new GitHubAccessChange(project.getConnectedGitHubProject(), gitHubUsername, true));
+					}
+				}
+				// users that left the group are handled by the background synchronization
+				if(this.gitHubAccessReconciler.isEnabled()) continue;
+				// check for other users, if someone left the group and still has access to GitHub project
+				String groupId = project.getGroupIdentifier();
+				if (failedGroups.containsKey(groupId)) continue;
+				String[] memberIds = groupMemberIds.get(groupId);
+				if (memberIds == null) {
+					try {
+						GroupAgent ga = (GroupAgent) MeteredContext.requestAgent(Context.get(), groupId, userAgent);
+						memberIds = ga.getMemberList();
+					} catch (AgentAccessDeniedException | AgentNotFoundException | AgentOperationFailedException e) {
+						// users that left this group keep their access until the username gets sent again
+						failedGroups.put(groupId, e.getMessage());
+						continue;
+					}
+					groupMemberIds.put(groupId, memberIds);
+				}
+				for(String username : project.removeNonGroupMembersGitHubUsernames(memberIds)) {
+					modified = true;
+					if(project.gitHubProjectConnected()) {
+						changes.add(new GitHubAccessChange(project.getConnectedGitHubProject(), username, false));
+					}
+				}
 			}
-			// check for other users, if someone left the group and still has access to GitHub project
-			String groupId = project.getGroupIdentifier();
-			try {
-				GroupAgent ga = (GroupAgent) Context.get().requestAgent(groupId, userAgent);
-				boolean removedUser = project.removeNonGroupMembersGitHubAccess(system, ga.getMemberList());
-				if(removedUser) {
-					// need to update project in envelope
-					cc.removeProject(project);
-					cc.addProject(project);
-					stored.setContent(cc);
-					Context.get().storeEnvelope(stored, Context.get().getServiceAgent());
+			// need to update projects in envelope
+			return modified ? ProjectListStore.UpdateResult.store(changes)
+					: ProjectListStore.UpdateResult.unchanged(changes);
+		});
+		
+		for (Map.Entry<String, String> failedGroup : failedGroups.entrySet()) {
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "Checking the GitHub access of members that left group "
+					+ failedGroup.getKey() + " failed: " + failedGroup.getValue());
+		}
+		
+		List<GitHubAccessChange> changes = new ArrayList<>();
+		for (List<GitHubAccessChange> shardChanges : changesPerShard) {
+			changes.addAll(shardChanges);
+		}
+		return changes;
+	}
+	
+	/**
+	 * Grants or removes the access to the GitHub projects. All changes are attempted, even if some of them fail.
+	 * Failed removals are reported as monitoring events, since they concern other users than the one sending the
+	 * request.
+	 * @param system System
+	 * @param changes Access to GitHub projects that needs to be granted or removed.
+	 * @throws GitHubException Granting access failed for at least one GitHub project (the first failure is thrown).
+	 */
+	private void applyGitHubAccessChanges(String system, List<GitHubAccessChange> changes) throws GitHubException {
+		GitHubException grantFailure = null;
+		for (GitHubAccessChange change : changes) {
+			if (change.grant) {
+				try {
+					GitHubHelper.getInstance().grantUserAccessToProject(system, change.gitHubUsername, change.gitHubProject);
+				} catch (GitHubException e) {
+					if (grantFailure == null) grantFailure = e;
+				}
+			} else {
+				try {
+					GitHubHelper.getInstance().removeUserAccessToProject(system, change.gitHubUsername, change.gitHubProject);
+				} catch (GitHubException e) {
+					Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "Removing access of " + change.gitHubUsername
+							+ " to GitHub project " + change.gitHubProject.getId() + " failed: " + e.getMessage());
 				}
-			} catch (Exception e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
 			}
 		}
+		if (grantFailure != null) throw grantFailure;
+	}
+	
+	/**
+	 * Access of a user to a GitHub project that needs to be granted or removed.
+	 */
+	private static class GitHubAccessChange {
+		private final GitHubProject gitHubProject;
+		private final String gitHubUsername;
+		private final boolean grant;
+		
+		private GitHubAccessChange(GitHubProject gitHubProject, String gitHubUsername, boolean grant) {
+			this.gitHubProject = gitHubProject;
+			this.gitHubUsername = gitHubUsername;
+			this.grant = grant;
+		}
 	}
 	
 	/**
 	 * Returns the list of projects where the user is a member of.
-	 * @param system Name of the system, where projects of the user should be searched.
-	 * @param serviceGroupAgent Agent to access project list envelope.
+	 * @param cc Project list of the system, where projects of the user should be searched.
 	 * @param userAgent User agent to check if user has access to a project.
 	 * @return List of projects where the user is a member of.
 	 */
-	private List<Project> getProjectsOfUser(String system, GroupAgent serviceGroupAgent, Agent userAgent) {
+	private List<Project> getProjectsOfUser(ProjectContainer cc, Agent userAgent) {
 		ArrayList<Project> userProjects = new ArrayList<>();
 		
-		String identifier = getProjectListIdentifier(system);
-		
 		try {
-		    Envelope stored = Context.get().requestEnvelope(identifier, serviceGroupAgent);
-		    ProjectContainer cc = (ProjectContainer) stored.getContent();
 		    // read all projects from the project list
 		    List<Project> projects = cc.getAllProjects();
 
@@ -938,12 +1510,9 @@ public class ProjectService extends RESTService {
 			    // To check whether the user is a member of the project/group, we need the group
 			    // identifier
 			    String groupId = project.getGroupIdentifier();
-			    try {
-				    GroupAgent ga = (GroupAgent) Context.get().requestAgent(groupId, userAgent);
+			    if (this.isGroupMember(groupId, userAgent)) {
 				    // user is allowed to access group agent => user is a project/group member
 				    userProjects.add(project);
-			    } catch (AgentAccessDeniedException e) {
-				    // user is not allowed to access group agent => user is no project/group member
 			    }
 		    }
 		} catch (Exception e) {}
@@ -951,6 +1520,30 @@ public class ProjectService extends RESTService {
 		return userProjects;
 	}
 	
+	/**
+	 * Checks whether the given agent is a member of the group with the given identifier, i.e.,
+	 * whether the agent is able to unlock the group agent. Results are cached for a limited time.
+	 * @param groupId Identifier of the group agent.
+	 * @param agent Agent whose membership should be checked.
+	 * @return Whether the agent is a member of the group.
+	 * @throws AgentNotFoundException If the group agent could not be found.
+	 * @throws AgentOperationFailedException If requesting the group agent failed.
+	 */
+	private boolean isGroupMember(String groupId, Agent agent) throws AgentNotFoundException, AgentOperationFailedException {
+		Boolean cached = this.membershipCache.get(agent.getIdentifier(), groupId);
+		if (cached != null) return cached;
+		
+		boolean member;
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.MEMBERSHIP_CHECK)) {
+			MeteredContext.requestAgent(Context.get(), groupId, agent);
+			member = true;
+		} catch (AgentAccessDeniedException e) {
+			member = false;
+		}
+		this.membershipCache.put(agent.getIdentifier(), groupId, member);
+		return member;
+	}
+	
 	/**
 	 * Returns the identifier of the envelope for the project with the given name.
 	 * @param system Prefix of the system which is used for all envelopes. Should be unique
@@ -963,7 +1556,9 @@ public class ProjectService extends RESTService {
 	}
 	
 	/**
-	 * Returns the identifier of the envelope for the project list of the given system.
+	 * Returns the identifier of the (old) single envelope for the project list of the given system.
+	 * Project lists are now stored in several shard envelopes (see {@link ProjectListStore}), this envelope
+	 * is only read to migrate existing project lists.
 	 * @param system Prefix of the system which is used for all envelopes. Should be unique
 	 *        for every system using the project service.
 	 * @return The identifier of the envelope for the project with the given name.
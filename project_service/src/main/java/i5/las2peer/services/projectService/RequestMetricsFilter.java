@@ -0,0 +1,43 @@
+package i5.las2peer.services.projectService;
+
+import java.lang.reflect.Method;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+
+import i5.las2peer.services.projectService.util.ServiceMetrics;
+
+/**
+ * Records the duration and the status code of every request to the REST API in the {@link ServiceMetrics}.
+ * Requests are grouped by the name of the method of the service that handled them.
+ */
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	private static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+
+	/**
+	 * Endpoint name used for requests that did not match any method.
+	 */
+	private static final String UNMATCHED_ENDPOINT = "unmatched";
+
+	@javax.ws.rs.core.Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(START_PROPERTY, System.nanoTime());
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object start = requestContext.getProperty(START_PROPERTY);
+		if (!(start instanceof Long)) return;
+		Method method = this.resourceInfo == null ? null : this.resourceInfo.getResourceMethod();
+		String endpoint = method == null ? UNMATCHED_ENDPOINT : method.getName();
+		ServiceMetrics.getInstance().recordRequest(endpoint, responseContext.getStatus(), (Long) start);
+	}
+
+}
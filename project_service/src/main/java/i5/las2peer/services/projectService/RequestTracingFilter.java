@@ -0,0 +1,72 @@
+package i5.las2peer.services.projectService;
+
+import java.lang.reflect.Method;
+import java.util.function.LongSupplier;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.services.projectService.util.RequestTrace;
+
+/**
+ * Traces every request to the REST API (see {@link RequestTrace}). Once a request is completed, one monitoring
+ * event (SERVICE_CUSTOM_MESSAGE_1) is emitted, containing the endpoint, the status code, the duration and the time
+ * spent in the different phases as JSON. For requests taking longer than the slow request threshold, a second
+ * monitoring event (SERVICE_CUSTOM_MESSAGE_2) with the same content is emitted.
+ */
+public class RequestTracingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	/**
+	 * Endpoint name used for requests that did not match any method.
+	 */
+	private static final String UNMATCHED_ENDPOINT = "unmatched";
+
+	/**
+	 * Threshold (in milliseconds) above which requests are reported as slow. Disabled if 0 or less.
+	 */
+	private final LongSupplier slowRequestThreshold;
+
+	@javax.ws.rs.core.Context
+	private ResourceInfo resourceInfo;
+
+	/**
+	 * Creates the filter.
+	 * @param slowRequestThreshold Returns the threshold (in milliseconds) above which requests are reported as
+	 *        slow. It is read for every request, since the filter is created before the service properties are
+	 *        set.
+	 */
+	public RequestTracingFilter(LongSupplier slowRequestThreshold) {
+		this.slowRequestThreshold = slowRequestThreshold;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		RequestTrace.begin();
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		RequestTrace trace = RequestTrace.end();
+		if (trace == null) return;
+		Method method = this.resourceInfo == null ? null : this.resourceInfo.getResourceMethod();
+		String endpoint = method == null ? UNMATCHED_ENDPOINT : method.getName();
+		JSONObject traceJSON = trace.toJSONObject(endpoint, responseContext.getStatus());
+
+		long threshold = this.slowRequestThreshold.getAsLong();
+		boolean slow = threshold > 0 && (long) traceJSON.get("durationMs") >= threshold;
+		try {
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_CUSTOM_MESSAGE_1, traceJSON.toJSONString());
+			if (slow) Context.get().monitorEvent(MonitoringEvent.SERVICE_CUSTOM_MESSAGE_2, traceJSON.toJSONString());
+		} catch (IllegalStateException e) {
+			// no las2peer context available for this request
+		}
+	}
+
+}
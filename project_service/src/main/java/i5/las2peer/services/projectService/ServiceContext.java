@@ -0,0 +1,49 @@
+package i5.las2peer.services.projectService;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.security.ServiceAgent;
+import i5.las2peer.execution.ExecutionContext;
+import i5.las2peer.p2p.Node;
+import i5.las2peer.security.ServiceAgentImpl;
+
+/**
+ * Creates the context used for the work that the service does in the background (e.g., delivering events), which
+ * is not bound to a request. The main agent of this context is the service agent, thus monitoring events are not
+ * attributed to the user whose request started the work, and the work does not depend on the context of a request
+ * that finished long ago.
+ *
+ * The public API of las2peer does not provide a context for the service agent outside of a request, therefore it
+ * gets created using the classes of the node implementation. This is the only class of the service that uses them.
+ * If they are not available (or behave differently), the context of the request is used instead.
+ */
+public final class ServiceContext {
+
+	private ServiceContext() {
+	}
+
+	/**
+	 * Creates a context for the service agent of the service handling the given request.
+	 * @param requestContext Context of a request handled by the service.
+	 * @return Context whose main agent is the service agent, or the given context if such a context cannot be
+	 *         created.
+	 */
+	public static Context create(Context requestContext) {
+		try {
+			ServiceAgent serviceAgent = requestContext.getServiceAgent();
+			if (serviceAgent instanceof ServiceAgentImpl) {
+				ServiceAgentImpl serviceAgentImpl = (ServiceAgentImpl) serviceAgent;
+				Node node = serviceAgentImpl.getRunningAtNode();
+				if (node != null) {
+					return new ExecutionContext(serviceAgentImpl, node.getAgentContext(serviceAgentImpl), node);
+				}
+			}
+		} catch (LinkageError | RuntimeException e) {
+			// the node implementation changed
+		}
+		requestContext.monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
+				"Cannot create the context of the service agent, using the context of the request instead.");
+		return requestContext;
+	}
+
+}
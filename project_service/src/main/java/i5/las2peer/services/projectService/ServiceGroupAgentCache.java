@@ -0,0 +1,176 @@
+package i5.las2peer.services.projectService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.security.AgentAccessDeniedException;
+import i5.las2peer.api.security.AgentNotFoundException;
+import i5.las2peer.api.security.AgentOperationFailedException;
+import i5.las2peer.api.security.GroupAgent;
+import i5.las2peer.api.security.ServiceAgent;
+
+/**
+ * Node-local cache of the unlocked service group agent.
+ * Requesting the service group agent requires fetching and unlocking it, which was done for every request
+ * before. The unlocked agent is now reused and only requested again after the refresh interval.
+ *
+ * If several requests need the agent while it is not cached, only one of them requests it and the others
+ * wait for the result. If the agent is only outdated, the other requests keep using the outdated agent until
+ * it got refreshed. Thus, the migration from the old service agent (adding the current service agent to the
+ * service group) never runs concurrently, and after it succeeded once it does not run again.
+ *
+ * If refreshing an outdated agent fails, the outdated agent is kept (it is still unlocked) and the refresh is
+ * tried again after a short delay.
+ */
+public class ServiceGroupAgentCache {
+
+	/**
+	 * Time (in milliseconds) after which a failed refresh is tried again.
+	 */
+	private static final long REFRESH_RETRY_DELAY = 10000;
+
+	private final String serviceGroupId;
+	private final String oldServiceAgentId;
+	private final String oldServiceAgentPw;
+
+	/**
+	 * Time (in milliseconds) after which the cached agent gets requested again.
+	 */
+	private final long refreshInterval;
+
+	private volatile Entry current;
+
+	/**
+	 * Resolution of the agent that is currently running, or null.
+	 */
+	private final AtomicReference<CompletableFuture<GroupAgent>> resolution = new AtomicReference<>();
+
+	/**
+	 * Whether the current service agent got added to the service group using the old service agent.
+	 */
+	private volatile boolean migrated = false;
+
+	public ServiceGroupAgentCache(String serviceGroupId, String oldServiceAgentId, String oldServiceAgentPw,
+			long refreshInterval) {
+		this.serviceGroupId = serviceGroupId;
+		this.oldServiceAgentId = oldServiceAgentId;
+		this.oldServiceAgentPw = oldServiceAgentPw;
+		this.refreshInterval = refreshInterval;
+	}
+
+	/**
+	 * Returns the unlocked service group agent.
+	 * @return Service group agent or null, if it could not be requested.
+	 */
+	public GroupAgent get() {
+		while (true) {
+			Entry entry = this.current;
+			if (entry != null && !entry.isExpired()) return entry.agent;
+
+			CompletableFuture<GroupAgent> inFlight = this.resolution.get();
+			if (inFlight == null) {
+				CompletableFuture<GroupAgent> own = new CompletableFuture<>();
+				if (!this.resolution.compareAndSet(null, own)) {
+					// another request started the resolution in the meantime
+					continue;
+				}
+				try {
+					GroupAgent agent = this.resolve();
+					if (agent == null && entry != null) {
+						// keep using the outdated agent
+						agent = this.keepAfterFailedRefresh(entry);
+					} else {
+						this.current = agent == null ? null : new Entry(agent, this.refreshInterval);
+					}
+					own.complete(agent);
+					return agent;
+				} catch (RuntimeException e) {
+					if (entry != null) {
+						GroupAgent agent = this.keepAfterFailedRefresh(entry);
+						own.complete(agent);
+						return agent;
+					}
+					own.completeExceptionally(e);
+					throw e;
+				} finally {
+					this.resolution.set(null);
+				}
+			}
+
+			// outdated agent can still be used while it gets refreshed
+			if (entry != null) return entry.agent;
+			try {
+				return inFlight.join();
+			} catch (CompletionException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Keeps the given outdated entry after refreshing it failed, until the refresh gets tried again.
+	 * @return The agent of the entry.
+	 */
+	private GroupAgent keepAfterFailedRefresh(Entry entry) {
+		this.current = new Entry(entry.agent, REFRESH_RETRY_DELAY);
+		return entry.agent;
+	}
+
+	/**
+	 * Removes the cached agent, so that it gets requested again on the next call of {@link #get()}.
+	 */
+	public void invalidate() {
+		this.current = null;
+	}
+
+	private GroupAgent resolve() {
+		try {
+			return (GroupAgent) MeteredContext.requestAgent(Context.get(), this.serviceGroupId,
+					Context.get().getServiceAgent());
+		} catch (AgentAccessDeniedException | AgentNotFoundException | AgentOperationFailedException e) {
+			if (this.migrated) {
+				System.out.println("Getting Service Group Agent failed because of:" + e);
+				return null;
+			}
+			try {
+				// Dont know if this is the best solution, but works, the user just needs to
+				// take care of the old service agent id field + pw
+				// Note: this only runs in one request at a time, since storing the group agent
+				// concurrently may fail
+
+				System.out.println("Adding service agent " + Context.get().getServiceAgent().getIdentifier());
+
+				ServiceAgent sAgent = (ServiceAgent) MeteredContext.fetchAgent(Context.get(), this.oldServiceAgentId);
+				sAgent.unlock(this.oldServiceAgentPw);
+				GroupAgent gAgent = (GroupAgent) MeteredContext.requestAgent(Context.get(), this.serviceGroupId, sAgent);
+				gAgent.addMember(Context.get().getServiceAgent());
+				Context.get().storeAgent(gAgent);
+				this.migrated = true;
+				return gAgent;
+			} catch (Exception e1) {
+				System.out.println("Getting Service Group Agent failed because of:" + e1);
+				return null;
+			}
+		}
+	}
+
+	private static class Entry {
+		private final GroupAgent agent;
+		private final long expiresAt;
+
+		/**
+		 * @param maxAge Time (in milliseconds) after which the agent gets requested again.
+		 */
+		private Entry(GroupAgent agent, long maxAge) {
+			this.agent = agent;
+			this.expiresAt = System.currentTimeMillis() + maxAge;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() > this.expiresAt;
+		}
+	}
+
+}
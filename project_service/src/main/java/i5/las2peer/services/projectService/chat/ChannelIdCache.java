@@ -0,0 +1,90 @@
+package i5.las2peer.services.projectService.chat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache mapping channel names to channel ids, shared by all requests that use the same chat manager.
+ * Linking a project to an existing channel requires the id of the channel. Since many projects might be
+ * linked to the same channel, the ids are cached for a limited time.
+ */
+public class ChannelIdCache {
+
+    /**
+     * After this number of insertions, expired entries get removed from the cache.
+     */
+    private static final int PURGE_INTERVAL = 1000;
+
+    /**
+     * Time (in milliseconds) that a cached channel id may be used.
+     * If set to zero or a negative value, caching is disabled.
+     */
+    private final long maxAge;
+
+    private final ConcurrentHashMap<String, Entry> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    public ChannelIdCache(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Returns the cached id of the channel with the given name.
+     * @param channelName Name of the channel.
+     * @return Id of the channel, or null if nothing (valid) is cached.
+     */
+    public String get(String channelName) {
+        if (!this.isEnabled() || channelName == null) return null;
+
+        Entry entry = this.channels.get(channelName);
+        if (entry == null) return null;
+        if (entry.isExpired(this.maxAge)) {
+            this.channels.remove(channelName, entry);
+            return null;
+        }
+        return entry.channelId;
+    }
+
+    /**
+     * Stores the id of the channel with the given name.
+     * @param channelName Name of the channel.
+     * @param channelId Id of the channel.
+     */
+    public void put(String channelName, String channelId) {
+        if (!this.isEnabled() || channelName == null || channelId == null) return;
+
+        this.channels.put(channelName, new Entry(channelId));
+        if (this.insertions.incrementAndGet() % PURGE_INTERVAL == 0) {
+            this.channels.values().removeIf(entry -> entry.isExpired(this.maxAge));
+        }
+    }
+
+    /**
+     * Removes the cached id of the channel with the given name.
+     * @param channelName Name of the channel.
+     */
+    public void invalidate(String channelName) {
+        if (channelName == null) return;
+        this.channels.remove(channelName);
+    }
+
+    private boolean isEnabled() {
+        return this.maxAge > 0;
+    }
+
+    private static class Entry {
+        private final String channelId;
+        private final long createdAt;
+
+        private Entry(String channelId) {
+            this.channelId = channelId;
+            this.createdAt = System.currentTimeMillis();
+        }
+
+        private boolean isExpired(long maxAge) {
+            return System.currentTimeMillis() - this.createdAt > maxAge;
+        }
+    }
+
+}
@@ -18,4 +18,14 @@ public abstract class ChatManager {
     public abstract JSONObject createProjectChannel(Project project, String systemName);
     public abstract JSONObject getChannelInfoForExistingChannel(String channelName);
 
+    /**
+     * Deletes a channel that was created using {@link #createProjectChannel(Project, String)}, e.g., because
+     * creating the project failed afterwards.
+     * @param project Project that the channel was created for.
+     * @param systemName Name of the system.
+     * @param channelInfo Chat info returned when creating the channel.
+     * @return Whether the channel got deleted.
+     */
+    public abstract boolean deleteProjectChannel(Project project, String systemName, JSONObject channelInfo);
+
 }
@@ -1,5 +1,7 @@
 package i5.las2peer.services.projectService.chat;
 
+import java.util.Objects;
+
 import org.json.simple.JSONObject;
 
 /**
@@ -7,6 +9,13 @@ import org.json.simple.JSONObject;
  */
 public class RocketChatConfig extends ChatConfig {
 
+    /**
+     * Default values of the optional timeouts and of the time that channel ids are cached (in milliseconds).
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_READ_TIMEOUT = 10000;
+    public static final long DEFAULT_CHANNEL_CACHE_MAX_AGE = 600000;
+
     /**
      * Public url of RocketChat instance.
      */
@@ -22,6 +31,17 @@ public class RocketChatConfig extends ChatConfig {
      */
     private String botUserId;
 
+    /**
+     * Time (in milliseconds) to wait for a connection to RocketChat and for a response.
+     */
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    /**
+     * Time (in milliseconds) that the id of a channel is cached. Set to 0 to disable the cache.
+     */
+    private long channelCacheMaxAge = DEFAULT_CHANNEL_CACHE_MAX_AGE;
+
     public RocketChatConfig(String url, String botAuthToken, String botUserId) {
         this.url = url;
         this.botAuthToken = botAuthToken;
@@ -32,7 +52,17 @@ public class RocketChatConfig extends ChatConfig {
         String url = (String) config.get("url");
         String botAuthToken = (String) config.get("botAuthToken");
         String botUserId = (String) config.get("botUserId");
-        return new RocketChatConfig(url, botAuthToken, botUserId);
+        RocketChatConfig chatConfig = new RocketChatConfig(url, botAuthToken, botUserId);
+        if (config.containsKey("connectTimeout")) {
+            chatConfig.connectTimeout = ((Number) config.get("connectTimeout")).intValue();
+        }
+        if (config.containsKey("readTimeout")) {
+            chatConfig.readTimeout = ((Number) config.get("readTimeout")).intValue();
+        }
+        if (config.containsKey("channelCacheMaxAge")) {
+            chatConfig.channelCacheMaxAge = ((Number) config.get("channelCacheMaxAge")).longValue();
+        }
+        return chatConfig;
     }
 
     public String getUrl() {
@@ -46,4 +76,31 @@ public class RocketChatConfig extends ChatConfig {
     public String getBotUserId() {
         return botUserId;
     }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public long getChannelCacheMaxAge() {
+        return channelCacheMaxAge;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RocketChatConfig)) return false;
+        RocketChatConfig other = (RocketChatConfig) o;
+        return Objects.equals(url, other.url) && Objects.equals(botAuthToken, other.botAuthToken)
+                && Objects.equals(botUserId, other.botUserId) && connectTimeout == other.connectTimeout
+                && readTimeout == other.readTimeout && channelCacheMaxAge == other.channelCacheMaxAge;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, botAuthToken, botUserId, connectTimeout, readTimeout, channelCacheMaxAge);
+    }
 }
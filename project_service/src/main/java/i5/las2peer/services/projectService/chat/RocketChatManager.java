@@ -1,18 +1,75 @@
 package i5.las2peer.services.projectService.chat;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.logging.MonitoringEvent;
 import i5.las2peer.services.projectService.project.Project;
+import i5.las2peer.services.projectService.util.IntegrationGuard;
+import i5.las2peer.services.projectService.util.RequestTrace;
+import i5.las2peer.services.projectService.util.ServiceMetrics;
 import kong.unirest.HttpResponse;
 import kong.unirest.Unirest;
+import kong.unirest.UnirestException;
+import kong.unirest.UnirestInstance;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 
 /**
  * ChatManager for RocketChat. Allows to create channels for las2peer projects.
+ *
+ * There is one manager per RocketChat configuration (see {@link #forConfig(RocketChatConfig)}). It keeps its own
+ * HTTP client, whose connections to RocketChat are pooled and reused by all requests, and caches the ids of
+ * channels, so that linking projects to the same existing channel does not need a request to RocketChat every time.
+ * If RocketChat is slow or not available, requests are rejected by an {@link IntegrationGuard} instead of blocking
+ * further threads.
  */
 public class RocketChatManager extends ChatManager {
 
+    /**
+     * Maximum number of connections to the RocketChat instance.
+     */
+    private static final int MAX_CONNECTIONS = 20;
+
+    /**
+     * Name of the integration in the {@link ServiceMetrics}.
+     */
+    private static final String METRICS_INTEGRATION = "rocketchat";
+
+    /**
+     * Managers by their configuration. Systems using the same RocketChat configuration share a manager, and the
+     * manager is kept when the systems configuration gets reloaded.
+     */
+    private static final ConcurrentHashMap<RocketChatConfig, RocketChatManager> managers = new ConcurrentHashMap<>();
+
+    private final UnirestInstance client;
+
+    private final ChannelIdCache channelIds;
+
+    private final IntegrationGuard guard;
+
     public RocketChatManager(ChatConfig config) {
         super(config);
+        RocketChatConfig rocketChatConfig = getConfig();
+        this.client = Unirest.spawnInstance();
+        this.client.config()
+                .connectTimeout(rocketChatConfig.getConnectTimeout())
+                .socketTimeout(rocketChatConfig.getReadTimeout())
+                .concurrency(MAX_CONNECTIONS, MAX_CONNECTIONS)
+                .setDefaultHeader("X-Auth-Token", rocketChatConfig.getBotAuthToken())
+                .setDefaultHeader("X-User-Id", rocketChatConfig.getBotUserId());
+        this.channelIds = new ChannelIdCache(rocketChatConfig.getChannelCacheMaxAge());
+        this.guard = IntegrationGuard.create("rocketchat " + rocketChatConfig.getUrl(), MAX_CONNECTIONS);
+    }
+
+    /**
+     * Returns the manager for the given configuration. It gets created on the first call.
+     * @param config RocketChat configuration.
+     * @return The manager for the given configuration.
+     */
+    public static RocketChatManager forConfig(RocketChatConfig config) {
+        return managers.computeIfAbsent(config, RocketChatManager::new);
     }
 
     @Override
@@ -22,20 +79,21 @@ public class RocketChatManager extends ChatManager {
         JSONObject body = new JSONObject();
         body.put("name", channelName);
 
-        HttpResponse<String> response = Unirest.post(getConfig().getUrl() + "/api/v1/channels.create")
-                .header("X-Auth-Token", getConfig().getBotAuthToken())
-                .header("X-User-Id", getConfig().getBotUserId())
-                .header("Content-Type", "application/json")
-                .body(body.toJSONString())
-                .asString();
+        HttpResponse<String> response = this.send("RocketChat channel creation", () ->
+                this.client.post(getConfig().getUrl() + "/api/v1/channels.create")
+                        .header("Content-Type", "application/json")
+                        .body(body.toJSONString())
+                        .asString());
+        if(response == null) return null;
 
         if(!response.isSuccess()) {
-            System.out.println("RocketChat channel creation failed with status code: " + response.getStatus());
+            reportError("RocketChat channel creation failed with status code: " + response.getStatus());
             return null;
         }
 
         JSONObject res = (JSONObject) JSONValue.parse(response.getBody());
         JSONObject resChannel = (JSONObject) res.get("channel");
+        this.channelIds.put(channelName, (String) resChannel.get("_id"));
 
         JSONObject channelInfo = new JSONObject();
         channelInfo.put("type", "RocketChat");
@@ -45,6 +103,28 @@ public class RocketChatManager extends ChatManager {
         return channelInfo;
     }
 
+    @Override
+    public boolean deleteProjectChannel(Project project, String systemName, JSONObject channelInfo) {
+        String channelName = project.getName().replaceAll(" ", "") + "_" + systemName;
+        this.channelIds.invalidate(channelName);
+
+        JSONObject body = new JSONObject();
+        body.put("roomId", channelInfo.get("channelId"));
+
+        HttpResponse<String> response = this.send("RocketChat channel deletion", () ->
+                this.client.post(getConfig().getUrl() + "/api/v1/channels.delete")
+                        .header("Content-Type", "application/json")
+                        .body(body.toJSONString())
+                        .asString());
+        if(response == null) return false;
+
+        if(!response.isSuccess()) {
+            reportError("RocketChat channel deletion failed with status code: " + response.getStatus());
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public JSONObject getChannelInfoForExistingChannel(String channelName) {
         String channelId = getChannelIdByName(channelName);
@@ -57,20 +137,67 @@ public class RocketChatManager extends ChatManager {
     }
 
     private String getChannelIdByName(String channelName) {
-        HttpResponse<String> response = Unirest.get(getConfig().getUrl() + "/api/v1/channels.info")
-                .header("X-Auth-Token", getConfig().getBotAuthToken())
-                .header("X-User-Id", getConfig().getBotUserId())
-                .queryString("roomName", channelName)
-                .asString();
+        String cached = this.channelIds.get(channelName);
+        if (cached != null) return cached;
+
+        HttpResponse<String> response = this.send("RocketChat channel info request", () ->
+                this.client.get(getConfig().getUrl() + "/api/v1/channels.info")
+                        .queryString("roomName", channelName)
+                        .asString());
+        if(response == null) return null;
 
         if(!response.isSuccess()) {
-            System.out.println("RocketChat channel info request failed.");
+            reportError("RocketChat channel info request failed with status code: " + response.getStatus());
             return null;
         }
 
         JSONObject res = (JSONObject) JSONValue.parse(response.getBody());
         JSONObject resChannel = (JSONObject) res.get("channel");
-        return (String) resChannel.get("_id");
+        String channelId = (String) resChannel.get("_id");
+        this.channelIds.put(channelName, channelId);
+        return channelId;
+    }
+
+    /**
+     * Sends a request to RocketChat, if the guard of this manager lets it through.
+     * @param description Description of the request, used for logging.
+     * @param request Sends the request.
+     * @return The response, or null if the request was rejected or failed.
+     */
+    private HttpResponse<String> send(String description, Supplier<HttpResponse<String>> request) {
+        long start = System.nanoTime();
+        IntegrationGuard.Permit permit = this.guard.tryAcquire();
+        if (permit == null) {
+            reportError(description + " skipped, RocketChat is not available at the moment.");
+            ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION, ServiceMetrics.OUTCOME_REJECTED, start);
+            return null;
+        }
+        String outcome = ServiceMetrics.OUTCOME_ERROR;
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.EXTERNAL_CALL)) {
+            HttpResponse<String> response = request.get();
+            permit.release(response.getStatus() < 500);
+            outcome = ServiceMetrics.outcomeOfStatus(response.getStatus());
+            return response;
+        } catch (UnirestException e) {
+            reportError(description + " failed: " + e.getMessage());
+            return null;
+        } finally {
+            // has no effect if the permit was already released
+            permit.release(false);
+            ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION, outcome, start);
+        }
+    }
+
+    /**
+     * Reports a failed request to RocketChat as a monitoring event.
+     * @param message Description of the failure.
+     */
+    private static void reportError(String message) {
+        try {
+            Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, message);
+        } catch (IllegalStateException e) {
+            // not called while the service handles a request or runs a task, thus there is no context
+        }
     }
 
     private RocketChatConfig getConfig() {
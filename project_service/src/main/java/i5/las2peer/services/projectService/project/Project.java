@@ -1,9 +1,18 @@
 package i5.las2peer.services.projectService.project;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONValue;
@@ -11,9 +20,11 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.ParseException;
 
 import i5.las2peer.api.security.Agent;
+import i5.las2peer.services.projectService.util.CompactFormat;
 import i5.las2peer.services.projectService.util.github.GitHubException;
 import i5.las2peer.services.projectService.util.github.GitHubHelper;
 import i5.las2peer.services.projectService.util.github.GitHubProject;
+import i5.las2peer.services.projectService.util.github.GitHubProjectStatus;
 
 /**
  * (Data-)Class for Projects. Provides means to convert JSON to Object and
@@ -21,6 +32,11 @@ import i5.las2peer.services.projectService.util.github.GitHubProject;
  */
 public class Project implements Serializable {
 
+	/**
+	 * Fixed to the value of the previous (implicit) version, so that stored projects can still be read.
+	 */
+	private static final long serialVersionUID = 9187780141492096094L;
+
 	/**
 	 * Name of the project.
 	 */
@@ -53,6 +69,13 @@ public class Project implements Serializable {
 	 */
 	private GitHubProject connectedGitHubProject = null;
 	
+	/**
+	 * State of the GitHub project, e.g. whether it is still being created.
+	 * Projects stored before GitHub projects were created in the background do not have a status, for them
+	 * it is derived from whether a GitHub project is connected.
+	 */
+	private GitHubProjectStatus gitHubProjectStatus = null;
+	
 	/**
 	 * Maps user agent identifiers to their GitHub username.
 	 * If the GitHub projects connection is disabled, this map might not be defined.
@@ -60,6 +83,17 @@ public class Project implements Serializable {
 	private HashMap<String, String> memberGitHubUsernames;
 
 	private JSONObject chatInfo = new JSONObject();
+	
+	/**
+	 * Parsed version of the metadata string. Built when it is needed for the first time.
+	 */
+	private transient volatile JSONObject metadataJSON;
+	
+	/**
+	 * Cached JSON representation of the project, as returned by toJSONObject().
+	 * Needs to be reset whenever one of the attributes contained in it changes.
+	 */
+	private transient volatile JSONObject projectJSON;
 
 	/**
 	 * Creates a project object from the given JSON string. This constructor should
@@ -104,6 +138,85 @@ public class Project implements Serializable {
 		this.memberGitHubUsernames = new HashMap<>();
 	}
 
+	/**
+	 * Used when reading a project in the compact format.
+	 */
+	private Project() {
+	}
+
+	/**
+	 * Writes this project in the compact format used for storing project lists
+	 * (see ProjectContainer). The metadata is stored as raw bytes, the group and user agent
+	 * identifiers are stored in the given string table.
+	 * 
+	 * @param out   Output to write to.
+	 * @param table String table of the project list.
+	 * @throws IOException If writing fails.
+	 */
+	public void writeCompact(DataOutput out, CompactFormat.StringTable table) throws IOException {
+		CompactFormat.writeString(out, this.name);
+		table.writeRef(out, this.groupName);
+		table.writeRef(out, this.groupIdentifier);
+		CompactFormat.writeBytes(out, this.metadata == null ? null : this.metadata.getBytes(StandardCharsets.UTF_8));
+		CompactFormat.writeString(out, this.chatInfo == null ? null : this.chatInfo.toJSONString());
+
+		GitHubProjectStatus status = this.getGitHubProjectStatus();
+		out.writeByte(status == null ? 0 : status.getCode());
+		if (this.gitHubProjectConnected()) {
+			out.writeInt(this.connectedGitHubProject.getId());
+			CompactFormat.writeString(out, this.connectedGitHubProject.getUrl());
+		}
+
+		if (this.memberGitHubUsernames == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(this.memberGitHubUsernames.size());
+			for (String userId : this.memberGitHubUsernames.keySet()) {
+				table.writeRef(out, userId);
+				CompactFormat.writeString(out, this.memberGitHubUsernames.get(userId));
+			}
+		}
+	}
+
+	/**
+	 * Reads a project written by {@link #writeCompact(DataOutput, CompactFormat.StringTable)}.
+	 * 
+	 * @param in    Input to read from.
+	 * @param table String table of the project list.
+	 * @return The project.
+	 * @throws IOException If reading fails.
+	 */
+	public static Project readCompact(DataInput in, CompactFormat.StringTable table) throws IOException {
+		Project project = new Project();
+		project.name = CompactFormat.readString(in);
+		project.groupName = table.readRef(in);
+		project.groupIdentifier = table.readRef(in);
+		byte[] metadata = CompactFormat.readBytes(in);
+		project.metadata = metadata == null ? null : new String(metadata, StandardCharsets.UTF_8);
+		String chatInfo = CompactFormat.readString(in);
+		project.chatInfo = chatInfo == null ? null : (JSONObject) JSONValue.parse(chatInfo);
+
+		try {
+			project.gitHubProjectStatus = GitHubProjectStatus.fromCode(in.readByte());
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+		if (project.gitHubProjectStatus == GitHubProjectStatus.CREATED) {
+			int id = in.readInt();
+			project.connectedGitHubProject = new GitHubProject(id, CompactFormat.readString(in));
+		}
+
+		int usernameCount = in.readInt();
+		if (usernameCount >= 0) {
+			project.memberGitHubUsernames = new HashMap<>();
+			for (int i = 0; i < usernameCount; i++) {
+				String userId = table.readRef(in);
+				project.memberGitHubUsernames.put(userId, CompactFormat.readString(in));
+			}
+		}
+		return project;
+	}
+
 	/**
 	 * Checks if the given JSONObject contains the given key. If key does not exist,
 	 * then a ParseException is thrown.
@@ -127,6 +240,7 @@ public class Project implements Serializable {
 	public void changeGroup(String groupIdentifier, String groupName) {
 		this.groupIdentifier = groupIdentifier;
 		this.groupName = groupName;
+		this.projectJSON = null;
 	}
 
 	/**
@@ -136,28 +250,44 @@ public class Project implements Serializable {
 	 */
 	public void changeMetadata(String newMetadata) {
 		this.metadata = newMetadata;
+		this.metadataJSON = null;
+		this.projectJSON = null;
 	}
 
 	/**
 	 * Returns the JSON representation of this project.
+	 * The representation is cached, thus the returned object is a (shallow) copy of the cached one.
+	 * Nested objects such as the metadata must not be modified.
 	 * 
 	 * @return a JSON object representing a project
 	 */
 	@SuppressWarnings("unchecked")
 	public JSONObject toJSONObject() {
-		JSONObject jsonProject = new JSONObject();
+		JSONObject jsonProject = this.projectJSON;
+		if (jsonProject == null) {
+			jsonProject = new JSONObject();
 
-		// put attributes
-		jsonProject.put("name", this.name);
-		jsonProject.put("groupName", this.groupName);
-		jsonProject.put("groupIdentifier", this.groupIdentifier);
-		jsonProject.put("metadata", this.getMetadataAsJSONObject());
-		if(this.gitHubProjectConnected()) {
-			jsonProject.put("gitHubProject", this.connectedGitHubProject.toJSONObject());
+			// put attributes
+			jsonProject.put("name", this.name);
+			jsonProject.put("groupName", this.groupName);
+			jsonProject.put("groupIdentifier", this.groupIdentifier);
+			jsonProject.put("metadata", this.getParsedMetadata());
+			GitHubProjectStatus gitHubStatus = this.getGitHubProjectStatus();
+			if(this.gitHubProjectConnected()) {
+				JSONObject gitHubProjectJSON = this.connectedGitHubProject.toJSONObject();
+				gitHubProjectJSON.put("status", gitHubStatus.getValue());
+				jsonProject.put("gitHubProject", gitHubProjectJSON);
+			} else if(gitHubStatus != null) {
+				// GitHub project is still being created (or creating it failed)
+				JSONObject gitHubProjectJSON = new JSONObject();
+				gitHubProjectJSON.put("status", gitHubStatus.getValue());
+				jsonProject.put("gitHubProject", gitHubProjectJSON);
+			}
+			jsonProject.put("chatInfo", this.chatInfo);
+			this.projectJSON = jsonProject;
 		}
-		jsonProject.put("chatInfo", this.chatInfo);
 
-		return jsonProject;
+		return new JSONObject(jsonProject);
 	}
 	
 	/**
@@ -166,7 +296,42 @@ public class Project implements Serializable {
 	 * @throws GitHubException If the project creation on GitHub failed.
 	 */
 	public void createGitHubProject(String systemName) throws GitHubException {
-		this.connectedGitHubProject = GitHubHelper.getInstance().createPublicGitHubProject(systemName, this.getName());
+		this.setConnectedGitHubProject(GitHubHelper.getInstance().createPublicGitHubProject(systemName, this.getName()));
+	}
+	
+	/**
+	 * Marks that the GitHub project of this project is being created in the background.
+	 */
+	public void setGitHubProjectPending() {
+		this.gitHubProjectStatus = GitHubProjectStatus.PENDING;
+		this.projectJSON = null;
+	}
+	
+	/**
+	 * Marks that creating the GitHub project of this project failed.
+	 */
+	public void setGitHubProjectFailed() {
+		this.gitHubProjectStatus = GitHubProjectStatus.FAILED;
+		this.projectJSON = null;
+	}
+	
+	/**
+	 * Connects the given (newly created) GitHub project to this project.
+	 * @param gitHubProject GitHub project that got created for this project.
+	 */
+	public void setConnectedGitHubProject(GitHubProject gitHubProject) {
+		this.connectedGitHubProject = gitHubProject;
+		this.gitHubProjectStatus = GitHubProjectStatus.CREATED;
+		this.projectJSON = null;
+	}
+	
+	/**
+	 * Returns the state of the GitHub project of this project.
+	 * @return State of the GitHub project, or null if there is no GitHub project for this project.
+	 */
+	public GitHubProjectStatus getGitHubProjectStatus() {
+		if (this.gitHubProjectStatus == null && this.gitHubProjectConnected()) return GitHubProjectStatus.CREATED;
+		return this.gitHubProjectStatus;
 	}
 	
 	/**
@@ -222,7 +387,23 @@ public class Project implements Serializable {
 	 * @return Project metadata converted to JSONObject.
 	 */
 	public JSONObject getMetadataAsJSONObject() {
-		return (JSONObject) JSONValue.parse(this.metadata);
+		JSONObject parsed = this.getParsedMetadata();
+		return parsed == null ? null : new JSONObject(parsed);
+	}
+	
+	/**
+	 * Returns the parsed metadata, which gets parsed when it is needed for the first time.
+	 * The returned object is shared and must not be modified.
+	 * 
+	 * @return Project metadata converted to JSONObject.
+	 */
+	private JSONObject getParsedMetadata() {
+		JSONObject parsed = this.metadataJSON;
+		if (parsed == null) {
+			parsed = (JSONObject) JSONValue.parse(this.metadata);
+			this.metadataJSON = parsed;
+		}
+		return parsed;
 	}
 	
 	/**
@@ -255,6 +436,36 @@ public class Project implements Serializable {
 		this.memberGitHubUsernames.put(userAgent.getIdentifier(), gitHubUsername);
 	}
 	
+	/**
+	 * Returns the stored GitHub usernames of the project members.
+	 * @return GitHub usernames of the members that sent their GitHub username.
+	 */
+	public List<String> getMemberGitHubUsernames() {
+		if (this.memberGitHubUsernames == null) return new ArrayList<>();
+		return new ArrayList<>(this.memberGitHubUsernames.values());
+	}
+	
+	/**
+	 * Returns the stored GitHub usernames of the project members by the agent identifiers of the members.
+	 * @return Map from agent identifiers to GitHub usernames (a copy).
+	 */
+	public Map<String, String> getMemberGitHubUsernamesByUser() {
+		if (this.memberGitHubUsernames == null) return new HashMap<>();
+		return new HashMap<>(this.memberGitHubUsernames);
+	}
+	
+	/**
+	 * Removes the stored GitHub username of the given user, if it is still the given username.
+	 * Does not remove the access to the GitHub project, this needs to be done by the caller.
+	 * @param userId Agent identifier of the user.
+	 * @param gitHubUsername GitHub username that should be removed.
+	 * @return Whether the username got removed.
+	 */
+	public boolean removeGitHubUsername(String userId, String gitHubUsername) {
+		if (this.memberGitHubUsernames == null) return false;
+		return this.memberGitHubUsernames.remove(userId, gitHubUsername);
+	}
+	
 	/**
 	 * Checks if a user that is no group member anymore still has access to the GitHub project.
 	 * In this case, access will be removed.
@@ -264,34 +475,42 @@ public class Project implements Serializable {
 	 * @throws GitHubException If something with the communication with GitHub went wrong.
 	 */
 	public boolean removeNonGroupMembersGitHubAccess(String system, String[] groupMemberIds) throws GitHubException {
-		boolean changed = false;
-		List<String> ghProjectMemberUserIds = new ArrayList<>();
-		for(String userId : this.memberGitHubUsernames.keySet()) {
-			ghProjectMemberUserIds.add(userId);
+		List<String> removedUsernames = this.removeNonGroupMembersGitHubUsernames(groupMemberIds);
+		// if the GitHub project is not created yet, no one has access to it
+		if(!this.gitHubProjectConnected()) return !removedUsernames.isEmpty();
+		for(String username : removedUsernames) {
+			// user left the group
+			// remove access to GitHub project
+			GitHubHelper.getInstance().removeUserAccessToProject(system, username, this.connectedGitHubProject);
 		}
-		
-		for(String userId : ghProjectMemberUserIds) {
+		return !removedUsernames.isEmpty();
+	}
+	
+	/**
+	 * Removes the stored GitHub usernames of users that are no group members anymore.
+	 * Does not remove their access to the GitHub project, this needs to be done by the caller.
+	 * @param groupMemberIds Array containing the agent ids of the current group members.
+	 * @return GitHub usernames of the users that are no group members anymore.
+	 */
+	public List<String> removeNonGroupMembersGitHubUsernames(String[] groupMemberIds) {
+		List<String> removedUsernames = new ArrayList<>();
+		if(this.memberGitHubUsernames == null) return removedUsernames;
+		Set<String> memberIds = new HashSet<>(Arrays.asList(groupMemberIds));
+		Iterator<Map.Entry<String, String>> entries = this.memberGitHubUsernames.entrySet().iterator();
+		while(entries.hasNext()) {
+			Map.Entry<String, String> entry = entries.next();
 			// check if the user is still a member of the group
-			boolean stillMember = false;
-			for(String groupMemberId : groupMemberIds) {
-				if(groupMemberId.equals(userId)) {
-					stillMember = true;
-					break;
-				}
-			}
-			if(!stillMember) {
+			if(!memberIds.contains(entry.getKey())) {
 				// user left the group
-				// remove access to GitHub project
-				String username = this.memberGitHubUsernames.get(userId);
-				this.memberGitHubUsernames.remove(userId);
-				GitHubHelper.getInstance().removeUserAccessToProject(system, username, this.connectedGitHubProject);
-				changed = true;
+				removedUsernames.add(entry.getValue());
+				entries.remove();
 			}
 		}
-		return changed;
+		return removedUsernames;
 	}
 
 	public void setChatInfo(JSONObject chatInfo) {
 		this.chatInfo = chatInfo;
+		this.projectJSON = null;
 	}
 }
@@ -0,0 +1,159 @@
+package i5.las2peer.services.projectService.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Helper methods for the compact binary format used to store project lists in envelopes.
+ * Strings are written as length-prefixed UTF-8 bytes (a length of -1 stands for null). Strings that
+ * occur many times (such as group identifiers) are only stored once in a {@link StringTable} and are
+ * referenced by their index.
+ */
+public final class CompactFormat {
+
+	private CompactFormat() {
+	}
+
+	/**
+	 * Writes the given string as length-prefixed UTF-8 bytes.
+	 * @param out Output to write to.
+	 * @param value String to write, may be null.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeString(DataOutput out, String value) throws IOException {
+		writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutput, String)}.
+	 * @param in Input to read from.
+	 * @return The string, may be null.
+	 * @throws IOException If reading fails.
+	 */
+	public static String readString(DataInput in) throws IOException {
+		byte[] bytes = readBytes(in);
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the given bytes prefixed with their length.
+	 * @param out Output to write to.
+	 * @param bytes Bytes to write, may be null.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads bytes written by {@link #writeBytes(DataOutput, byte[])}.
+	 * @param in Input to read from.
+	 * @return The bytes, may be null.
+	 * @throws IOException If reading fails or the length is invalid.
+	 */
+	public static byte[] readBytes(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) return null;
+		if (length < 0) throw new IOException("Invalid length " + length);
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Table of strings that are referenced by their index.
+	 * When writing, strings are added to the table on first use. When reading, the table is read first
+	 * and indices are resolved to the strings.
+	 */
+	public static class StringTable {
+		private final List<String> strings = new ArrayList<>();
+		private final HashMap<String, Integer> indices = new HashMap<>();
+
+		/**
+		 * Returns the index of the given string, adding it to the table if needed.
+		 * @param value String, may be null.
+		 * @return Index of the string, or -1 for null.
+		 */
+		public int indexOf(String value) {
+			if (value == null) return -1;
+			Integer index = this.indices.get(value);
+			if (index == null) {
+				index = this.strings.size();
+				this.strings.add(value);
+				this.indices.put(value, index);
+			}
+			return index;
+		}
+
+		/**
+		 * Returns the string with the given index.
+		 * @param index Index of the string, or -1 for null.
+		 * @return The string, may be null.
+		 * @throws IOException If there is no string with the given index.
+		 */
+		public String get(int index) throws IOException {
+			if (index == -1) return null;
+			if (index < 0 || index >= this.strings.size()) throw new IOException("Invalid string index " + index);
+			return this.strings.get(index);
+		}
+
+		/**
+		 * Writes the index of the given string, adding it to the table if needed.
+		 * @param out Output to write to.
+		 * @param value String, may be null.
+		 * @throws IOException If writing fails.
+		 */
+		public void writeRef(DataOutput out, String value) throws IOException {
+			out.writeInt(this.indexOf(value));
+		}
+
+		/**
+		 * Reads an index written by {@link #writeRef(DataOutput, String)} and returns the string.
+		 * @param in Input to read from.
+		 * @return The string, may be null.
+		 * @throws IOException If reading fails or the index is invalid.
+		 */
+		public String readRef(DataInput in) throws IOException {
+			return this.get(in.readInt());
+		}
+
+		/**
+		 * Writes all strings of the table.
+		 * @param out Output to write to.
+		 * @throws IOException If writing fails.
+		 */
+		public void writeTo(DataOutput out) throws IOException {
+			out.writeInt(this.strings.size());
+			for (String value : this.strings) {
+				writeString(out, value);
+			}
+		}
+
+		/**
+		 * Reads a table written by {@link #writeTo(DataOutput)}.
+		 * @param in Input to read from.
+		 * @return The string table.
+		 * @throws IOException If reading fails.
+		 */
+		public static StringTable readFrom(DataInput in) throws IOException {
+			StringTable table = new StringTable();
+			int size = in.readInt();
+			if (size < 0) throw new IOException("Invalid string table size " + size);
+			for (int i = 0; i < size; i++) {
+				table.indexOf(readString(in));
+			}
+			return table;
+		}
+	}
+
+}
@@ -0,0 +1,313 @@
+package i5.las2peer.services.projectService.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Protects the service from an external integration (GitHub, RocketChat or an event listener service) that is slow
+ * or unavailable.
+ *
+ * The guard combines a bulkhead and a circuit breaker:
+ * <ul>
+ * <li>The bulkhead limits the number of concurrent calls to the integration. Calls exceeding the limit are rejected
+ * immediately instead of blocking another thread.</li>
+ * <li>The circuit breaker records the results of the last calls. If too many of them failed, the circuit opens and
+ * all calls are rejected for some time. Afterwards, a single probe call is let through: if it succeeds, the circuit
+ * closes again, otherwise it stays open.</li>
+ * </ul>
+ *
+ * Every call needs to get a {@link Permit} using {@link #tryAcquire()} and release it with the result of the call.
+ * All guards are registered by their name and can be listed using {@link #getAll()}.
+ */
+public class IntegrationGuard {
+
+	/**
+	 * State of the circuit breaker.
+	 */
+	public enum State {
+		/**
+		 * Calls are let through.
+		 */
+		CLOSED,
+		/**
+		 * Calls are rejected, since too many calls failed.
+		 */
+		OPEN,
+		/**
+		 * A probe call is let through to check whether the integration recovered.
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * Number of recent calls whose results are used to compute the failure rate.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+
+	/**
+	 * Minimum number of recorded calls before the circuit may open.
+	 */
+	public static final int DEFAULT_MIN_CALLS = 10;
+
+	/**
+	 * Failure rate (in percent) at which the circuit opens.
+	 */
+	public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+
+	/**
+	 * Time (in milliseconds) that the circuit stays open before a probe call is let through.
+	 */
+	public static final long DEFAULT_OPEN_DURATION = 30 * 1000;
+
+	/**
+	 * Guards by their name.
+	 */
+	private static final ConcurrentHashMap<String, IntegrationGuard> guards = new ConcurrentHashMap<>();
+
+	/**
+	 * Listeners that get notified when the state of a guard changes.
+	 */
+	private static final CopyOnWriteArrayList<Consumer<IntegrationGuard>> stateListeners = new CopyOnWriteArrayList<>();
+
+	private final String name;
+	private final int maxConcurrentCalls;
+	private final Semaphore bulkhead;
+	private final int minCalls;
+	private final int failureRateThreshold;
+	private final long openDuration;
+	private final LongSupplier clock;
+
+	/**
+	 * Results of the last calls (true if the call failed), used as a ring buffer.
+	 */
+	private final boolean[] window;
+	private int windowPosition = 0;
+	private int recordedCalls = 0;
+	private int recordedFailures = 0;
+
+	private State state = State.CLOSED;
+
+	/**
+	 * Time (in milliseconds) at which the circuit opened.
+	 */
+	private long openedAt = 0;
+
+	/**
+	 * Whether the probe call of the half-open circuit is running.
+	 */
+	private boolean probeRunning = false;
+
+	private final AtomicLong rejectedCalls = new AtomicLong();
+	private final AtomicLong failedCalls = new AtomicLong();
+
+	/**
+	 * Creates a guard using the default circuit breaker settings and registers it.
+	 * @param name Name of the integration, used in the monitoring output.
+	 * @param maxConcurrentCalls Maximum number of concurrent calls to the integration.
+	 * @return The guard.
+	 */
+	public static IntegrationGuard create(String name, int maxConcurrentCalls) {
+		IntegrationGuard guard = new IntegrationGuard(name, maxConcurrentCalls, DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CALLS,
+				DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION, System::currentTimeMillis);
+		guards.put(name, guard);
+		return guard;
+	}
+
+	IntegrationGuard(String name, int maxConcurrentCalls, int windowSize, int minCalls, int failureRateThreshold,
+			long openDuration, LongSupplier clock) {
+		this.name = name;
+		this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+		this.bulkhead = new Semaphore(this.maxConcurrentCalls);
+		this.window = new boolean[Math.max(1, windowSize)];
+		this.minCalls = Math.max(1, Math.min(minCalls, this.window.length));
+		this.failureRateThreshold = failureRateThreshold;
+		this.openDuration = openDuration;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns all registered guards.
+	 * @return Guards sorted by name.
+	 */
+	public static List<IntegrationGuard> getAll() {
+		List<IntegrationGuard> all = new ArrayList<>(guards.values());
+		all.sort((a, b) -> a.name.compareTo(b.name));
+		return all;
+	}
+
+	/**
+	 * Adds a listener that gets notified whenever the state of a guard changes.
+	 * @param listener Listener, called with the guard whose state changed.
+	 */
+	public static void addStateListener(Consumer<IntegrationGuard> listener) {
+		stateListeners.add(listener);
+	}
+
+	/**
+	 * Tries to get a permit for calling the integration.
+	 * @return The permit, or null if the call is rejected (because the circuit is open or too many calls are
+	 *         running).
+	 */
+	public Permit tryAcquire() {
+		Permit permit = null;
+		State changedTo = null;
+		synchronized (this) {
+			if (this.state == State.OPEN && this.clock.getAsLong() - this.openedAt >= this.openDuration) {
+				this.state = State.HALF_OPEN;
+				changedTo = this.state;
+			}
+			boolean probe = this.state == State.HALF_OPEN;
+			if (this.state != State.OPEN && !(probe && this.probeRunning) && this.bulkhead.tryAcquire()) {
+				if (probe) this.probeRunning = true;
+				permit = new Permit(probe);
+			}
+		}
+		if (permit == null) this.rejectedCalls.incrementAndGet();
+		this.notifyIfChanged(changedTo);
+		return permit;
+	}
+
+	/**
+	 * Records the result of a call.
+	 */
+	private void release(boolean probe, boolean success) {
+		this.bulkhead.release();
+		if (!success) this.failedCalls.incrementAndGet();
+		State changedTo = null;
+		synchronized (this) {
+			if (probe) {
+				this.probeRunning = false;
+				this.resetWindow();
+				this.changeState(success ? State.CLOSED : State.OPEN);
+				changedTo = this.state;
+			} else if (this.state == State.CLOSED) {
+				this.record(!success);
+				if (this.recordedCalls >= this.minCalls
+						&& this.recordedFailures * 100 >= this.failureRateThreshold * this.recordedCalls) {
+					this.resetWindow();
+					this.changeState(State.OPEN);
+					changedTo = this.state;
+				}
+			}
+		}
+		this.notifyIfChanged(changedTo);
+	}
+
+	private void record(boolean failed) {
+		if (this.recordedCalls == this.window.length) {
+			// overwrite the oldest result
+			if (this.window[this.windowPosition]) this.recordedFailures--;
+		} else {
+			this.recordedCalls++;
+		}
+		this.window[this.windowPosition] = failed;
+		if (failed) this.recordedFailures++;
+		this.windowPosition = (this.windowPosition + 1) % this.window.length;
+	}
+
+	private void resetWindow() {
+		this.windowPosition = 0;
+		this.recordedCalls = 0;
+		this.recordedFailures = 0;
+	}
+
+	private void changeState(State state) {
+		this.state = state;
+		if (state == State.OPEN) this.openedAt = this.clock.getAsLong();
+	}
+
+	private void notifyIfChanged(State changedTo) {
+		if (changedTo == null) return;
+		// the state change is reported by the listeners (see IntegrationMonitor)
+		for (Consumer<IntegrationGuard> listener : stateListeners) {
+			try {
+				listener.accept(this);
+			} catch (RuntimeException e) {
+				// a failing listener must neither affect the other listeners nor the call of the integration
+			}
+		}
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * Returns the time until calls are let through again.
+	 * @return Remaining time (in milliseconds) that the circuit stays open, or 0 if calls are let through.
+	 */
+	public synchronized long getRetryAfter() {
+		if (this.state != State.OPEN) return 0;
+		return Math.max(0, this.openedAt + this.openDuration - this.clock.getAsLong());
+	}
+
+	public int getMaxConcurrentCalls() {
+		return this.maxConcurrentCalls;
+	}
+
+	/**
+	 * Returns the number of calls that are currently running.
+	 * @return Number of running calls.
+	 */
+	public int getActiveCalls() {
+		return this.maxConcurrentCalls - this.bulkhead.availablePermits();
+	}
+
+	/**
+	 * Returns the number of calls that got rejected since the guard was created.
+	 * @return Number of rejected calls.
+	 */
+	public long getRejectedCalls() {
+		return this.rejectedCalls.get();
+	}
+
+	/**
+	 * Returns the number of calls that failed since the guard was created.
+	 * @return Number of failed calls.
+	 */
+	public long getFailedCalls() {
+		return this.failedCalls.get();
+	}
+
+	@Override
+	public String toString() {
+		return this.name + " (state: " + this.getState() + ", active calls: " + this.getActiveCalls() + "/"
+				+ this.maxConcurrentCalls + ", rejected calls: " + this.getRejectedCalls() + ", failed calls: "
+				+ this.getFailedCalls() + ")";
+	}
+
+	/**
+	 * Permit for a single call to the integration. Needs to be released once the call is finished.
+	 */
+	public class Permit {
+		private final boolean probe;
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		private Permit(boolean probe) {
+			this.probe = probe;
+		}
+
+		/**
+		 * Releases the permit. Calling this more than once has no effect.
+		 * @param success Whether the call succeeded. Failures are only calls where the integration was not
+		 *        available or did not work correctly, not calls that were rejected because of invalid input.
+		 */
+		public void release(boolean success) {
+			if (this.released.compareAndSet(false, true)) {
+				IntegrationGuard.this.release(this.probe, success);
+			}
+		}
+	}
+
+}
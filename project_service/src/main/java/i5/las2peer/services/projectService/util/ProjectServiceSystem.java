@@ -3,6 +3,7 @@ package i5.las2peer.services.projectService.util;
 import i5.las2peer.services.projectService.chat.ChatManager;
 import i5.las2peer.services.projectService.chat.RocketChatConfig;
 import i5.las2peer.services.projectService.chat.RocketChatManager;
+import i5.las2peer.services.projectService.util.github.GitHubProvisioningBackend;
 import org.json.simple.JSONObject;
 
 import i5.las2peer.services.projectService.ProjectService;
@@ -21,6 +22,7 @@ public class ProjectServiceSystem {
 	private static final String JSON_KEY_GITHUB_PROJECTS_ENABLED = "gitHubProjectsEnabled";
     private static final String JSON_KEY_GITHUB_ORGANIZATION = "gitHubOrganization";
     private static final String JSON_KEY_GITHUB_PERSONAL_ACCESS_TOKEN = "gitHubPersonalAccessToken";
+    private static final String JSON_KEY_GITHUB_PROVISIONING_BACKEND = "gitHubProvisioningBackend";
 
 	private static final String JSON_KEY_ROCKET_CHAT_CONFIG = "rocketchat";
 	
@@ -59,6 +61,11 @@ public class ProjectServiceSystem {
 	 */
 	private String gitHubPersonalAccessToken;
 
+	/**
+	 * API that is used to set up new GitHub projects (visibility and columns).
+	 */
+	private GitHubProvisioningBackend gitHubProvisioningBackend = GitHubProvisioningBackend.REST;
+
 	private RocketChatConfig rocketChatConfig = null;
 	
 	public ProjectServiceSystem(String systemName, JSONObject systemJSON) {
@@ -80,6 +87,10 @@ public class ProjectServiceSystem {
 			this.gitHubProjectsEnabled = (boolean) systemJSON.get(JSON_KEY_GITHUB_PROJECTS_ENABLED);
 			this.gitHubOrganization = (String) systemJSON.get(JSON_KEY_GITHUB_ORGANIZATION);
 			this.gitHubPersonalAccessToken = (String) systemJSON.get(JSON_KEY_GITHUB_PERSONAL_ACCESS_TOKEN);
+			if (systemJSON.containsKey(JSON_KEY_GITHUB_PROVISIONING_BACKEND)) {
+				this.gitHubProvisioningBackend = GitHubProvisioningBackend
+						.fromValue((String) systemJSON.get(JSON_KEY_GITHUB_PROVISIONING_BACKEND));
+			}
 		}
 		
 		if(systemJSON.containsKey(JSON_KEY_ROCKET_CHAT_CONFIG)) {
@@ -118,6 +129,10 @@ public class ProjectServiceSystem {
 		return this.gitHubPersonalAccessToken;
 	}
 
+	public GitHubProvisioningBackend getGitHubProvisioningBackend() {
+		return this.gitHubProvisioningBackend;
+	}
+
 	public RocketChatConfig getRocketChatConfig() {
 		return rocketChatConfig;
 	}
@@ -126,7 +141,12 @@ public class ProjectServiceSystem {
 		return this.rocketChatConfig != null;
 	}
 
+	/**
+	 * Returns the chat manager of the system. The manager (and its HTTP client) is shared by all requests.
+	 * @return Chat manager, or null if the channel connection is not enabled.
+	 */
 	public ChatManager getChatManager() {
-		return new RocketChatManager(this.rocketChatConfig);
+		if (this.rocketChatConfig == null) return null;
+		return RocketChatManager.forConfig(this.rocketChatConfig);
 	}
 }
@@ -0,0 +1,185 @@
+package i5.las2peer.services.projectService.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Lightweight trace of a single request, which records how much time the request spent in the different phases
+ * (e.g., fetching envelopes or calling GitHub).
+ *
+ * The trace of the current request is kept in a thread local variable, thus the code measuring a phase does not
+ * need to know the request: it opens a {@link Span} using {@link #span(String)} and closes it afterwards. If no
+ * trace is active on the thread, spans are not recorded.
+ *
+ * Spans may be nested (e.g., the membership check requests the group agent). Only the outermost span of a thread is
+ * recorded, so that the time is not counted twice. Tasks that run on other threads for the request can be wrapped
+ * using {@link #wrap(Supplier)}. Their phases are added to the same trace, thus the sum of the phases may exceed the
+ * duration of the request if tasks run in parallel.
+ */
+public class RequestTrace {
+
+	public static final String SERVICE_GROUP_AGENT = "serviceGroupAgent";
+	public static final String ENVELOPE_FETCH = "envelopeFetch";
+	public static final String ENVELOPE_STORE = "envelopeStore";
+	public static final String AGENT_REQUEST = "agentRequest";
+	public static final String MEMBERSHIP_CHECK = "membershipCheck";
+	public static final String EXTERNAL_CALL = "externalCall";
+	public static final String EVENT_DISPATCH = "eventDispatch";
+	public static final String SERIALIZATION = "serialization";
+
+	private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+
+	/**
+	 * Number of open spans on the thread.
+	 */
+	private static final ThreadLocal<int[]> openSpans = ThreadLocal.withInitial(() -> new int[1]);
+
+	/**
+	 * Span that is returned if no trace is active.
+	 */
+	private static final Span NO_SPAN = new Span(null, null);
+
+	private final long start = System.nanoTime();
+
+	/**
+	 * Time (in nanoseconds) spent in every phase.
+	 */
+	private final ConcurrentSkipListMap<String, LongAdder> phases = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Starts a new trace for the request handled by the current thread.
+	 * @return The new trace.
+	 */
+	public static RequestTrace begin() {
+		RequestTrace trace = new RequestTrace();
+		current.set(trace);
+		openSpans.get()[0] = 0;
+		return trace;
+	}
+
+	/**
+	 * Ends the trace of the current thread.
+	 * @return The trace, or null if no trace was active.
+	 */
+	public static RequestTrace end() {
+		RequestTrace trace = current.get();
+		current.remove();
+		return trace;
+	}
+
+	/**
+	 * Opens a span for the given phase. Needs to be closed once the phase is finished, preferably using
+	 * try-with-resources.
+	 * @param phase Name of the phase, e.g. {@link #ENVELOPE_FETCH}.
+	 * @return The span.
+	 */
+	public static Span span(String phase) {
+		RequestTrace trace = current.get();
+		if (trace == null) return NO_SPAN;
+		return new Span(trace, phase);
+	}
+
+	/**
+	 * Adds the given time to a phase of the current trace, unless a span is open on the thread.
+	 * @param phase Name of the phase.
+	 * @param nanos Time in nanoseconds.
+	 */
+	public static void record(String phase, long nanos) {
+		RequestTrace trace = current.get();
+		if (trace != null && openSpans.get()[0] == 0) trace.add(phase, nanos);
+	}
+
+	/**
+	 * Wraps a task, so that its spans are recorded in the trace of the current thread when it runs on another
+	 * thread.
+	 * @param <T> Result type of the task.
+	 * @param task The task.
+	 * @return The wrapped task, or the task itself if no trace is active.
+	 */
+	public static <T> Supplier<T> wrap(Supplier<T> task) {
+		RequestTrace trace = current.get();
+		if (trace == null) return task;
+		return () -> {
+			RequestTrace previous = current.get();
+			int[] spans = openSpans.get();
+			int previousSpans = spans[0];
+			current.set(trace);
+			spans[0] = 0;
+			try {
+				return task.get();
+			} finally {
+				spans[0] = previousSpans;
+				if (previous == null) {
+					current.remove();
+				} else {
+					current.set(previous);
+				}
+			}
+		};
+	}
+
+	private void add(String phase, long nanos) {
+		this.phases.computeIfAbsent(phase, p -> new LongAdder()).add(nanos);
+	}
+
+	/**
+	 * Returns the time since the trace started.
+	 * @return Duration in milliseconds.
+	 */
+	public long getDurationMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start);
+	}
+
+	/**
+	 * Returns the trace as a JSONObject containing the endpoint, the status code, the duration and the time spent in
+	 * every phase (in milliseconds).
+	 * @param endpoint Name of the endpoint.
+	 * @param status Status code of the response.
+	 * @return The trace as JSONObject.
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSONObject(String endpoint, int status) {
+		JSONObject json = new JSONObject();
+		json.put("endpoint", endpoint);
+		json.put("status", status);
+		json.put("durationMs", this.getDurationMillis());
+		JSONObject phasesJSON = new JSONObject();
+		for (Map.Entry<String, LongAdder> phase : this.phases.entrySet()) {
+			phasesJSON.put(phase.getKey(), phase.getValue().sum() / 1_000_000.0);
+		}
+		json.put("phasesMs", phasesJSON);
+		return json;
+	}
+
+	/**
+	 * Time spent in a phase. Only the outermost span of a thread is recorded.
+	 */
+	public static class Span implements AutoCloseable {
+		private final RequestTrace trace;
+		private final String phase;
+		private final long start;
+		private final boolean outermost;
+		private boolean closed = false;
+
+		private Span(RequestTrace trace, String phase) {
+			this.trace = trace;
+			this.phase = phase;
+			this.start = trace == null ? 0 : System.nanoTime();
+			this.outermost = trace != null && openSpans.get()[0]++ == 0;
+		}
+
+		@Override
+		public void close() {
+			if (this.trace == null || this.closed) return;
+			this.closed = true;
+			openSpans.get()[0]--;
+			if (this.outermost) this.trace.add(this.phase, System.nanoTime() - this.start);
+		}
+	}
+
+}
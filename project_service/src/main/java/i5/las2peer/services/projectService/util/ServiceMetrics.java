@@ -0,0 +1,300 @@
+package i5.las2peer.services.projectService.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import i5.las2peer.services.projectService.util.github.GitHubHelper;
+
+/**
+ * Collects the metrics of the project service on this node and renders them in the Prometheus text format
+ * (returned by GET /projects/metrics).
+ *
+ * Besides the handled requests, the metrics cover the calls that a request is waiting for: envelope operations,
+ * agent operations, calls of external integrations (GitHub, RocketChat, event listener services) and the
+ * serialization of projects. Thus, it can be seen which part causes slow requests.
+ */
+public class ServiceMetrics {
+
+	/**
+	 * Upper bounds (in seconds) of the buckets of the latency histograms.
+	 */
+	private static final double[] LATENCY_BUCKETS = { 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5,
+			10, 30 };
+
+	public static final String OUTCOME_SUCCESS = "success";
+	public static final String OUTCOME_NOT_FOUND = "not_found";
+	public static final String OUTCOME_ACCESS_DENIED = "access_denied";
+	public static final String OUTCOME_CLIENT_ERROR = "client_error";
+	public static final String OUTCOME_ERROR = "error";
+	public static final String OUTCOME_REJECTED = "rejected";
+
+	private final Counter requests = new Counter("project_service_requests_total",
+			"Number of handled requests by endpoint and status code.", "endpoint", "status");
+	private final Histogram requestDuration = new Histogram("project_service_request_duration_seconds",
+			"Duration of handled requests by endpoint.", "endpoint");
+	private final Histogram envelopeDuration = new Histogram("project_service_envelope_operation_duration_seconds",
+			"Duration of envelope operations (request, create, store) by outcome.", "operation", "outcome");
+	private final Histogram agentDuration = new Histogram("project_service_agent_operation_duration_seconds",
+			"Duration of agent operations (requestAgent, fetchAgent) by outcome.", "operation", "outcome");
+	private final Histogram externalCallDuration = new Histogram("project_service_external_call_duration_seconds",
+			"Duration of calls of external integrations (github, rocketchat, event_listener) by outcome.",
+			"integration", "outcome");
+	private final Histogram serializationDuration = new Histogram("project_service_serialization_duration_seconds",
+			"Time spent converting projects to JSON by operation.", "operation");
+	private final Counter events = new Counter("project_service_events_total",
+			"Number of project events by result (stored, delivered, failed, dropped).", "result");
+
+	private static final ServiceMetrics instance = new ServiceMetrics();
+
+	ServiceMetrics() {
+	}
+
+	public static ServiceMetrics getInstance() {
+		return ServiceMetrics.instance;
+	}
+
+	/**
+	 * Records a handled request.
+	 * @param endpoint Name of the endpoint (method of the service).
+	 * @param status Status code of the response.
+	 * @param startNanos Value of System.nanoTime() when the request started.
+	 */
+	public void recordRequest(String endpoint, int status, long startNanos) {
+		this.requests.increment(1, endpoint, String.valueOf(status));
+		this.requestDuration.observe(startNanos, endpoint);
+	}
+
+	/**
+	 * Records an envelope operation.
+	 * @param operation Name of the operation (request, create or store).
+	 * @param outcome Outcome of the operation, one of the OUTCOME_ constants.
+	 * @param startNanos Value of System.nanoTime() when the operation started.
+	 */
+	public void recordEnvelopeOperation(String operation, String outcome, long startNanos) {
+		this.envelopeDuration.observe(startNanos, operation, outcome);
+	}
+
+	/**
+	 * Records an agent operation.
+	 * @param operation Name of the operation (requestAgent or fetchAgent).
+	 * @param outcome Outcome of the operation, one of the OUTCOME_ constants.
+	 * @param startNanos Value of System.nanoTime() when the operation started.
+	 */
+	public void recordAgentOperation(String operation, String outcome, long startNanos) {
+		this.agentDuration.observe(startNanos, operation, outcome);
+	}
+
+	/**
+	 * Records a call of an external integration.
+	 * @param integration Name of the integration (github, rocketchat or event_listener).
+	 * @param outcome Outcome of the call, one of the OUTCOME_ constants.
+	 * @param startNanos Value of System.nanoTime() when the call started.
+	 */
+	public void recordExternalCall(String integration, String outcome, long startNanos) {
+		this.externalCallDuration.observe(startNanos, integration, outcome);
+	}
+
+	/**
+	 * Records the time spent converting projects to JSON.
+	 * @param operation Name of the operation.
+	 * @param nanos Duration in nanoseconds.
+	 */
+	public void recordSerialization(String operation, long nanos) {
+		this.serializationDuration.observeNanos(nanos, operation);
+	}
+
+	/**
+	 * Records project events.
+	 * @param result Result (stored, rejected, delivered, failed or dropped).
+	 * @param count Number of events.
+	 */
+	public void recordEvents(String result, int count) {
+		this.events.increment(count, result);
+	}
+
+	/**
+	 * Returns the outcome of an HTTP call with the given status code.
+	 * @param status Status code of the response.
+	 * @return {@link #OUTCOME_SUCCESS}, {@link #OUTCOME_CLIENT_ERROR} for 4xx or {@link #OUTCOME_ERROR} for 5xx.
+	 */
+	public static String outcomeOfStatus(int status) {
+		if (status < 400) return OUTCOME_SUCCESS;
+		if (status < 500) return OUTCOME_CLIENT_ERROR;
+		return OUTCOME_ERROR;
+	}
+
+	/**
+	 * Renders all metrics in the Prometheus text format.
+	 * @return The metrics.
+	 */
+	public String toPrometheusText() {
+		StringBuilder out = new StringBuilder();
+		this.requests.writeTo(out);
+		this.requestDuration.writeTo(out);
+		this.envelopeDuration.writeTo(out);
+		this.agentDuration.writeTo(out);
+		this.externalCallDuration.writeTo(out);
+		this.serializationDuration.writeTo(out);
+		this.events.writeTo(out);
+
+		writeHeader(out, "project_service_github_queue_depth",
+				"Number of requests to the GitHub API that wait because of the rate limit.", "gauge");
+		out.append("project_service_github_queue_depth ").append(GitHubHelper.getInstance().getQueueDepth())
+				.append('\n');
+
+		List<IntegrationGuard> guards = IntegrationGuard.getAll();
+		writeHeader(out, "project_service_integration_circuit_state",
+				"State of the circuit breaker of an integration (0 = closed, 1 = half open, 2 = open).", "gauge");
+		for (IntegrationGuard guard : guards) {
+			int state = guard.getState() == IntegrationGuard.State.OPEN ? 2
+					: guard.getState() == IntegrationGuard.State.HALF_OPEN ? 1 : 0;
+			writeSample(out, "project_service_integration_circuit_state", new String[] { "integration" },
+					Arrays.asList(guard.getName()), null, state);
+		}
+		writeHeader(out, "project_service_integration_active_calls",
+				"Number of running calls of an integration.", "gauge");
+		for (IntegrationGuard guard : guards) {
+			writeSample(out, "project_service_integration_active_calls", new String[] { "integration" },
+					Arrays.asList(guard.getName()), null, guard.getActiveCalls());
+		}
+		writeHeader(out, "project_service_integration_rejected_calls_total",
+				"Number of calls of an integration that were rejected by its bulkhead or circuit breaker.", "counter");
+		for (IntegrationGuard guard : guards) {
+			writeSample(out, "project_service_integration_rejected_calls_total", new String[] { "integration" },
+					Arrays.asList(guard.getName()), null, guard.getRejectedCalls());
+		}
+		return out.toString();
+	}
+
+	private static void writeHeader(StringBuilder out, String name, String help, String type) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	/**
+	 * Writes a single sample.
+	 * @param le Upper bound of the histogram bucket, or null if the sample is no bucket.
+	 */
+	private static void writeSample(StringBuilder out, String name, String[] labelNames, List<String> labelValues,
+			String le, Number value) {
+		out.append(name);
+		if (labelNames.length > 0 || le != null) {
+			out.append('{');
+			for (int i = 0; i < labelNames.length; i++) {
+				if (i > 0) out.append(',');
+				out.append(labelNames[i]).append("=\"").append(escape(labelValues.get(i))).append('"');
+			}
+			if (le != null) {
+				if (labelNames.length > 0) out.append(',');
+				out.append("le=\"").append(le).append('"');
+			}
+			out.append('}');
+		}
+		out.append(' ').append(value).append('\n');
+	}
+
+	private static String escape(String labelValue) {
+		return String.valueOf(labelValue).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/**
+	 * Returns the label values sorted, so that the output is stable.
+	 */
+	private static <T> List<Map.Entry<List<String>, T>> sorted(Map<List<String>, T> series) {
+		List<Map.Entry<List<String>, T>> entries = new ArrayList<>(series.entrySet());
+		entries.sort((a, b) -> a.getKey().toString().compareTo(b.getKey().toString()));
+		return entries;
+	}
+
+	/**
+	 * Counter with labels.
+	 */
+	private static class Counter {
+		private final String name;
+		private final String help;
+		private final String[] labelNames;
+		private final ConcurrentHashMap<List<String>, LongAdder> series = new ConcurrentHashMap<>();
+
+		private Counter(String name, String help, String... labelNames) {
+			this.name = name;
+			this.help = help;
+			this.labelNames = labelNames;
+		}
+
+		private void increment(long amount, String... labelValues) {
+			this.series.computeIfAbsent(Arrays.asList(labelValues), k -> new LongAdder()).add(amount);
+		}
+
+		private void writeTo(StringBuilder out) {
+			writeHeader(out, this.name, this.help, "counter");
+			for (Map.Entry<List<String>, LongAdder> entry : sorted(this.series)) {
+				writeSample(out, this.name, this.labelNames, entry.getKey(), null, entry.getValue().sum());
+			}
+		}
+	}
+
+	/**
+	 * Latency histogram (in seconds) with labels.
+	 */
+	private static class Histogram {
+		private final String name;
+		private final String help;
+		private final String[] labelNames;
+		private final ConcurrentHashMap<List<String>, Series> series = new ConcurrentHashMap<>();
+
+		private Histogram(String name, String help, String... labelNames) {
+			this.name = name;
+			this.help = help;
+			this.labelNames = labelNames;
+		}
+
+		private void observe(long startNanos, String... labelValues) {
+			this.observeNanos(System.nanoTime() - startNanos, labelValues);
+		}
+
+		private void observeNanos(long nanos, String... labelValues) {
+			double seconds = (double) nanos / TimeUnit.SECONDS.toNanos(1);
+			Series s = this.series.computeIfAbsent(Arrays.asList(labelValues), k -> new Series());
+			int bucket = 0;
+			while (bucket < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[bucket]) bucket++;
+			s.buckets[bucket].increment();
+			s.sum.add(seconds);
+		}
+
+		private void writeTo(StringBuilder out) {
+			writeHeader(out, this.name, this.help, "histogram");
+			for (Map.Entry<List<String>, Series> entry : sorted(this.series)) {
+				Series s = entry.getValue();
+				long cumulative = 0;
+				for (int i = 0; i < s.buckets.length; i++) {
+					cumulative += s.buckets[i].sum();
+					String le = i < LATENCY_BUCKETS.length ? String.valueOf(LATENCY_BUCKETS[i]) : "+Inf";
+					writeSample(out, this.name + "_bucket", this.labelNames, entry.getKey(), le, cumulative);
+				}
+				writeSample(out, this.name + "_sum", this.labelNames, entry.getKey(), null, s.sum.sum());
+				writeSample(out, this.name + "_count", this.labelNames, entry.getKey(), null, cumulative);
+			}
+		}
+	}
+
+	/**
+	 * Observations of a histogram for one combination of label values. The last bucket is the +Inf bucket.
+	 */
+	private static class Series {
+		private final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+		private final DoubleAdder sum = new DoubleAdder();
+
+		private Series() {
+			for (int i = 0; i < this.buckets.length; i++) {
+				this.buckets[i] = new LongAdder();
+			}
+		}
+	}
+
+}
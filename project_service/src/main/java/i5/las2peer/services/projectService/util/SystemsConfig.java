@@ -1,24 +1,65 @@
 package i5.las2peer.services.projectService.util;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import i5.las2peer.services.projectService.chat.ChatManager;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.json.simple.parser.ParseException;
 
 import i5.las2peer.services.projectService.ProjectService;
+import i5.las2peer.services.projectService.util.github.GitHubProvisioningBackend;
 
+/**
+ * Configuration of all systems that the project service handles projects for (parsed from the "systems" property).
+ * The configuration is immutable and the systems are indexed by their name, thus it can be read by many requests
+ * concurrently without locking. If the "systems" property changes, a new instance gets created and replaces
+ * the old one (see {@link SystemsConfigWatcher}).
+ */
 public class SystemsConfig {
 
-	private List<ProjectServiceSystem> systems;
+	private final Map<String, ProjectServiceSystem> systems;
 	
 	public SystemsConfig(JSONObject systemsJSON) {
-		this.systems = new ArrayList<>();
+		HashMap<String, ProjectServiceSystem> systems = new HashMap<>();
 		for(Object systemName : systemsJSON.keySet()) {
 			JSONObject systemJSON = (JSONObject) systemsJSON.get(systemName);
-			systems.add(new ProjectServiceSystem((String) systemName, systemJSON));
+			systems.put((String) systemName, new ProjectServiceSystem((String) systemName, systemJSON));
 		}
+		this.systems = Collections.unmodifiableMap(systems);
+	}
+	
+	/**
+	 * Parses the given value of the "systems" property.
+	 * @param systemsJSON JSON string containing the configuration of every system.
+	 * @return The parsed configuration.
+	 * @throws ParseException If the given string is no valid JSON object.
+	 */
+	public static SystemsConfig parse(String systemsJSON) throws ParseException {
+		Object parsed = JSONValue.parseWithException(systemsJSON);
+		if (!(parsed instanceof JSONObject)) throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+		return new SystemsConfig((JSONObject) parsed);
+	}
+	
+	/**
+	 * Returns the configuration of the system with the given name.
+	 * @param systemName Name of the system.
+	 * @return Configuration of the system, or null if there is no system with the given name.
+	 */
+	public ProjectServiceSystem getSystem(String systemName) {
+		if (systemName == null) return null;
+		return this.systems.get(systemName);
+	}
+	
+	/**
+	 * Returns the names of all configured systems.
+	 * @return Names of the systems.
+	 */
+	public Set<String> getSystemNames() {
+		return this.systems.keySet();
 	}
 	
 	/**
@@ -28,7 +69,7 @@ public class SystemsConfig {
 	 */
 	public HashMap<String, String> getSystemEventListenerServiceMap() {
 		HashMap<String, String> map = new HashMap<>();
-		for(ProjectServiceSystem system : this.systems) {
+		for(ProjectServiceSystem system : this.systems.values()) {
 			map.put(system.getName(), system.getEventListenerService());
 		}
 		return map;
@@ -40,10 +81,7 @@ public class SystemsConfig {
 	 * @return Whether the given system name is valid.
 	 */
 	public boolean isValidSystemName(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return true;
-		}
-		return false;
+		return this.getSystem(systemName) != null;
 	}
 	
 	/**
@@ -52,10 +90,8 @@ public class SystemsConfig {
 	 * @return Value of "visibilityOfProjects" attribute set for this system.
 	 */
 	public ProjectVisibility getVisibilityOfProjectsBySystem(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.getVisibilityOfProjects();
-		}
-		return ProjectService.visibilityOfProjectsDefault;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system == null ? ProjectService.visibilityOfProjectsDefault : system.getVisibilityOfProjects();
 	}
 	
 	/**
@@ -64,10 +100,8 @@ public class SystemsConfig {
 	 * @return Whether the GitHub projects connection is enabled for the system with the given name.
 	 */
 	public boolean gitHubProjectsEnabled(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.gitHubProjectsEnabled();
-		}
-		return false;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system != null && system.gitHubProjectsEnabled();
 	}
 	
 	/**
@@ -76,10 +110,8 @@ public class SystemsConfig {
 	 * @return Name of the GitHub organization that is connected to the system.
 	 */
 	public String getGitHubOrganizationBySystem(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.getGitHubOrganization();
-		}
-		return null;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system == null ? null : system.getGitHubOrganization();
 	}
 	
 	/**
@@ -88,23 +120,27 @@ public class SystemsConfig {
 	 * @return Personal access token for GitHub related to the system.
 	 */
 	public String getGitHubPATBySystem(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.getGitHubPersonalAccessToken();
-		}
-		return null;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system == null ? null : system.getGitHubPersonalAccessToken();
+	}
+
+	/**
+	 * Returns the API that is used to set up new GitHub projects of the system.
+	 * @param systemName Name of the system.
+	 * @return Provisioning backend of the system, or null if the system does not exist.
+	 */
+	public GitHubProvisioningBackend getGitHubProvisioningBackendBySystem(String systemName) {
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system == null ? null : system.getGitHubProvisioningBackend();
 	}
 
 	public boolean isChannelConnectionEnabled(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.isChannelConnectionEnabled();
-		}
-		return false;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system != null && system.isChannelConnectionEnabled();
 	}
 
 	public ChatManager getChatManager(String systemName) {
-		for(ProjectServiceSystem system : this.systems) {
-			if(system.getName().equals(systemName)) return system.getChatManager();
-		}
-		return null;
+		ProjectServiceSystem system = this.getSystem(systemName);
+		return system == null ? null : system.getChatManager();
 	}
 }
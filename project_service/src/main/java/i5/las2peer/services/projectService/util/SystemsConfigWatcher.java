@@ -0,0 +1,195 @@
+package i5.las2peer.services.projectService.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.json.simple.parser.ParseException;
+
+/**
+ * Holds the current {@link SystemsConfig} and replaces it when the "systems" property in the properties file
+ * of the service changes. Thus, systems can be added or changed without restarting the node.
+ *
+ * Requests only read the current configuration, which is an immutable snapshot. When the properties file
+ * changes, a new snapshot gets created and replaces the old one atomically. If the new value of the property
+ * is not valid, the current configuration is kept and the error listeners get notified.
+ */
+public class SystemsConfigWatcher {
+
+	/**
+	 * Name of the property containing the systems configuration.
+	 */
+	public static final String SYSTEMS_PROPERTY = "systems";
+
+	/**
+	 * Directories in which the properties file of a service is searched (in this order).
+	 */
+	private static final String[] PROPERTIES_DIRECTORIES = { "etc", "config", "properties" };
+
+	/**
+	 * Used to check the properties files for changes.
+	 */
+	private static final ScheduledExecutorService WATCH_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "project-service-config-watcher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile SystemsConfig current;
+
+	/**
+	 * Value of the "systems" property that the current configuration got created from.
+	 */
+	private String currentSystems;
+
+	private final File propertiesFile;
+	private long lastModified;
+
+	private final List<Consumer<SystemsConfig>> listeners = new CopyOnWriteArrayList<>();
+	private final List<Consumer<String>> errorListeners = new CopyOnWriteArrayList<>();
+
+	private ScheduledFuture<?> watchTask;
+
+	/**
+	 * Creates a watcher for the given properties file.
+	 * @param systems Current value of the "systems" property.
+	 * @param propertiesFile Properties file that should be watched. If null, the configuration never changes.
+	 * @throws ParseException If the given value of the "systems" property is not valid.
+	 */
+	public SystemsConfigWatcher(String systems, File propertiesFile) throws ParseException {
+		this.current = SystemsConfig.parse(systems);
+		this.currentSystems = systems;
+		this.propertiesFile = propertiesFile;
+		this.lastModified = propertiesFile == null ? 0 : propertiesFile.lastModified();
+	}
+
+	/**
+	 * Returns the properties file of the given service class, searched in the same directories as las2peer does.
+	 * @param serviceClass Class of the service.
+	 * @return The properties file, or null if there is none.
+	 */
+	public static File findPropertiesFile(Class<?> serviceClass) {
+		for (String directory : PROPERTIES_DIRECTORIES) {
+			File file = new File(directory, serviceClass.getName() + ".properties");
+			if (file.isFile()) return file;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the current configuration.
+	 * @return Current systems configuration.
+	 */
+	public SystemsConfig get() {
+		return this.current;
+	}
+
+	/**
+	 * Adds a listener that gets called with the new configuration whenever the configuration changes.
+	 * @param listener Listener to add.
+	 */
+	public void addListener(Consumer<SystemsConfig> listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Adds a listener that gets called with an error message whenever reading the properties file or parsing the
+	 * "systems" property fails.
+	 * @param listener Listener to add.
+	 */
+	public void addErrorListener(Consumer<String> listener) {
+		this.errorListeners.add(listener);
+	}
+
+	/**
+	 * Starts checking the properties file for changes.
+	 * The check stops automatically once the watcher is no longer used (i.e., got garbage collected).
+	 * @param interval Time (in milliseconds) between two checks. If 0 or less, the file is not watched.
+	 */
+	public synchronized void start(long interval) {
+		if (interval <= 0 || this.propertiesFile == null || this.watchTask != null) return;
+		// the task must not keep the watcher (and thus the service) alive
+		WeakReference<SystemsConfigWatcher> ref = new WeakReference<>(this);
+		ScheduledFuture<?>[] task = new ScheduledFuture<?>[1];
+		task[0] = WATCH_TIMER.scheduleWithFixedDelay(() -> {
+			SystemsConfigWatcher watcher = ref.get();
+			if (watcher == null) {
+				task[0].cancel(false);
+				return;
+			}
+			watcher.checkForChanges();
+		}, interval, interval, TimeUnit.MILLISECONDS);
+		this.watchTask = task[0];
+	}
+
+	/**
+	 * Stops checking the properties file for changes.
+	 */
+	public synchronized void stop() {
+		if (this.watchTask != null) {
+			this.watchTask.cancel(false);
+			this.watchTask = null;
+		}
+	}
+
+	/**
+	 * Reloads the configuration if the properties file got modified since the last check.
+	 * @return Whether the configuration got replaced.
+	 */
+	public synchronized boolean checkForChanges() {
+		if (this.propertiesFile == null) return false;
+		long modified = this.propertiesFile.lastModified();
+		if (modified == this.lastModified) return false;
+		this.lastModified = modified;
+		return this.reload();
+	}
+
+	/**
+	 * Reads the "systems" property from the properties file and replaces the current configuration, if the
+	 * property changed.
+	 * @return Whether the configuration got replaced.
+	 */
+	public synchronized boolean reload() {
+		if (this.propertiesFile == null) return false;
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(this.propertiesFile)) {
+			props.load(in);
+		} catch (IOException e) {
+			this.notifyError("Reading " + this.propertiesFile + " failed: " + e.getMessage());
+			return false;
+		}
+		String systems = props.getProperty(SYSTEMS_PROPERTY);
+		if (systems == null || systems.isEmpty() || systems.equals(this.currentSystems)) return false;
+
+		SystemsConfig config;
+		try {
+			config = SystemsConfig.parse(systems);
+		} catch (ParseException | RuntimeException e) {
+			this.notifyError("Property 'systems' is not well-formatted, keeping the current configuration: " + e);
+			return false;
+		}
+		this.current = config;
+		this.currentSystems = systems;
+		for (Consumer<SystemsConfig> listener : this.listeners) {
+			listener.accept(config);
+		}
+		return true;
+	}
+
+	private void notifyError(String message) {
+		for (Consumer<String> listener : this.errorListeners) {
+			listener.accept(message);
+		}
+	}
+
+}
@@ -7,4 +7,8 @@ public class GitHubException extends Exception {
 	public GitHubException(String message) {
 		super(message);
 	}
+
+	public GitHubException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
\ No newline at end of file
@@ -1,56 +1,178 @@
 package i5.las2peer.services.projectService.util.github;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
-import java.util.Base64;
-import java.net.http.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 import org.json.simple.parser.ParseException;
 
+import i5.las2peer.services.projectService.util.IntegrationGuard;
+import i5.las2peer.services.projectService.util.RequestTrace;
+import i5.las2peer.services.projectService.util.ServiceMetrics;
 import i5.las2peer.services.projectService.util.SystemsConfig;
+import i5.las2peer.services.projectService.util.github.GitHubRequestScheduler.Priority;
 
 
 /**
  * Helper class for working with GitHub API.
- * Currently supports creating new GitHub projects and update their
- * visibility to public.
+ * Supports creating (public) GitHub projects together with their default columns, deleting them again, granting
+ * and removing the access of collaborators and listing the collaborators of a GitHub project.
+ *
+ * All requests are sent using one shared HttpClient, which keeps the connections to the GitHub API open
+ * (and uses HTTP/2 if possible), so that subsequent requests do not need to set up a new TCP and TLS
+ * connection. Every operation is available as a blocking method and as an asynchronous method returning
+ * a CompletableFuture.
+ *
+ * Requests are scheduled per personal access token (see {@link GitHubRequestScheduler}), so that the rate limit
+ * of a token is not exceeded. Interactive requests are sent before background requests.
+ *
+ * All requests pass an {@link IntegrationGuard}: if too many requests are pending or most of the recent requests
+ * failed (e.g. because the GitHub API is not reachable), new requests fail immediately. The blocking methods wait
+ * at most {@link #AWAIT_TIMEOUT} for a response.
+ *
+ * New GitHub projects are set up using the {@link GitHubProvisioningBackend} of the system. Both backends only wait
+ * for two round-trips: one for creating the GitHub project and one for updating its visibility and creating the
+ * columns (either in parallel using the REST API or in a single GraphQL mutation).
  * @author Philipp
  *
  */
 public class GitHubHelper {
-	
-	private static GitHubHelper instance;
+
 	private static final String API_BASE_URL = "https://api.github.com";
-	
+	private static final String ACCEPT_HEADER = "application/vnd.github.inertia-preview+json";
+	private static final String GRAPHQL_PATH = "/graphql";
+
+	/**
+	 * Name of the integration in the {@link ServiceMetrics}.
+	 */
+	private static final String METRICS_INTEGRATION = "github";
+
+	/**
+	 * Maximum number of collaborators returned by GitHub per request.
+	 */
+	private static final int COLLABORATORS_PAGE_SIZE = 100;
+
+	/**
+	 * Columns that are created in every new GitHub project (in this order).
+	 */
+	private static final List<String> DEFAULT_COLUMNS = Collections.unmodifiableList(
+			Arrays.asList("To do", "In progress", "Done"));
+
+	/**
+	 * GraphQL mutation that makes a GitHub project public and creates the default columns.
+	 * Mutations in one GraphQL request are executed one after another, thus the columns keep their order.
+	 */
+	private static final String SET_UP_PROJECT_MUTATION = getSetUpProjectMutation();
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Maximum time that the blocking methods wait for the GitHub API (including the time that requests are queued
+	 * because of the rate limit).
+	 */
+	private static final Duration AWAIT_TIMEOUT = Duration.ofSeconds(60);
+
+	/**
+	 * Maximum number of requests to the GitHub API that are queued or sent at the same time (over all tokens).
+	 */
+	private static final int MAX_PENDING_REQUESTS = 100;
+
+	/**
+	 * Maximum number of concurrent requests per personal access token. GitHub recommends to not send many
+	 * concurrent requests, because of the secondary rate limit.
+	 */
+	private static final int MAX_CONCURRENT_REQUESTS_PER_TOKEN = 4;
+
+	/**
+	 * Number of remaining requests of a token that background requests leave for interactive requests.
+	 */
+	private static final int INTERACTIVE_RESERVE = 100;
+
+	/**
+	 * Shared client for all requests to the GitHub API.
+	 */
+	private final HttpClient httpClient;
+
+	/**
+	 * Request scheduler for every personal access token (identified by the Authorization header).
+	 */
+	private final ConcurrentHashMap<String, GitHubRequestScheduler> schedulers = new ConcurrentHashMap<>();
+
+	/**
+	 * Bulkhead and circuit breaker for all requests to the GitHub API.
+	 */
+	private final IntegrationGuard guard = IntegrationGuard.create("github", MAX_PENDING_REQUESTS);
+
+	// created after the other static fields, since the constructor uses them
+	private static final GitHubHelper instance = new GitHubHelper();
+
 	// make sure that constructor cannot be accessed from outside
-	private GitHubHelper() {}
-	
+	private GitHubHelper() {
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.build();
+	}
+
 	public static GitHubHelper getInstance() {
-		if(GitHubHelper.instance == null) {
-			GitHubHelper.instance = new GitHubHelper();
-		}
 		return GitHubHelper.instance;
 	}
-	
+
 	/**
 	 * Systems configuration (that also contains the GitHub config).
 	 */
-	private SystemsConfig systemsConfig = null;
-	
+	private volatile SystemsConfig systemsConfig = null;
+
+	/**
+	 * Value of the Authorization header for every system that has a GitHub personal access token.
+	 * Computed when the systems configuration is set.
+	 */
+	private volatile Map<String, String> authHeaders = Collections.emptyMap();
+
+	/**
+	 * Value of the Authorization header for requests to the GraphQL API (which requires a bearer token) for every
+	 * system that has a GitHub personal access token.
+	 */
+	private volatile Map<String, String> graphQLAuthHeaders = Collections.emptyMap();
+
 	public void setSystemsConfig(SystemsConfig systemsConfig) {
+		HashMap<String, String> authHeaders = new HashMap<>();
+		HashMap<String, String> graphQLAuthHeaders = new HashMap<>();
+		for (String systemName : systemsConfig.getSystemNames()) {
+			String personalAccessToken = systemsConfig.getGitHubPATBySystem(systemName);
+			if (personalAccessToken != null) {
+				authHeaders.put(systemName, "Basic " + Base64.getEncoder()
+						.encodeToString(personalAccessToken.getBytes(StandardCharsets.UTF_8)));
+				graphQLAuthHeaders.put(systemName, "Bearer " + personalAccessToken);
+			}
+		}
+		this.authHeaders = Collections.unmodifiableMap(authHeaders);
+		this.graphQLAuthHeaders = Collections.unmodifiableMap(graphQLAuthHeaders);
 		this.systemsConfig = systemsConfig;
 	}
-	
+
 	/**
 	 * Creates a public GitHub project with the given name.
 	 * @param systemName Name of the system, for which the GitHub project should be created.
@@ -59,24 +181,102 @@ public class GitHubHelper {
 	 * @throws GitHubException If something with the requests to the GitHub API went wrong.
 	 */
 	public GitHubProject createPublicGitHubProject(String systemName, String projectName) throws GitHubException {
-		String gitHubOrganization = this.systemsConfig.getGitHubOrganizationBySystem(systemName);
-		String gitHubPersonalAccessToken = this.systemsConfig.getGitHubPATBySystem(systemName);
-		
-		if(gitHubPersonalAccessToken == null || gitHubOrganization == null) {
-			throw new GitHubException("One of the variables personal access token or organization are not set.");
+		return await(this.createPublicGitHubProjectAsync(systemName, projectName));
+	}
+
+	/**
+	 * Asynchronous version of {@link #createPublicGitHubProject(String, String)}.
+	 * @param systemName Name of the system, for which the GitHub project should be created.
+	 * @param projectName Name of the GitHub project which should be created.
+	 * @return Future that completes with the newly created GitHubProject object, or exceptionally with a
+	 *         GitHubException if something with the requests to the GitHub API went wrong.
+	 */
+	public CompletableFuture<GitHubProject> createPublicGitHubProjectAsync(String systemName, String projectName) {
+		SystemsConfig systemsConfig = this.systemsConfig;
+		String gitHubOrganization = systemsConfig.getGitHubOrganizationBySystem(systemName);
+
+		if(this.authHeaders.get(systemName) == null || gitHubOrganization == null) {
+			return CompletableFuture.failedFuture(
+					new GitHubException("One of the variables personal access token or organization are not set."));
+		}
+
+		boolean useGraphQL = systemsConfig.getGitHubProvisioningBackendBySystem(systemName)
+				== GitHubProvisioningBackend.GRAPHQL;
+		return this.createGitHubProject(systemName, gitHubOrganization, projectName)
+				.thenCompose(json -> {
+					int gitHubProjectId = ((Long) json.get("id")).intValue();
+					GitHubProject gitHubProject = new GitHubProject(gitHubProjectId, (String) json.get("html_url"));
+					CompletableFuture<Void> setUp = useGraphQL
+							? this.setUpGitHubProjectGraphQL(systemName, (String) json.get("node_id"))
+							: this.setUpGitHubProjectRest(systemName, gitHubProjectId);
+					return setUp.thenApply(v -> gitHubProject);
+				});
+	}
+
+	/**
+	 * Makes the given GitHub project public and creates the default columns using the REST API.
+	 * All requests are sent in parallel. Since the columns are positioned in the order in which GitHub created
+	 * them, they are moved afterwards if they got created in the wrong order.
+	 * @param systemName Name of the system, for which the GitHub project got created.
+	 * @param gitHubProjectId Id of the GitHub project.
+	 * @return Future that completes when the GitHub project is set up.
+	 */
+	private CompletableFuture<Void> setUpGitHubProjectRest(String systemName, int gitHubProjectId) {
+		CompletableFuture<Void> visibility = this.makeGitHubProjectPublic(systemName, gitHubProjectId);
+		List<CompletableFuture<Long>> columns = new ArrayList<>();
+		for (String columnName : DEFAULT_COLUMNS) {
+			columns.add(this.createProjectColumn(systemName, gitHubProjectId, columnName));
+		}
+		CompletableFuture<Void> orderedColumns = CompletableFuture.allOf(columns.toArray(new CompletableFuture<?>[0]))
+				.thenCompose(v -> {
+					List<Long> columnIds = new ArrayList<>();
+					for (CompletableFuture<Long> column : columns) {
+						columnIds.add(column.join());
+					}
+					return this.orderProjectColumns(systemName, columnIds);
+				});
+		return CompletableFuture.allOf(visibility, orderedColumns);
+	}
+
+	/**
+	 * Moves the given columns to the end of their GitHub project (one after another), if they are not in the
+	 * given order. Column ids increase in the order in which the columns got created.
+	 * @param systemName Name of the system, for which the GitHub project got created.
+	 * @param columnIds Ids of the columns in the order they should have.
+	 * @return Future that completes when the columns are in the given order.
+	 */
+	private CompletableFuture<Void> orderProjectColumns(String systemName, List<Long> columnIds) {
+		boolean ordered = true;
+		for (int i = 1; i < columnIds.size(); i++) {
+			if (columnIds.get(i - 1) > columnIds.get(i)) ordered = false;
+		}
+		CompletableFuture<Void> moves = CompletableFuture.completedFuture(null);
+		if (ordered) return moves;
+		for (Long columnId : columnIds) {
+			moves = moves.thenCompose(v -> this.send(systemName, Priority.INTERACTIVE, "POST",
+					"/projects/columns/" + columnId + "/moves", getMoveColumnToEndBody(), 201)
+					.thenApply(response -> null));
+		}
+		return moves;
+	}
+
+	/**
+	 * Makes the given GitHub project public and creates the default columns using a single GraphQL mutation.
+	 * @param systemName Name of the system, for which the GitHub project got created.
+	 * @param gitHubProjectNodeId Global node id of the GitHub project.
+	 * @return Future that completes when the GitHub project is set up.
+	 */
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<Void> setUpGitHubProjectGraphQL(String systemName, String gitHubProjectNodeId) {
+		JSONObject variables = new JSONObject();
+		variables.put("projectId", gitHubProjectNodeId);
+		for (int i = 0; i < DEFAULT_COLUMNS.size(); i++) {
+			variables.put("column" + i, DEFAULT_COLUMNS.get(i));
 		}
-		
-		GitHubProject gitHubProject = createGitHubProject(systemName, projectName);
-		makeGitHubProjectPublic(systemName, gitHubProject.getId());
-		
-		// create some predefined columns
-		createProjectColumn(systemName, gitHubProject.getId(), "To do");
-		createProjectColumn(systemName, gitHubProject.getId(), "In progress");
-		createProjectColumn(systemName, gitHubProject.getId(), "Done");
-		
-		return gitHubProject;
-	}
-	
+		return this.sendGraphQL(systemName, Priority.INTERACTIVE, SET_UP_PROJECT_MUTATION, variables)
+				.thenApply(data -> null);
+	}
+
 	/**
 	 * Gives the GitHub user with the given username access to the given GitHub project.
 	 * @param systemName Name of the system, that the GitHub project belongs to.
@@ -85,74 +285,110 @@ public class GitHubHelper {
 	 * @throws GitHubException If something with the API request went wrong
 	 */
 	public void grantUserAccessToProject(String systemName, String ghUsername, GitHubProject ghProject) throws GitHubException {
-		if(ghUsername == null) return;
-		
-		String authStringEnc = getAuthStringEnc(systemName);
-		
-		URL url;
-		try {
-			url = new URL(API_BASE_URL + "/projects/" + ghProject.getId() + "/collaborators/" + ghUsername);
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("PUT");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Accept", "application/vnd.github.inertia-preview+json");
-			connection.setRequestProperty("Authorization", "Basic " + authStringEnc);
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 204) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
-			}
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (IOException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		}
+		await(this.grantUserAccessToProjectAsync(systemName, ghUsername, ghProject));
+	}
+
+	/**
+	 * Asynchronous version of {@link #grantUserAccessToProject(String, String, GitHubProject)}.
+	 * @param systemName Name of the system, that the GitHub project belongs to.
+	 * @param ghUsername Username of the GitHub user which should get access to the project.
+	 * @param ghProject GitHubProject object
+	 * @return Future that completes when the access got granted.
+	 */
+	public CompletableFuture<Void> grantUserAccessToProjectAsync(String systemName, String ghUsername,
+			GitHubProject ghProject) {
+		return this.grantUserAccessToProjectAsync(systemName, ghUsername, ghProject, Priority.INTERACTIVE);
 	}
-	
+
 	/**
-	 * Removes users access to GitHub project. 
+	 * Asynchronous version of {@link #grantUserAccessToProject(String, String, GitHubProject)}.
+	 * @param systemName Name of the system, that the GitHub project belongs to.
+	 * @param ghUsername Username of the GitHub user which should get access to the project.
+	 * @param ghProject GitHubProject object
+	 * @param priority Priority of the request.
+	 * @return Future that completes when the access got granted.
+	 */
+	public CompletableFuture<Void> grantUserAccessToProjectAsync(String systemName, String ghUsername,
+			GitHubProject ghProject, Priority priority) {
+		if(ghUsername == null) return CompletableFuture.completedFuture(null);
+		return this.send(systemName, priority, "PUT", "/projects/" + ghProject.getId() + "/collaborators/" + ghUsername,
+				null, 204).thenApply(response -> null);
+	}
+
+	/**
+	 * Removes users access to GitHub project.
 	 * @param systemName Name of the system, that the GitHub project belongs to.
 	 * @param ghUsername Username of the GitHub user who should be removed from project.
 	 * @param ghProject GitHubProject object
 	 * @throws GitHubException If something with the API request went wrong
 	 */
 	public void removeUserAccessToProject(String systemName, String ghUsername, GitHubProject ghProject) throws GitHubException {
-		if(ghUsername == null) return;
-		
-		String authStringEnc = getAuthStringEnc(systemName);
-		
-		URL url;
-		try {
-			url = new URL(API_BASE_URL + "/projects/" + ghProject.getId() + "/collaborators/" + ghUsername);
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("DELETE");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Accept", "application/vnd.github.inertia-preview+json");
-			connection.setRequestProperty("Authorization", "Basic " + authStringEnc);
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 204) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
+		await(this.removeUserAccessToProjectAsync(systemName, ghUsername, ghProject));
+	}
+
+	/**
+	 * Asynchronous version of {@link #removeUserAccessToProject(String, String, GitHubProject)}.
+	 * @param systemName Name of the system, that the GitHub project belongs to.
+	 * @param ghUsername Username of the GitHub user who should be removed from project.
+	 * @param ghProject GitHubProject object
+	 * @return Future that completes when the access got removed.
+	 */
+	public CompletableFuture<Void> removeUserAccessToProjectAsync(String systemName, String ghUsername,
+			GitHubProject ghProject) {
+		return this.removeUserAccessToProjectAsync(systemName, ghUsername, ghProject, Priority.INTERACTIVE);
+	}
+
+	/**
+	 * Asynchronous version of {@link #removeUserAccessToProject(String, String, GitHubProject)}.
+	 * @param systemName Name of the system, that the GitHub project belongs to.
+	 * @param ghUsername Username of the GitHub user who should be removed from project.
+	 * @param ghProject GitHubProject object
+	 * @param priority Priority of the request.
+	 * @return Future that completes when the access got removed.
+	 */
+	public CompletableFuture<Void> removeUserAccessToProjectAsync(String systemName, String ghUsername,
+			GitHubProject ghProject, Priority priority) {
+		if(ghUsername == null) return CompletableFuture.completedFuture(null);
+		return this.send(systemName, priority, "DELETE",
+				"/projects/" + ghProject.getId() + "/collaborators/" + ghUsername, null, 204).thenApply(response -> null);
+	}
+
+	/**
+	 * Returns the GitHub usernames of the users that were added to the given GitHub project as collaborators.
+	 * @param systemName Name of the system, that the GitHub project belongs to.
+	 * @param ghProject GitHubProject object
+	 * @param priority Priority of the requests.
+	 * @return Future that completes with the usernames of the collaborators.
+	 */
+	public CompletableFuture<List<String>> getProjectCollaboratorsAsync(String systemName, GitHubProject ghProject,
+			Priority priority) {
+		return this.getProjectCollaborators(systemName, ghProject, priority, 1, new ArrayList<>());
+	}
+
+	/**
+	 * Requests the collaborators of the GitHub project, starting with the given page.
+	 * @param usernames List to which the usernames get added.
+	 * @return Future that completes with the given list, once all pages got added.
+	 */
+	private CompletableFuture<List<String>> getProjectCollaborators(String systemName, GitHubProject ghProject,
+			Priority priority, int page, List<String> usernames) {
+		String path = "/projects/" + ghProject.getId() + "/collaborators?affiliation=direct&per_page="
+				+ COLLABORATORS_PAGE_SIZE + "&page=" + page;
+		return this.send(systemName, priority, "GET", path, null, 200).thenCompose(response -> {
+			JSONArray users;
+			try {
+				users = (JSONArray) JSONValue.parseWithException(response.body());
+			} catch (ParseException | ClassCastException e) {
+				throw new CompletionException(new GitHubException("Invalid response of GitHub API: " + e.getMessage(), e));
 			}
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (IOException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		}
+			for (Object user : users) {
+				usernames.add((String) ((JSONObject) user).get("login"));
+			}
+			if (users.size() < COLLABORATORS_PAGE_SIZE) return CompletableFuture.completedFuture(usernames);
+			return this.getProjectCollaborators(systemName, ghProject, priority, page + 1, usernames);
+		});
 	}
-	
+
 	/**
 	 * Deletes the given GitHub project.
 	 * @param systemName Name of the system, to which the GitHub project belongs to.
@@ -160,164 +396,240 @@ public class GitHubHelper {
 	 * @throws GitHubException If something with the request to the GitHub API went wrong.
 	 */
 	public void deleteGitHubProject(String systemName, GitHubProject ghProject) throws GitHubException {
-        String authStringEnc = getAuthStringEnc(systemName);
-		
-		URL url;
-		try {
-			url = new URL(API_BASE_URL + "/projects/" + ghProject.getId());
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("DELETE");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Accept", "application/vnd.github.inertia-preview+json");
-			connection.setRequestProperty("Authorization", "Basic " + authStringEnc);
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 204) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
-			}
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (IOException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		}
+		await(this.deleteGitHubProjectAsync(systemName, ghProject));
+	}
+
+	/**
+	 * Asynchronous version of {@link #deleteGitHubProject(String, GitHubProject)}.
+	 * @param systemName Name of the system, to which the GitHub project belongs to.
+	 * @param ghProject GitHub project which should be deleted.
+	 * @return Future that completes when the GitHub project got deleted.
+	 */
+	public CompletableFuture<Void> deleteGitHubProjectAsync(String systemName, GitHubProject ghProject) {
+		return this.send(systemName, Priority.INTERACTIVE, "DELETE", "/projects/" + ghProject.getId(), null, 204)
+				.thenApply(response -> null);
 	}
-	
+
 	/**
-	 * Creates a GitHub project in the GitHub organization given by the properties file.
+	 * Creates a GitHub project in the given GitHub organization.
 	 * @param systemName Name of the system for which the GitHub project should be created.
+	 * @param gitHubOrganization GitHub organization of the system.
 	 * @param projectName Name of the GitHub project.
-	 * @return The newly created GitHubProject object.
-	 * @throws GitHubException If something with creating the new project went wrong.
+	 * @return Future that completes with the GitHub project returned by the API.
 	 */
-	private GitHubProject createGitHubProject(String systemName, String projectName) throws GitHubException {
+	private CompletableFuture<JSONObject> createGitHubProject(String systemName, String gitHubOrganization,
+			String projectName) {
 		String body = getGitHubProjectBody(projectName);
-		String authStringEnc = getAuthStringEnc(systemName);
-		
-		String gitHubOrganization = this.systemsConfig.getGitHubOrganizationBySystem(systemName);
-
-		URL url;
-		try {
-			url = new URL(API_BASE_URL + "/orgs/" + gitHubOrganization + "/projects");
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Accept", "application/vnd.github.inertia-preview+json");
-			connection.setRequestProperty("Content-Type", "application/json");
-			connection.setRequestProperty("Content-Length", String.valueOf(body.length()));
-			connection.setRequestProperty("Authorization", "Basic " + authStringEnc);
-
-			writeRequestBody(connection, body);
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 201) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
-			} else {
-				// get response
-				String response = getResponseBody(connection);
-				
-				// convert to JSONObject
-				JSONObject json = (JSONObject) JSONValue.parseWithException(response);
-				int gitHubProjectId = ((Long) json.get("id")).intValue();
-				String gitHubProjectHtmlUrl = (String) json.get("html_url");
-				return new GitHubProject(gitHubProjectId, gitHubProjectHtmlUrl);
-			}
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (IOException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (ParseException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		}
+		return this.send(systemName, Priority.INTERACTIVE, "POST", "/orgs/" + gitHubOrganization + "/projects", body, 201)
+				.thenApply(response -> parseJSONObject(response.body()));
 	}
-	
+
 	/**
 	 * Changes the visibility of the GitHub project with the given id to "private: false".
-	 * After calling this method, the GitHub project should be public and can be accessed by 
+	 * After calling this method, the GitHub project should be public and can be accessed by
 	 * every GitHub user (accessed only means read-access).
 	 * @param systemName Name of the system, for which the GitHub project should be updated.
 	 * @param gitHubProjectId Id of the GitHub project id, whose visibility should be updated.
-	 * @throws GitHubException If something with the request to the GitHub API went wrong.
+	 * @return Future that completes when the visibility got updated.
 	 */
-	private void makeGitHubProjectPublic(String systemName, int gitHubProjectId) throws GitHubException {
-		String body = getVisibilityPublicBody();
-		String authStringEnc = getAuthStringEnc(systemName);
-		
-		String url = API_BASE_URL + "/projects/" + gitHubProjectId;
-		
-		HttpClient client = HttpClient.newHttpClient();
-		HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .method("PATCH", BodyPublishers.ofString(body))
-                .header("Content-Type", "application/json")
-                .header("Accept", "application/vnd.github.inertia-preview+json")
-                .header("Authorization", "Basic " + authStringEnc)
-                .build();
-		
-		HttpResponse<String> response;
-		try {
-			response = client.send(request, BodyHandlers.ofString());
-			if(response.statusCode() != 200) {
-				String message = response.body();
-				throw new GitHubException(message);
-			}
-		} catch (IOException | InterruptedException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		}
+	private CompletableFuture<Void> makeGitHubProjectPublic(String systemName, int gitHubProjectId) {
+		return this.send(systemName, Priority.INTERACTIVE, "PATCH", "/projects/" + gitHubProjectId,
+				getVisibilityPublicBody(), 200)
+				.thenApply(response -> null);
 	}
-	
+
 	/**
 	 * Creates a new column with the given name in the GitHub project with the given id.
 	 * @param systemName Name of the system, for which the column should be created.
 	 * @param gitHubProjectId Id of the GitHub project, where the column should be added to.
 	 * @param columnName Name of the column, which should be created.
-	 * @throws GitHubException If something with the request to the GitHub API went wrong.
+	 * @return Future that completes with the id of the created column.
+	 */
+	private CompletableFuture<Long> createProjectColumn(String systemName, int gitHubProjectId, String columnName) {
+		return this.send(systemName, Priority.INTERACTIVE, "POST", "/projects/" + gitHubProjectId + "/columns",
+				getCreateColumnBody(columnName), 201)
+				.thenApply(response -> (Long) parseJSONObject(response.body()).get("id"));
+	}
+
+	/**
+	 * Returns the number of requests to the GitHub API that wait to be sent because of the rate limit.
+	 * @return Number of queued requests over all personal access tokens.
+	 */
+	public int getQueueDepth() {
+		int depth = 0;
+		for (GitHubRequestScheduler scheduler : this.schedulers.values()) {
+			depth += scheduler.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * Sends a request to the GitHub API using the shared client. The request is scheduled using the scheduler
+	 * of the personal access token of the system.
+	 * @param systemName Name of the system for which the request should be sent (relevant to choose correct PAT).
+	 * @param priority Priority of the request.
+	 * @param method HTTP method.
+	 * @param path Path of the API endpoint, relative to the API base url.
+	 * @param body JSON body of the request, or null if the request has no body.
+	 * @param expectedStatus Status code of a successful response.
+	 * @return Future that completes with the response, or exceptionally with a GitHubException if the request
+	 *         failed or the response has another status code.
+	 */
+	private CompletableFuture<HttpResponse<String>> send(String systemName, Priority priority, String method,
+			String path, String body, int expectedStatus) {
+		return this.sendWithAuth(this.authHeaders.get(systemName), priority, method, path, body, expectedStatus);
+	}
+
+	/**
+	 * Sends a request to the GitHub GraphQL API.
+	 * @param systemName Name of the system for which the request should be sent (relevant to choose correct PAT).
+	 * @param priority Priority of the request.
+	 * @param query GraphQL query or mutation.
+	 * @param variables Variables used in the query.
+	 * @return Future that completes with the "data" of the response, or exceptionally with a GitHubException if
+	 *         the request failed or the response contains errors.
+	 */
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<JSONObject> sendGraphQL(String systemName, Priority priority, String query,
+			JSONObject variables) {
+		JSONObject body = new JSONObject();
+		body.put("query", query);
+		body.put("variables", variables);
+		return this.sendWithAuth(this.graphQLAuthHeaders.get(systemName), priority, "POST", GRAPHQL_PATH,
+				body.toJSONString(), 200)
+				.thenApply(response -> {
+					JSONObject json = parseJSONObject(response.body());
+					// GraphQL reports errors with status code 200
+					if (json.get("errors") != null) {
+						throw new CompletionException(new GitHubException(
+								"GitHub GraphQL request failed: " + JSONValue.toJSONString(json.get("errors"))));
+					}
+					return (JSONObject) json.get("data");
+				});
+	}
+
+	/**
+	 * Sends a request to the GitHub API using the shared client. The request is scheduled using the scheduler
+	 * of the given Authorization header.
+	 * @param authHeader Value of the Authorization header, or null if no personal access token is set.
+	 * @param priority Priority of the request.
+	 * @param method HTTP method.
+	 * @param path Path of the API endpoint, relative to the API base url.
+	 * @param body JSON body of the request, or null if the request has no body.
+	 * @param expectedStatus Status code of a successful response.
+	 * @return Future that completes with the response, or exceptionally with a GitHubException if the request
+	 *         failed or the response has another status code.
 	 */
-	private void createProjectColumn(String systemName, int gitHubProjectId, String columnName) throws GitHubException {
-		String body = getCreateColumnBody(columnName);
-		String authStringEnc = getAuthStringEnc(systemName);
+	private CompletableFuture<HttpResponse<String>> sendWithAuth(String authHeader, Priority priority, String method,
+			String path, String body, int expectedStatus) {
+		if (authHeader == null) {
+			return CompletableFuture.failedFuture(new GitHubException("GitHub personal access token is not set."));
+		}
+
+		HttpRequest.Builder builder = HttpRequest.newBuilder()
+				.uri(URI.create(API_BASE_URL + path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Accept", ACCEPT_HEADER)
+				.header("Authorization", authHeader);
+		if (body == null) {
+			builder.method(method, BodyPublishers.noBody());
+		} else {
+			builder.method(method, BodyPublishers.ofString(body)).header("Content-Type", "application/json");
+		}
 
-		URL url;
+		long start = System.nanoTime();
+		IntegrationGuard.Permit permit = this.guard.tryAcquire();
+		if (permit == null) {
+			ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION, ServiceMetrics.OUTCOME_REJECTED, start);
+			return CompletableFuture.failedFuture(new GitHubException("GitHub API is not available at the moment."));
+		}
+
+		HttpRequest request = builder.build();
+		GitHubRequestScheduler scheduler = this.schedulers.computeIfAbsent(authHeader,
+				token -> new GitHubRequestScheduler(MAX_CONCURRENT_REQUESTS_PER_TOKEN, INTERACTIVE_RESERVE));
+		return scheduler.submit(priority, () -> this.httpClient.sendAsync(request, BodyHandlers.ofString()))
+				.handle((response, e) -> {
+					// only errors of GitHub count as failures, not rejected requests (e.g. invalid usernames)
+					permit.release(e == null && response.statusCode() < 500);
+					ServiceMetrics.getInstance().recordExternalCall(METRICS_INTEGRATION,
+							e == null ? ServiceMetrics.outcomeOfStatus(response.statusCode()) : ServiceMetrics.OUTCOME_ERROR,
+							start);
+					if (e != null) {
+						Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+						throw new CompletionException(new GitHubException(cause.getMessage(), cause));
+					}
+					// forward (in case of) error
+					if (response.statusCode() != expectedStatus) {
+						throw new CompletionException(new GitHubException(
+								"GitHub API request " + method + " " + path + " failed: " + response.body()));
+					}
+					return response;
+				});
+	}
+
+	/**
+	 * Waits for the given future and unwraps a GitHubException that it completed with.
+	 * @param <T> Type of the result.
+	 * @param future Future returned by one of the asynchronous methods.
+	 * @return Result of the future.
+	 * @throws GitHubException If the future completed exceptionally or did not complete within AWAIT_TIMEOUT.
+	 */
+	private static <T> T await(CompletableFuture<T> future) throws GitHubException {
+		try (RequestTrace.Span span = RequestTrace.span(RequestTrace.EXTERNAL_CALL)) {
+			return future.get(AWAIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new GitHubException("GitHub API did not respond in time.", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GitHubException("Interrupted while waiting for the GitHub API.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof GitHubException) throw (GitHubException) cause;
+			throw new GitHubException(String.valueOf(cause.getMessage()), cause);
+		}
+	}
+
+	/**
+	 * Parses the body of a response of the GitHub API.
+	 * @param body Body of the response.
+	 * @return Body as JSONObject.
+	 * @throws CompletionException Containing a GitHubException, if the body is not a JSON object.
+	 */
+	private static JSONObject parseJSONObject(String body) {
 		try {
-			url = new URL(API_BASE_URL + "/projects/" + gitHubProjectId + "/columns");
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Accept", "application/vnd.github.inertia-preview+json");
-			connection.setRequestProperty("Content-Type", "application/json");
-			connection.setRequestProperty("Content-Length", String.valueOf(body.length()));
-			connection.setRequestProperty("Authorization", "Basic " + authStringEnc);
-
-			writeRequestBody(connection, body);
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 201) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
-			}
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
-		} catch (IOException e) {
-			e.printStackTrace();
-			throw new GitHubException(e.getMessage());
+			return (JSONObject) JSONValue.parseWithException(body);
+		} catch (ParseException | ClassCastException e) {
+			throw new CompletionException(new GitHubException("Invalid response of GitHub API: " + e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * Creates the GraphQL mutation that makes a GitHub project public and creates the default columns.
+	 * The id of the GitHub project and the names of the columns are passed as variables.
+	 * @return GraphQL mutation.
+	 */
+	private static String getSetUpProjectMutation() {
+		StringBuilder mutation = new StringBuilder("mutation($projectId: ID!");
+		for (int i = 0; i < DEFAULT_COLUMNS.size(); i++) {
+			mutation.append(", $column").append(i).append(": String!");
+		}
+		mutation.append(") { visibility: updateProject(input: {projectId: $projectId, public: true}) { project { id } }");
+		for (int i = 0; i < DEFAULT_COLUMNS.size(); i++) {
+			mutation.append(" column").append(i).append(": addProjectColumn(input: {projectId: $projectId, name: $column")
+					.append(i).append("}) { columnEdge { node { id } } }");
 		}
+		return mutation.append(" }").toString();
+	}
+
+	/**
+	 * Creates the body needed to move a column to the end of its GitHub project.
+	 * @return Body as String.
+	 */
+	private String getMoveColumnToEndBody() {
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put("position", "last");
+		String body = JSONObject.toJSONString(jsonObject);
+		return body;
 	}
 
 	/**
@@ -331,7 +643,7 @@ public class GitHubHelper {
 		String body = JSONObject.toJSONString(jsonObject);
 		return body;
 	}
-	
+
 	/**
 	 * Creates the body needed to update the visibility of the GitHub project.
 	 * @return Body as String.
@@ -342,7 +654,7 @@ public class GitHubHelper {
 		String body = JSONObject.toJSONString(jsonObject);
 		return body;
 	}
-	
+
 	/**
 	 * Creates the body needed for creating a new GitHub project.
 	 * @param projectName Name of the project that should be created on GitHub.
@@ -355,62 +667,5 @@ public class GitHubHelper {
 		String body = JSONObject.toJSONString(jsonObject);
 		return body;
 	}
-	
-	/**
-	 * Getter for encoded auth string.
-	 * @param systemName Name of the system for which the request should be sent (relevant to choose correct PAT).
-	 * @return Encoded auth string containing GitHub personal access token.
-	 */
-	private String getAuthStringEnc(String systemName) {
-		String authString = this.systemsConfig.getGitHubPATBySystem(systemName);
 
-		byte[] authEncBytes = Base64.getEncoder().encode(authString.getBytes());
-		return new String(authEncBytes);
-	}
-	
-	/**
-	 * Extracts the error message from the response.
-	 * @param connection HttpURLConnection object
-	 * @return Error message as String.
-	 * @throws IOException
-	 */
-	private String getErrorMessage(HttpURLConnection connection) throws IOException {
-		String message = "Error creating GitHub project at: ";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			message += line;
-		}
-		reader.close();
-		return message;
-	}
-	
-	/**
-	 * Getter for the body of the response.
-	 * @param connection HttpURLConnection object
-	 * @return Body of the response as string.
-	 * @throws IOException
-	 */
-	private String getResponseBody(HttpURLConnection connection) throws IOException {
-		String response = "";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			response += line;
-		}
-		reader.close();
-		return response;
-	}
-	
-	/**
-	 * Writes the request body.
-	 * @param connection HttpURLConnection object
-	 * @param body Body that should be written to the request.
-	 * @throws IOException
-	 */
-	private void writeRequestBody(HttpURLConnection connection, String body) throws IOException {
-		OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream());
-		writer.write(body);
-		writer.flush();
-		writer.close();
-	}
-	
 }
@@ -0,0 +1,57 @@
+package i5.las2peer.services.projectService.util.github;
+
+/**
+ * State of the GitHub project of a las2peer project. GitHub projects are created in the background after the
+ * las2peer project got stored.
+ */
+public enum GitHubProjectStatus {
+	/**
+	 * The GitHub project is being created.
+	 */
+	PENDING("pending", 2),
+	/**
+	 * The GitHub project got created and is connected to the las2peer project.
+	 */
+	CREATED("created", 1),
+	/**
+	 * Creating the GitHub project failed.
+	 */
+	FAILED("failed", 3);
+
+	/**
+	 * Value used in the JSON representation of a project.
+	 */
+	private final String value;
+
+	/**
+	 * Value used in the compact format of the project list (0 means that there is no GitHub project).
+	 */
+	private final byte code;
+
+	GitHubProjectStatus(String value, int code) {
+		this.value = value;
+		this.code = (byte) code;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public byte getCode() {
+		return code;
+	}
+
+	/**
+	 * Returns the status with the given code.
+	 * @param code Code of the status.
+	 * @return The status, or null if the code is 0 (no GitHub project).
+	 * @throws IllegalArgumentException If the code is unknown.
+	 */
+	public static GitHubProjectStatus fromCode(byte code) {
+		if (code == 0) return null;
+		for (GitHubProjectStatus status : values()) {
+			if (status.code == code) return status;
+		}
+		throw new IllegalArgumentException("Unknown GitHub project status " + code);
+	}
+}
@@ -0,0 +1,44 @@
+package i5.las2peer.services.projectService.util.github;
+
+/**
+ * API that is used to set up a new GitHub project (visibility and predefined columns).
+ * Can be chosen per system using the "gitHubProvisioningBackend" key of the systems configuration.
+ */
+public enum GitHubProvisioningBackend {
+	/**
+	 * Uses the REST API. After the GitHub project got created, its visibility gets updated and the columns get
+	 * created in parallel.
+	 */
+	REST("rest"),
+	/**
+	 * Uses the GraphQL API. After the GitHub project got created, its visibility gets updated and the columns get
+	 * created using a single GraphQL mutation.
+	 */
+	GRAPHQL("graphql");
+
+	/**
+	 * Value used in the systems configuration.
+	 */
+	private final String value;
+
+	GitHubProvisioningBackend(String value) {
+		this.value = value;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the backend with the given value.
+	 * @param value Value used in the systems configuration.
+	 * @return The backend with the given value.
+	 * @throws IllegalArgumentException If there is no backend with the given value.
+	 */
+	public static GitHubProvisioningBackend fromValue(String value) {
+		for (GitHubProvisioningBackend backend : values()) {
+			if (backend.value.equalsIgnoreCase(value)) return backend;
+		}
+		throw new IllegalArgumentException("Unknown GitHub provisioning backend " + value);
+	}
+}
@@ -0,0 +1,293 @@
+package i5.las2peer.services.projectService.util.github;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the requests to the GitHub API that are sent using one personal access token, so that the rate limit
+ * of the token is not exceeded.
+ *
+ * The remaining budget of the token is tracked using the X-RateLimit-Remaining and X-RateLimit-Reset headers of
+ * the responses. If the budget is used up, requests are queued until the rate limit gets reset. If GitHub responds
+ * with a rate limit error (403 or 429, e.g. because of the secondary rate limit), all requests wait for the time
+ * given in the Retry-After header and the failed request gets sent again.
+ *
+ * Interactive requests (made while a user waits for the response) are always sent before background requests.
+ * Moreover, background requests leave a part of the budget for interactive requests.
+ */
+public class GitHubRequestScheduler {
+
+	/**
+	 * Priority of a request.
+	 */
+	public enum Priority {
+		/**
+		 * A user waits for the response.
+		 */
+		INTERACTIVE,
+		/**
+		 * Request is made in the background, e.g. when synchronizing the access to GitHub projects.
+		 */
+		BACKGROUND
+	}
+
+	/**
+	 * Used to dispatch queued requests once the rate limit allows it.
+	 */
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "project-service-github-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Time (in milliseconds) to wait after a secondary rate limit error without a Retry-After header.
+	 */
+	private static final long SECONDARY_LIMIT_DEFAULT_WAIT = 60 * 1000;
+
+	/**
+	 * Number of times a request gets sent again after it failed because of the rate limit.
+	 */
+	private static final int MAX_RATE_LIMIT_RETRIES = 3;
+
+	private final int maxConcurrentRequests;
+
+	/**
+	 * Part of the remaining budget that background requests must not use.
+	 */
+	private final int interactiveReserve;
+
+	private final LongSupplier clock;
+
+	private final ArrayDeque<Task> interactiveQueue = new ArrayDeque<>();
+	private final ArrayDeque<Task> backgroundQueue = new ArrayDeque<>();
+
+	/**
+	 * Remaining requests according to the last response, or -1 if unknown.
+	 */
+	private int remaining = -1;
+
+	/**
+	 * Time (in milliseconds) at which the rate limit gets reset.
+	 */
+	private long resetAt = 0;
+
+	/**
+	 * No requests are sent before this time (in milliseconds), set after rate limit errors.
+	 */
+	private long blockedUntil = 0;
+
+	private int inFlight = 0;
+
+	private ScheduledFuture<?> scheduledDispatch;
+
+	/**
+	 * Creates a scheduler for one personal access token.
+	 * @param maxConcurrentRequests Maximum number of requests that are sent at the same time.
+	 * @param interactiveReserve Number of remaining requests that background requests leave for interactive
+	 *        requests.
+	 */
+	public GitHubRequestScheduler(int maxConcurrentRequests, int interactiveReserve) {
+		this(maxConcurrentRequests, interactiveReserve, System::currentTimeMillis);
+	}
+
+	GitHubRequestScheduler(int maxConcurrentRequests, int interactiveReserve, LongSupplier clock) {
+		this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+		this.interactiveReserve = Math.max(0, interactiveReserve);
+		this.clock = clock;
+	}
+
+	/**
+	 * Queues the given request. It is sent as soon as the rate limit of the token allows it.
+	 * @param priority Priority of the request.
+	 * @param request Sends the request. Might be called more than once, if GitHub rejects the request because
+	 *        of the rate limit.
+	 * @return Future that completes with the response.
+	 */
+	public CompletableFuture<HttpResponse<String>> submit(Priority priority,
+			Supplier<CompletableFuture<HttpResponse<String>>> request) {
+		Task task = new Task(priority, request);
+		synchronized (this) {
+			this.queueFor(priority).addLast(task);
+		}
+		this.dispatch();
+		return task.result;
+	}
+
+	/**
+	 * Returns the number of requests that wait to be sent.
+	 * @return Number of queued requests.
+	 */
+	public synchronized int getQueueDepth() {
+		return this.interactiveQueue.size() + this.backgroundQueue.size();
+	}
+
+	/**
+	 * Returns the number of requests that wait to be sent with the given priority.
+	 * @param priority Priority of the requests.
+	 * @return Number of queued requests.
+	 */
+	public synchronized int getQueueDepth(Priority priority) {
+		return this.queueFor(priority).size();
+	}
+
+	/**
+	 * Returns the remaining budget of the token according to the last response.
+	 * @return Remaining requests, or -1 if unknown.
+	 */
+	public synchronized int getRemaining() {
+		return this.remaining;
+	}
+
+	private ArrayDeque<Task> queueFor(Priority priority) {
+		return priority == Priority.INTERACTIVE ? this.interactiveQueue : this.backgroundQueue;
+	}
+
+	/**
+	 * Sends as many queued requests as the rate limit allows. If requests need to wait, a later dispatch gets
+	 * scheduled.
+	 */
+	private void dispatch() {
+		while (true) {
+			Task task;
+			synchronized (this) {
+				long now = this.clock.getAsLong();
+				if (this.remaining >= 0 && now >= this.resetAt) {
+					// rate limit got reset, budget is unknown until the next response
+					this.remaining = -1;
+				}
+				if (this.inFlight >= this.maxConcurrentRequests) return;
+				if (now < this.blockedUntil) {
+					if (this.getQueueDepth() > 0) this.scheduleDispatch(this.blockedUntil - now);
+					return;
+				}
+				task = this.nextTask();
+				if (task == null) {
+					if (this.getQueueDepth() > 0) this.scheduleDispatch(this.resetAt - now);
+					return;
+				}
+				this.inFlight++;
+				if (this.remaining > 0) this.remaining--;
+			}
+			this.send(task);
+		}
+	}
+
+	/**
+	 * Removes the next request that may be sent now from the queues.
+	 * @return The request, or null if no request may be sent now.
+	 */
+	private Task nextTask() {
+		int available = this.remaining < 0 ? Integer.MAX_VALUE : this.remaining;
+		if (!this.interactiveQueue.isEmpty() && available > 0) {
+			return this.interactiveQueue.pollFirst();
+		}
+		if (!this.backgroundQueue.isEmpty() && available > this.interactiveReserve) {
+			return this.backgroundQueue.pollFirst();
+		}
+		return null;
+	}
+
+	private void scheduleDispatch(long delay) {
+		if (this.scheduledDispatch != null && !this.scheduledDispatch.isDone()) return;
+		this.scheduledDispatch = TIMER.schedule(this::dispatch, Math.max(1, delay), TimeUnit.MILLISECONDS);
+	}
+
+	private void send(Task task) {
+		CompletableFuture<HttpResponse<String>> response;
+		try {
+			response = task.request.get();
+		} catch (RuntimeException e) {
+			response = CompletableFuture.failedFuture(e);
+		}
+		response.whenComplete((r, e) -> {
+			boolean retry = false;
+			synchronized (this) {
+				this.inFlight--;
+				if (r != null) {
+					retry = this.update(r) && task.attempts++ < MAX_RATE_LIMIT_RETRIES;
+					if (retry) {
+						// send again before any other request
+						this.queueFor(task.priority).addFirst(task);
+					}
+				}
+			}
+			if (!retry) {
+				if (e != null) {
+					task.result.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+							? e.getCause() : e);
+				} else {
+					task.result.complete(r);
+				}
+			}
+			this.dispatch();
+		});
+	}
+
+	/**
+	 * Updates the budget using the headers of the given response.
+	 * @param response Response of the GitHub API.
+	 * @return Whether the request got rejected because of the rate limit.
+	 */
+	private boolean update(HttpResponse<String> response) {
+		long now = this.clock.getAsLong();
+		Long remaining = parseLong(response, "X-RateLimit-Remaining");
+		Long reset = parseLong(response, "X-RateLimit-Reset");
+		if (reset != null) this.resetAt = reset * 1000;
+		if (remaining != null) this.remaining = (int) Math.min(Integer.MAX_VALUE, remaining);
+
+		int status = response.statusCode();
+		if (status != 403 && status != 429) return false;
+
+		Long retryAfter = parseLong(response, "Retry-After");
+		if (retryAfter != null) {
+			this.blockedUntil = Math.max(this.blockedUntil, now + retryAfter * 1000);
+			return true;
+		}
+		if (remaining != null && remaining == 0) {
+			// primary rate limit exceeded
+			this.blockedUntil = Math.max(this.blockedUntil, this.resetAt);
+			return true;
+		}
+		String body = response.body();
+		if (body != null && body.toLowerCase().contains("rate limit")) {
+			// secondary rate limit without Retry-After header
+			this.blockedUntil = Math.max(this.blockedUntil, now + SECONDARY_LIMIT_DEFAULT_WAIT);
+			return true;
+		}
+		// request was forbidden for another reason
+		return false;
+	}
+
+	private static Long parseLong(HttpResponse<String> response, String header) {
+		try {
+			return response.headers().firstValue(header).map(String::trim).map(Long::valueOf).orElse(null);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A queued request.
+	 */
+	private static class Task {
+		private final Priority priority;
+		private final Supplier<CompletableFuture<HttpResponse<String>>> request;
+		private final CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+		private int attempts = 0;
+
+		private Task(Priority priority, Supplier<CompletableFuture<HttpResponse<String>>> request) {
+			this.priority = priority;
+			this.request = request;
+		}
+	}
+
+}
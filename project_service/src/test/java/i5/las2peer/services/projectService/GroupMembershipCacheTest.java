@@ -0,0 +1,41 @@
+package i5.las2peer.services.projectService;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GroupMembershipCacheTest {
+
+    private static final String userId = "user";
+    private static final String groupId = "group";
+    private static final String otherGroupId = "otherGroup";
+
+    @Test
+    public void getAndPutTest() {
+        GroupMembershipCache cache = new GroupMembershipCache(60000);
+        assertNull(cache.get(userId, groupId));
+
+        cache.put(userId, groupId, true);
+        cache.put(userId, otherGroupId, false);
+        assertEquals(Boolean.TRUE, cache.get(userId, groupId));
+        assertEquals(Boolean.FALSE, cache.get(userId, otherGroupId));
+    }
+
+    @Test
+    public void invalidateGroupTest() {
+        GroupMembershipCache cache = new GroupMembershipCache(60000);
+        cache.put(userId, groupId, true);
+        cache.put(userId, otherGroupId, true);
+
+        cache.invalidateGroup(groupId);
+        assertNull(cache.get(userId, groupId));
+        assertEquals(Boolean.TRUE, cache.get(userId, otherGroupId));
+    }
+
+    @Test
+    public void disabledTest() {
+        GroupMembershipCache cache = new GroupMembershipCache(0);
+        cache.put(userId, groupId, true);
+        assertNull(cache.get(userId, groupId));
+    }
+}
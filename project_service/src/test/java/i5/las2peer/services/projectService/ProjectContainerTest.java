@@ -0,0 +1,139 @@
+package i5.las2peer.services.projectService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import i5.las2peer.services.projectService.project.Project;
+import i5.las2peer.services.projectService.util.github.GitHubProject;
+import i5.las2peer.services.projectService.util.github.GitHubProjectStatus;
+
+import static org.junit.Assert.*;
+
+public class ProjectContainerTest {
+
+    private static String getProjectJSON(String projectName, String groupId) {
+        return "{\"name\": \"" + projectName + "\", \"linkedGroup\": {\"name\": \"group\", \"id\": \"" + groupId
+                + "\"}, \"metadata\": {\"attr\": \"v\u00e4lue\"}}";
+    }
+
+    private static ProjectContainer serializeAndDeserialize(ProjectContainer container) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(container);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ProjectContainer) in.readObject();
+        }
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        ProjectContainer container = new ProjectContainer();
+        Project project1 = new Project(null, getProjectJSON("project1", "groupId"));
+        JSONObject chatInfo = new JSONObject();
+        chatInfo.put("channelName", "channel");
+        project1.setChatInfo(chatInfo);
+        container.addProject(project1);
+        container.addProject(new Project(null, getProjectJSON("project2", "groupId")));
+        container.getUserProjects().add("project1");
+        container.incrementVersion();
+
+        ProjectContainer read = serializeAndDeserialize(container);
+        assertEquals(1, read.getVersion());
+        assertEquals(2, read.getAllProjects().size());
+        assertTrue(read.getUserProjects().contains("project1"));
+
+        Project readProject = read.getProjectByName("project1");
+        assertEquals(project1.getGroupIdentifier(), readProject.getGroupIdentifier());
+        assertEquals(project1.getGroupName(), readProject.getGroupName());
+        assertEquals(project1.getMetadataString(), readProject.getMetadataString());
+        assertEquals(project1.toJSONObject(), readProject.toJSONObject());
+        assertFalse(readProject.gitHubProjectConnected());
+    }
+
+    @Test
+    public void gitHubProjectStatusTest() throws Exception {
+        ProjectContainer container = new ProjectContainer();
+        Project pending = new Project(null, getProjectJSON("pending", "groupId"));
+        pending.setGitHubProjectPending();
+        container.addProject(pending);
+        Project created = new Project(null, getProjectJSON("created", "groupId"));
+        created.setConnectedGitHubProject(new GitHubProject(42, "https://github.com/orgs/org/projects/1"));
+        container.addProject(created);
+        Project failed = new Project(null, getProjectJSON("failed", "groupId"));
+        failed.setGitHubProjectFailed();
+        container.addProject(failed);
+        container.addProject(new Project(null, getProjectJSON("none", "groupId")));
+
+        ProjectContainer read = serializeAndDeserialize(container);
+        assertEquals(GitHubProjectStatus.PENDING, read.getProjectByName("pending").getGitHubProjectStatus());
+        assertFalse(read.getProjectByName("pending").gitHubProjectConnected());
+        assertEquals(GitHubProjectStatus.CREATED, read.getProjectByName("created").getGitHubProjectStatus());
+        assertEquals(42, read.getProjectByName("created").getConnectedGitHubProject().getId());
+        assertEquals(GitHubProjectStatus.FAILED, read.getProjectByName("failed").getGitHubProjectStatus());
+        assertNull(read.getProjectByName("none").getGitHubProjectStatus());
+    }
+
+    @Test
+    public void emptyContainerTest() throws Exception {
+        ProjectContainer read = serializeAndDeserialize(new ProjectContainer());
+        assertEquals(0, read.getVersion());
+        assertTrue(read.getAllProjects().isEmpty());
+
+        // read container can be modified
+        read.addProject(new Project(null, getProjectJSON("project", "groupId")));
+        assertNotNull(read.getProjectByName("project"));
+    }
+
+    @Test
+    public void groupIndexTest() throws Exception {
+        ProjectContainer container = new ProjectContainer();
+        container.addProject(new Project(null, getProjectJSON("b", "group1")));
+        container.addProject(new Project(null, getProjectJSON("a", "group1")));
+        container.addProject(new Project(null, getProjectJSON("c", "group2")));
+
+        assertEquals(2, container.getProjectNamesByGroup("group1").size());
+        assertEquals("a", container.getProjectsByGroup("group1").get(0).getName());
+        assertEquals("b", container.getProjectsByGroup("group1").get(1).getName());
+        assertTrue(container.getProjectNamesByGroup("unknown").isEmpty());
+
+        // changing the group of a project
+        Project project = container.getProjectByName("b");
+        container.removeProject(project);
+        project.changeGroup("group2", "group");
+        container.addProject(project);
+        assertEquals(1, container.getProjectNamesByGroup("group1").size());
+        assertTrue(container.getProjectNamesByGroup("group2").contains("b"));
+
+        // replacing a project with a project of another group
+        container.addProject(new Project(null, getProjectJSON("a", "group3")));
+        assertTrue(container.getProjectNamesByGroup("group1").isEmpty());
+        assertTrue(container.getProjectNamesByGroup("group3").contains("a"));
+
+        container.removeProject("c");
+        assertEquals(1, container.getProjectNamesByGroup("group2").size());
+    }
+
+    @Test
+    public void groupIndexSerializationTest() throws Exception {
+        ProjectContainer shard1 = new ProjectContainer();
+        shard1.addProject(new Project(null, getProjectJSON("project1", "group1")));
+        ProjectContainer shard2 = new ProjectContainer();
+        shard2.addProject(new Project(null, getProjectJSON("project2", "group1")));
+        shard2.addProject(new Project(null, getProjectJSON("project3", "group2")));
+
+        ProjectContainer merged = ProjectContainer.merge(Arrays.asList(shard1, shard2));
+        assertEquals(2, merged.getProjectNamesByGroup("group1").size());
+
+        ProjectContainer read = serializeAndDeserialize(merged);
+        assertEquals(2, read.getProjectsByGroup("group1").size());
+        assertTrue(read.getProjectNamesByGroup("group2").contains("project3"));
+    }
+
+}
\ No newline at end of file
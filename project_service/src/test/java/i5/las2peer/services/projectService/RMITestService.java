@@ -5,6 +5,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.Response;
 
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import i5.las2peer.api.Context;
@@ -92,6 +93,23 @@ public class RMITestService extends RESTService {
 		this._onProjectDeletedData = projectJSON;
 	}
 	
+	/**
+	 * This is one of the methods, that the EventManager of the project service can call.
+	 * It is called with several events at once, instead of the methods for the single events.
+	 * @param events JSONArray containing the events, each with its type and the project.
+	 */
+	public void _onProjectEvents(JSONArray events) {
+		for(Object event : events) {
+			JSONObject eventJSON = (JSONObject) event;
+			JSONObject projectJSON = (JSONObject) eventJSON.get("project");
+			if("projectCreated".equals(eventJSON.get("type"))) {
+				this._onProjectCreatedData = projectJSON;
+			} else if("projectDeleted".equals(eventJSON.get("type"))) {
+				this._onProjectDeletedData = projectJSON;
+			}
+		}
+	}
+	
 	/**
 	 * This method may be used to verify, if the _onProjectCreated method got called correctly by the 
 	 * project service.
@@ -5,6 +5,9 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 import org.json.simple.JSONArray;
@@ -238,6 +241,90 @@ public class ServiceTest {
 		}
 	}
 
+	/**
+	 * Tests that the metrics endpoint returns the request and storage metrics in the Prometheus text format.
+	 */
+	@Test
+	public void testGetMetrics() {
+		try {
+			MiniClient client = new MiniClient();
+			client.setConnectorEndpoint(connector.getHttpEndpoint());
+			client.setLogin(testAgentAdam.getIdentifier(), testPassAdam);
+
+			// creating a project requests envelopes and the group agent
+			ClientResponse result = client.sendRequest("POST", mainPath,
+					this.getProjectJSON("Project1_testGetMetrics", this.nameGroupA, this.identifierGroupA));
+			Assert.assertEquals(HttpURLConnection.HTTP_CREATED, result.getHttpCode());
+			result = client.sendRequest("GET", mainPath, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+
+			result = client.sendRequest("GET", "projects/metrics", "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			String metrics = result.getResponse();
+			Assert.assertTrue(metrics.contains("project_service_requests_total{endpoint=\"getProjects\",status=\"200\"}"));
+			Assert.assertTrue(metrics.contains("# TYPE project_service_request_duration_seconds histogram"));
+			Assert.assertTrue(metrics.contains("project_service_envelope_operation_duration_seconds_count{operation=\"request\""));
+			Assert.assertTrue(metrics.contains("project_service_agent_operation_duration_seconds_count{operation=\"requestAgent\""));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	/**
+	 * Tests the pagination and the scope parameter of the method for fetching projects.
+	 */
+	@Test
+	public void testGetProjectsPagination() {
+		try {
+			MiniClient client = new MiniClient();
+			client.setConnectorEndpoint(connector.getHttpEndpoint());
+			client.setLogin(testAgentAdam.getIdentifier(), testPassAdam);
+
+			// add three projects using adam and group A
+			for (int i = 1; i <= 3; i++) {
+				ClientResponse result = client.sendRequest("POST", mainPath,
+						this.getProjectJSON("Project" + i + "_testGetProjectsPagination", this.nameGroupA, this.identifierGroupA));
+				Assert.assertEquals(HttpURLConnection.HTTP_CREATED, result.getHttpCode());
+			}
+
+			// first page should contain the first two projects and a cursor for the next page
+			ClientResponse result = client.sendRequest("GET", mainPath + "?limit=2", "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			JSONObject resultJSON = (JSONObject) JSONValue.parse(result.getResponse().trim());
+			JSONArray projectsJSON = (JSONArray) resultJSON.get("projects");
+			Assert.assertEquals(2, projectsJSON.size());
+			Assert.assertEquals("Project1_testGetProjectsPagination", ((JSONObject) projectsJSON.get(0)).get("name"));
+			String cursor = (String) resultJSON.get("nextCursor");
+			Assert.assertNotNull(cursor);
+
+			// second page should only contain the last project
+			result = client.sendRequest("GET", mainPath + "?limit=2&cursor=" + cursor, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			resultJSON = (JSONObject) JSONValue.parse(result.getResponse().trim());
+			projectsJSON = (JSONArray) resultJSON.get("projects");
+			Assert.assertEquals(1, projectsJSON.size());
+			Assert.assertEquals("Project3_testGetProjectsPagination", ((JSONObject) projectsJSON.get(0)).get("name"));
+			Assert.assertNull(resultJSON.get("nextCursor"));
+
+			// eve is no member of group A, so no project should be listed for eve
+			client.setLogin(testAgentEve.getIdentifier(), testPassEve);
+			result = client.sendRequest("GET", mainPath + "?scope=mine", "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			resultJSON = (JSONObject) JSONValue.parse(result.getResponse().trim());
+			Assert.assertEquals(0, ((JSONArray) resultJSON.get("projects")).size());
+
+			// test with invalid parameters
+			result = client.sendRequest("GET", mainPath + "?scope=others", "");
+			Assert.assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, result.getHttpCode());
+			result = client.sendRequest("GET", mainPath + "?limit=-1", "");
+			Assert.assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, result.getHttpCode());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 	@Test
 	public void testPostProject() {
 		try {
@@ -281,8 +368,8 @@ public class ServiceTest {
 			result = client.sendRequest("POST", mainPath, "{\"projectName\": \"should-fail\"}");
 			Assert.assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, result.getHttpCode());
 
-			// check if RMITestService event _onProjectCreated got called
-			result = client.sendRequest("GET", "rmitestservice/onProjectCreated", "");
+			// check if RMITestService event _onProjectCreated got called (events are delivered in the background)
+			result = waitForEvent(client, "rmitestservice/onProjectCreated");
 			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
 
 			// test with metadata
@@ -302,17 +389,63 @@ public class ServiceTest {
 			Assert.assertEquals(false, node.hasService(rmiTestServiceName));
 			
 			// create a project (while event listener service or in this case RMITestService is not running anymore)
-			// this should not be possible (because the event cannot be sent)
+			// this should still be possible, because the event is stored in the outbox and delivered later
 			result = client.sendRequest("POST", mainPath, 
 					this.getProjectJSON("rmi-test-service-unavailable", "groupName", this.identifierGroupA));
-			Assert.assertEquals(HttpURLConnection.HTTP_INTERNAL_ERROR, result.getHttpCode());
-			// if event listener is not available, the project should not be created => verify this
+			Assert.assertEquals(HttpURLConnection.HTTP_CREATED, result.getHttpCode());
 			result = client.sendRequest("GET", "projects/" + system1 + "/rmi-test-service-unavailable", "");
-			Assert.assertEquals(HttpURLConnection.HTTP_NOT_FOUND, result.getHttpCode());
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
 			
 			// start RMITestService again (maybe it is needed by other tests)
 			node.startService(rmiTestServiceName, "a pass");
 			Assert.assertEquals(true, node.hasService(rmiTestServiceName));
+			
+			// the pending event should be delivered to the restarted RMITestService
+			result = waitForEvent(client, "rmitestservice/onProjectCreated");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			Assert.assertTrue(result.getResponse().contains("rmi-test-service-unavailable"));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testPostProjectConcurrently() {
+		try {
+			final int projectCount = 8;
+			List<Thread> threads = new ArrayList<>();
+			List<Integer> httpCodes = Collections.synchronizedList(new ArrayList<>());
+
+			// create several projects at the same time, all of them are added to the project list
+			for (int i = 1; i <= projectCount; i++) {
+				final String projectName = "Project" + i + "_testPostProjectConcurrently";
+				Thread thread = new Thread(() -> {
+					MiniClient client = new MiniClient();
+					client.setConnectorEndpoint(connector.getHttpEndpoint());
+					client.setLogin(testAgentAdam.getIdentifier(), testPassAdam);
+					ClientResponse result = client.sendRequest("POST", mainPath,
+							getProjectJSON(projectName, nameGroupA, identifierGroupA));
+					httpCodes.add(result.getHttpCode());
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			for (int httpCode : httpCodes) {
+				Assert.assertEquals(HttpURLConnection.HTTP_CREATED, httpCode);
+			}
+
+			// no project should get lost in the project list
+			MiniClient client = new MiniClient();
+			client.setConnectorEndpoint(connector.getHttpEndpoint());
+			client.setLogin(testAgentAdam.getIdentifier(), testPassAdam);
+			ClientResponse result = client.sendRequest("GET", mainPath, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			JSONObject resultJSON = (JSONObject) JSONValue.parse(result.getResponse().trim());
+			Assert.assertEquals(projectCount, ((JSONArray) resultJSON.get("projects")).size());
 		} catch (Exception e) {
 			e.printStackTrace();
 			Assert.fail(e.toString());
@@ -401,6 +534,56 @@ public class ServiceTest {
 		}
 	}
 	
+	/**
+	 * Tests fetching the projects of a group, also after the group of a project got changed.
+	 */
+	@Test
+	public void testGetProjectsByGroup() {
+		try {
+			MiniClient client = new MiniClient();
+			client.setConnectorEndpoint(connector.getHttpEndpoint());
+			client.setLogin(testAgentAdam.getIdentifier(), testPassAdam);
+
+			// create project using adam and group A
+			String projectName = "Project1_testGetProjectsByGroup";
+			ClientResponse result = client.sendRequest("POST", mainPath,
+					this.getProjectJSON(projectName, this.nameGroupA, this.identifierGroupA));
+			Assert.assertEquals(HttpURLConnection.HTTP_CREATED, result.getHttpCode());
+
+			result = client.sendRequest("GET", mainPath + "byGroup/" + this.identifierGroupA, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			JSONArray projects = (JSONArray) ((JSONObject) JSONValue.parse(result.getResponse())).get("projects");
+			Assert.assertEquals(1, projects.size());
+			Assert.assertEquals(projectName, ((JSONObject) projects.get(0)).get("name"));
+
+			// move the project to group 1
+			JSONObject o = new JSONObject();
+			o.put("projectName", projectName);
+			o.put("newGroupId", this.identifierGroup1);
+			o.put("newGroupName", this.nameGroup1);
+			result = client.sendRequest("POST", mainPath + "changeGroup", o.toJSONString());
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+
+			result = client.sendRequest("GET", mainPath + "byGroup/" + this.identifierGroupA, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			projects = (JSONArray) ((JSONObject) JSONValue.parse(result.getResponse())).get("projects");
+			Assert.assertTrue(projects.isEmpty());
+
+			result = client.sendRequest("GET", mainPath + "byGroup/" + this.identifierGroup1, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
+			projects = (JSONArray) ((JSONObject) JSONValue.parse(result.getResponse())).get("projects");
+			Assert.assertEquals(1, projects.size());
+			Assert.assertEquals(projectName, ((JSONObject) projects.get(0)).get("name"));
+
+			// invalid system name
+			result = client.sendRequest("GET", "projects/systemdoesnotexist/byGroup/" + this.identifierGroup1, "");
+			Assert.assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, result.getHttpCode());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 	@Test
 	public void testChangeMetadata() {
 		try {
@@ -510,8 +693,8 @@ public class ServiceTest {
 			result = client.sendRequest("DELETE", mainPath + projectName, "");
 			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
 			
-			// check if RMITestService event _onProjectCreated got called
-			result = client.sendRequest("GET", "rmitestservice/onProjectDeleted", "");
+			// check if RMITestService event _onProjectDeleted got called (events are delivered in the background)
+			result = waitForEvent(client, "rmitestservice/onProjectDeleted");
 			Assert.assertEquals(HttpURLConnection.HTTP_OK, result.getHttpCode());
 			
 			// count number of projects that adam has access to again
@@ -526,6 +709,26 @@ public class ServiceTest {
 		}
 	}
 
+	/**
+	 * Helper method to wait until the RMITestService received an event.
+	 * Events are delivered in the background, thus the given path is requested until it returns 200 or
+	 * the timeout is reached.
+	 * 
+	 * @param client Client used to send the requests.
+	 * @param path   Path of the RMITestService method that checks whether the event got received.
+	 * @return Last response of the RMITestService.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private static ClientResponse waitForEvent(MiniClient client, String path) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 15000;
+		ClientResponse result = client.sendRequest("GET", path, "");
+		while (result.getHttpCode() != HttpURLConnection.HTTP_OK && System.currentTimeMillis() < timeout) {
+			Thread.sleep(100);
+			result = client.sendRequest("GET", path, "");
+		}
+		return result;
+	}
+
 	/**
 	 * Helper method to get a JSON string representation of a project.
 	 * 
@@ -0,0 +1,32 @@
+package i5.las2peer.services.projectService.chat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChannelIdCacheTest {
+
+    @Test
+    public void cacheTest() throws Exception {
+        ChannelIdCache cache = new ChannelIdCache(50);
+        assertNull(cache.get("channel"));
+
+        cache.put("channel", "id");
+        assertEquals("id", cache.get("channel"));
+
+        cache.invalidate("channel");
+        assertNull(cache.get("channel"));
+
+        // entries expire after the max age
+        cache.put("channel", "id");
+        Thread.sleep(100);
+        assertNull(cache.get("channel"));
+    }
+
+    @Test
+    public void disabledTest() {
+        ChannelIdCache cache = new ChannelIdCache(0);
+        cache.put("channel", "id");
+        assertNull(cache.get("channel"));
+    }
+}
@@ -22,5 +22,27 @@ public class RocketChatConfigTest {
         assertEquals(chatConfig.getUrl(), url);
         assertEquals(chatConfig.getBotAuthToken(), botAuthToken);
         assertEquals(chatConfig.getBotUserId(), botUserId);
+        assertEquals(RocketChatConfig.DEFAULT_CONNECT_TIMEOUT, chatConfig.getConnectTimeout());
+        assertEquals(RocketChatConfig.DEFAULT_READ_TIMEOUT, chatConfig.getReadTimeout());
+        assertEquals(RocketChatConfig.DEFAULT_CHANNEL_CACHE_MAX_AGE, chatConfig.getChannelCacheMaxAge());
+    }
+
+    @Test
+    public void optionalSettingsTest() {
+        JSONObject configJSON = new JSONObject();
+        configJSON.put("url", url);
+        configJSON.put("botAuthToken", botAuthToken);
+        configJSON.put("botUserId", botUserId);
+        configJSON.put("connectTimeout", 1000L);
+        configJSON.put("readTimeout", 2000L);
+        configJSON.put("channelCacheMaxAge", 0L);
+
+        RocketChatConfig chatConfig = RocketChatConfig.fromJSON(configJSON);
+        assertEquals(1000, chatConfig.getConnectTimeout());
+        assertEquals(2000, chatConfig.getReadTimeout());
+        assertEquals(0, chatConfig.getChannelCacheMaxAge());
+        // configurations with the same settings share a chat manager
+        assertEquals(chatConfig, RocketChatConfig.fromJSON(configJSON));
+        assertFalse(chatConfig.equals(RocketChatConfig.fromJSON(new JSONObject())));
     }
 }
\ No newline at end of file
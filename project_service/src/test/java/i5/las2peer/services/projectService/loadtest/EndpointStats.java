@@ -0,0 +1,92 @@
+package i5.las2peer.services.projectService.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the latencies and the number of successful, conflicting and failed requests of one endpoint.
+ */
+public class EndpointStats {
+
+	private final String name;
+
+	private long[] latencies = new long[1024];
+	private int latencyCount = 0;
+
+	private final AtomicLong successes = new AtomicLong();
+	private final AtomicLong conflicts = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	public EndpointStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records a request that succeeded.
+	 * @param latencyNanos Latency of the request in nanoseconds.
+	 */
+	public void success(long latencyNanos) {
+		this.successes.incrementAndGet();
+		this.addLatency(latencyNanos);
+	}
+
+	/**
+	 * Records a request that was rejected because of a concurrent request (e.g. the project already
+	 * exists, got deleted or its metadata got changed in the meantime).
+	 * @param latencyNanos Latency of the request in nanoseconds.
+	 */
+	public void conflict(long latencyNanos) {
+		this.conflicts.incrementAndGet();
+		this.addLatency(latencyNanos);
+	}
+
+	/**
+	 * Records a request that failed.
+	 * @param latencyNanos Latency of the request in nanoseconds.
+	 */
+	public void error(long latencyNanos) {
+		this.errors.incrementAndGet();
+		this.addLatency(latencyNanos);
+	}
+
+	private synchronized void addLatency(long latencyNanos) {
+		if (this.latencyCount == this.latencies.length) {
+			this.latencies = Arrays.copyOf(this.latencies, this.latencies.length * 2);
+		}
+		this.latencies[this.latencyCount++] = latencyNanos;
+	}
+
+	/**
+	 * Returns the given percentile of the recorded latencies (nearest-rank method).
+	 * @param percentile Percentile between 0 and 1, e.g. 0.99.
+	 * @return Latency in nanoseconds, or 0 if no request got recorded.
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (this.latencyCount == 0) return 0;
+		long[] sorted = Arrays.copyOf(this.latencies, this.latencyCount);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+	}
+
+	public synchronized long getRequestCount() {
+		return this.latencyCount;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getSuccesses() {
+		return successes.get();
+	}
+
+	public long getConflicts() {
+		return conflicts.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+}
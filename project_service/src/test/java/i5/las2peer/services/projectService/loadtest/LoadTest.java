@@ -0,0 +1,445 @@
+package i5.las2peer.services.projectService.loadtest;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.api.security.Agent;
+import i5.las2peer.connectors.webConnector.WebConnector;
+import i5.las2peer.connectors.webConnector.client.ClientResponse;
+import i5.las2peer.connectors.webConnector.client.MiniClient;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.ServiceAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.services.projectService.ProjectService;
+import i5.las2peer.services.projectService.RMITestService;
+import i5.las2peer.services.projectService.loadtest.LoadTestConfig.Operation;
+
+/**
+ * Load test for the project service.
+ * Starts a local node with the project service (set up in the same way as in the ServiceTest), creates
+ * many user and group agents and sends requests to postProject, getProjects, changeMetadata and
+ * deleteProject from many threads. Afterwards, throughput, latencies (p50, p99, p99.9) and the number of
+ * conflicts and errors are printed per endpoint.
+ *
+ * Every change of the metadata increments a revision stored in the metadata of the project. At the end,
+ * the revision of every project is compared with the number of successful changes, which reveals lost
+ * updates.
+ *
+ * The load test is started using "gradle loadTest", see {@link LoadTestConfig} for the available options.
+ */
+public class LoadTest {
+
+	private static final String SYSTEM = "test";
+	private static final String MAIN_PATH = "projects/" + SYSTEM + "/";
+	private static final String PROPERTIES_PATH = "properties/i5.las2peer.services.projectService.ProjectService.properties";
+	private static final String USER_PASS = "loadtestpass";
+
+	private final LoadTestConfig config;
+
+	private LocalNode node;
+	private WebConnector connector;
+
+	private final List<UserAgentImpl> users = new ArrayList<>();
+	private final List<GroupAgentImpl> groups = new ArrayList<>();
+
+	/**
+	 * Indices of the groups of every user.
+	 */
+	private final List<List<Integer>> groupsOfUser = new ArrayList<>();
+
+	/**
+	 * Projects that can be changed, per group.
+	 */
+	private final List<CopyOnWriteArrayList<TrackedProject>> projectsByGroup = new ArrayList<>();
+
+	/**
+	 * All projects that were created and not deleted.
+	 */
+	private final ConcurrentHashMap<String, TrackedProject> projects = new ConcurrentHashMap<>();
+
+	private final EnumMap<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+	private final AtomicInteger projectCounter = new AtomicInteger();
+
+	public LoadTest(LoadTestConfig config) {
+		this.config = config;
+		for (Operation operation : Operation.values()) {
+			this.stats.put(operation, new EndpointStats(operation.getKey()));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+		System.out.println("Starting load test with " + config);
+		LoadTest loadTest = new LoadTest(config);
+		int lostUpdates;
+		try {
+			loadTest.startServer();
+			long durationNanos = loadTest.run();
+			loadTest.printReport(durationNanos);
+			lostUpdates = loadTest.checkLostUpdates();
+		} finally {
+			loadTest.shutDownServer();
+		}
+		System.exit(lostUpdates == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Starts the node, the project service and the connector and creates the user and group agents.
+	 * @throws Exception If starting fails.
+	 */
+	public void startServer() throws Exception {
+		this.node = new LocalNodeManager().newNode();
+		this.node.launch();
+
+		for (int i = 0; i < this.config.getUsers(); i++) {
+			UserAgentImpl user = UserAgentImpl.createUserAgent(USER_PASS);
+			user.unlock(USER_PASS);
+			this.node.storeAgent(user);
+			this.users.add(user);
+			this.groupsOfUser.add(new ArrayList<>());
+		}
+
+		// users are assigned to the groups round-robin, so groups overlap if groupSize * groups > users
+		for (int g = 0; g < this.config.getGroups(); g++) {
+			Agent[] members = new Agent[this.config.getGroupSize()];
+			for (int j = 0; j < members.length; j++) {
+				int userIndex = (g * members.length + j) % this.users.size();
+				members[j] = this.users.get(userIndex);
+				this.groupsOfUser.get(userIndex).add(g);
+			}
+			GroupAgentImpl group = GroupAgentImpl.createGroupAgent(members);
+			group.unlock((UserAgentImpl) members[0]);
+			this.node.storeAgent(group);
+			this.groups.add(group);
+			this.projectsByGroup.add(new CopyOnWriteArrayList<>());
+		}
+
+		UserAgentImpl serviceGroupAdmin = UserAgentImpl.createUserAgent(USER_PASS);
+		serviceGroupAdmin.unlock(USER_PASS);
+		this.node.storeAgent(serviceGroupAdmin);
+		GroupAgentImpl serviceGroup = GroupAgentImpl.createGroupAgent(new Agent[] { serviceGroupAdmin });
+		serviceGroup.unlock(serviceGroupAdmin);
+		this.node.storeAgent(serviceGroup);
+
+		Properties props = new Properties();
+		props.load(new FileInputStream(PROPERTIES_PATH));
+		props.setProperty("serviceGroupId", serviceGroup.getIdentifier());
+		props.store(new FileOutputStream(PROPERTIES_PATH), null);
+
+		ServiceAgentImpl projectService = this.node
+				.startService(new ServiceNameVersion(ProjectService.class.getName(), "1.0.0"), "a pass");
+		serviceGroup.addMember(projectService);
+		this.node.storeAgent(serviceGroup);
+
+		// event listener service of the test system
+		this.node.startService(new ServiceNameVersion(RMITestService.class.getName(), "1.0.0"), "a pass");
+
+		this.connector = new WebConnector(true, 0, false, 0);
+		this.connector.start(this.node);
+	}
+
+	/**
+	 * Stops the connector and the node.
+	 * @throws Exception If stopping fails.
+	 */
+	public void shutDownServer() throws Exception {
+		if (this.connector != null) {
+			this.connector.stop();
+			this.connector = null;
+		}
+		if (this.node != null) {
+			this.node.shutDown();
+			this.node = null;
+		}
+	}
+
+	/**
+	 * Sends requests from the configured number of threads until the configured duration is over.
+	 * @return Duration of the run in nanoseconds.
+	 * @throws InterruptedException If interrupted while waiting for the threads.
+	 */
+	public long run() throws InterruptedException {
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(this.config.getDurationSeconds());
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < this.config.getThreads(); i++) {
+			Worker worker = new Worker(i, end);
+			Thread thread = new Thread(worker, "loadtest-" + i);
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Prints throughput, latencies and conflict and error counts per endpoint.
+	 * @param durationNanos Duration of the run in nanoseconds.
+	 */
+	public void printReport(long durationNanos) {
+		double seconds = durationNanos / 1e9;
+		long total = 0;
+		System.out.println();
+		System.out.printf("%-16s %10s %10s %10s %10s %10s %10s %10s %10s%n", "endpoint", "requests", "req/s",
+				"ok", "conflicts", "errors", "p50 ms", "p99 ms", "p999 ms");
+		for (EndpointStats endpoint : this.stats.values()) {
+			total += endpoint.getRequestCount();
+			System.out.printf("%-16s %10d %10.1f %10d %10d %10d %10.2f %10.2f %10.2f%n", endpoint.getName(),
+					endpoint.getRequestCount(), endpoint.getRequestCount() / seconds, endpoint.getSuccesses(),
+					endpoint.getConflicts(), endpoint.getErrors(), endpoint.getPercentile(0.5) / 1e6,
+					endpoint.getPercentile(0.99) / 1e6, endpoint.getPercentile(0.999) / 1e6);
+		}
+		System.out.printf("Total: %d requests in %.1fs (%.1f req/s)%n", total, seconds, total / seconds);
+	}
+
+	/**
+	 * Compares the revision stored in the metadata of every remaining project with the number of
+	 * successful metadata changes.
+	 * @return Number of lost updates.
+	 */
+	public int checkLostUpdates() {
+		MiniClient client = this.createClient(this.users.get(0));
+		int lostUpdates = 0;
+		int checked = 0;
+		for (TrackedProject project : this.projects.values()) {
+			int revision = this.fetchRevision(client, project);
+			if (revision < 0) {
+				System.out.println("Could not read project " + project.name);
+				continue;
+			}
+			checked++;
+			if (revision != project.successfulChanges.get()) {
+				lostUpdates += Math.abs(project.successfulChanges.get() - revision);
+				System.out.println("Lost update in project " + project.name + ": revision " + revision + ", but "
+						+ project.successfulChanges.get() + " successful changes");
+			}
+		}
+		System.out.println("Checked " + checked + " projects, lost updates: " + lostUpdates);
+		return lostUpdates;
+	}
+
+	private MiniClient createClient(UserAgentImpl user) {
+		MiniClient client = new MiniClient();
+		client.setConnectorEndpoint(this.connector.getHttpEndpoint());
+		client.setLogin(user.getIdentifier(), USER_PASS);
+		return client;
+	}
+
+	/**
+	 * Reads the revision from the metadata of the given project.
+	 * @param client Client of a user that is allowed to read the project.
+	 * @param project Project to read.
+	 * @return The revision, or -1 if the project could not be read.
+	 */
+	private int fetchRevision(MiniClient client, TrackedProject project) {
+		ClientResponse result = client.sendRequest("GET", MAIN_PATH + project.name, "");
+		if (result.getHttpCode() != HttpURLConnection.HTTP_OK) return -1;
+		JSONObject projectJSON = (JSONObject) JSONValue.parse(result.getResponse().trim());
+		JSONObject metadata = (JSONObject) projectJSON.get("metadata");
+		return ((Number) metadata.get("revision")).intValue();
+	}
+
+	private static String getMetadata(int revision) {
+		return "{\"revision\":" + revision + "}";
+	}
+
+	private static boolean isSuccess(int httpCode) {
+		return httpCode >= 200 && httpCode < 300;
+	}
+
+	/**
+	 * A project that got created by the load test.
+	 */
+	private static class TrackedProject {
+		private final String name;
+		private final int groupIndex;
+		private final AtomicInteger successfulChanges = new AtomicInteger();
+		/**
+		 * Latest revision known to the load test, used as old metadata when changing the metadata.
+		 */
+		private final AtomicInteger knownRevision = new AtomicInteger();
+
+		private TrackedProject(String name, int groupIndex) {
+			this.name = name;
+			this.groupIndex = groupIndex;
+		}
+	}
+
+	/**
+	 * Sends requests as one user until the end of the run.
+	 */
+	private class Worker implements Runnable {
+		private final long end;
+		private final Random random;
+		private final MiniClient client;
+		private final List<Integer> groupIndices;
+		/**
+		 * Projects created by this worker, only these can be deleted by the worker.
+		 */
+		private final List<TrackedProject> ownProjects = new ArrayList<>();
+
+		private Worker(int index, long end) {
+			this.end = end;
+			this.random = new Random(config.getSeed() + index);
+			int userIndex = index % users.size();
+			this.client = createClient(users.get(userIndex));
+			this.groupIndices = groupsOfUser.get(userIndex);
+		}
+
+		@Override
+		public void run() {
+			while (System.nanoTime() < this.end) {
+				try {
+					switch (config.nextOperation(this.random)) {
+					case POST:
+						this.postProject();
+						break;
+					case GET:
+						this.getProjects();
+						break;
+					case CHANGE_METADATA:
+						this.changeMetadata();
+						break;
+					case DELETE:
+						this.deleteProject();
+						break;
+					}
+				} catch (RuntimeException e) {
+					System.out.println(Thread.currentThread().getName() + ": " + e);
+				}
+			}
+		}
+
+		private void postProject() {
+			if (this.groupIndices.isEmpty()) {
+				this.getProjects();
+				return;
+			}
+			int groupIndex = this.groupIndices.get(this.random.nextInt(this.groupIndices.size()));
+			String name = "loadtest" + projectCounter.incrementAndGet();
+			String body = "{\"name\": \"" + name + "\", \"linkedGroup\": { \"name\": \"group" + groupIndex
+					+ "\", \"id\": \"" + groups.get(groupIndex).getIdentifier() + "\"}, \"users\": [], \"metadata\": "
+					+ getMetadata(0) + "}";
+			EndpointStats endpoint = stats.get(Operation.POST);
+			long start = System.nanoTime();
+			ClientResponse result = this.client.sendRequest("POST", MAIN_PATH, body);
+			long latency = System.nanoTime() - start;
+			if (result.getHttpCode() == HttpURLConnection.HTTP_CREATED) {
+				endpoint.success(latency);
+				TrackedProject project = new TrackedProject(name, groupIndex);
+				projects.put(name, project);
+				projectsByGroup.get(groupIndex).add(project);
+				this.ownProjects.add(project);
+			} else if (result.getHttpCode() == HttpURLConnection.HTTP_CONFLICT) {
+				endpoint.conflict(latency);
+			} else {
+				endpoint.error(latency);
+			}
+		}
+
+		private void getProjects() {
+			EndpointStats endpoint = stats.get(Operation.GET);
+			long start = System.nanoTime();
+			ClientResponse result = this.client.sendRequest("GET", MAIN_PATH, "");
+			long latency = System.nanoTime() - start;
+			if (result.getHttpCode() == HttpURLConnection.HTTP_OK) {
+				endpoint.success(latency);
+			} else {
+				endpoint.error(latency);
+			}
+		}
+
+		private void changeMetadata() {
+			TrackedProject project = this.pickProject();
+			if (project == null) {
+				this.postProject();
+				return;
+			}
+			int revision = project.knownRevision.get();
+			JSONObject body = new JSONObject();
+			body.put("projectName", project.name);
+			body.put("oldMetadata", JSONValue.parse(getMetadata(revision)));
+			body.put("newMetadata", JSONValue.parse(getMetadata(revision + 1)));
+
+			EndpointStats endpoint = stats.get(Operation.CHANGE_METADATA);
+			long start = System.nanoTime();
+			ClientResponse result = this.client.sendRequest("POST", MAIN_PATH + "changeMetadata", body.toJSONString());
+			long latency = System.nanoTime() - start;
+			if (isSuccess(result.getHttpCode())) {
+				endpoint.success(latency);
+				project.successfulChanges.incrementAndGet();
+				project.knownRevision.accumulateAndGet(revision + 1, Math::max);
+			} else if (result.getHttpCode() == HttpURLConnection.HTTP_BAD_REQUEST
+					&& result.getResponse().contains("Inconsistency")) {
+				// metadata got changed concurrently, read the latest revision (not measured)
+				endpoint.conflict(latency);
+				int latest = fetchRevision(this.client, project);
+				if (latest >= 0) project.knownRevision.accumulateAndGet(latest, Math::max);
+			} else if (!projects.containsKey(project.name)) {
+				// project got deleted concurrently
+				endpoint.conflict(latency);
+			} else {
+				endpoint.error(latency);
+			}
+		}
+
+		private void deleteProject() {
+			if (this.ownProjects.isEmpty()) {
+				this.getProjects();
+				return;
+			}
+			TrackedProject project = this.ownProjects.remove(this.random.nextInt(this.ownProjects.size()));
+			// other workers should not change the project anymore
+			projectsByGroup.get(project.groupIndex).remove(project);
+			projects.remove(project.name);
+
+			EndpointStats endpoint = stats.get(Operation.DELETE);
+			long start = System.nanoTime();
+			ClientResponse result = this.client.sendRequest("DELETE", MAIN_PATH + project.name, "");
+			long latency = System.nanoTime() - start;
+			if (result.getHttpCode() == HttpURLConnection.HTTP_OK) {
+				endpoint.success(latency);
+			} else if (result.getHttpCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+				endpoint.conflict(latency);
+			} else {
+				endpoint.error(latency);
+			}
+		}
+
+		/**
+		 * Picks a random project of one of the groups of the user.
+		 * @return The project, or null if there is none.
+		 */
+		private TrackedProject pickProject() {
+			if (this.groupIndices.isEmpty()) return null;
+			List<TrackedProject> candidates = projectsByGroup
+					.get(this.groupIndices.get(this.random.nextInt(this.groupIndices.size())));
+			try {
+				return candidates.isEmpty() ? null : candidates.get(this.random.nextInt(candidates.size()));
+			} catch (IndexOutOfBoundsException e) {
+				// project got removed concurrently
+				return null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package i5.las2peer.services.projectService.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Configuration of the load test. All values can be set using system properties, e.g.
+ * -Dloadtest.threads=32 or -Dloadtest.mix=post:10,get:70,changeMetadata:15,delete:5.
+ */
+public class LoadTestConfig {
+
+	/**
+	 * Operations that are executed by the load test.
+	 */
+	public enum Operation {
+		POST("post"), GET("get"), CHANGE_METADATA("changeMetadata"), DELETE("delete");
+
+		private final String key;
+
+		Operation(String key) {
+			this.key = key;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public static Operation fromKey(String key) {
+			for (Operation operation : values()) {
+				if (operation.key.equals(key)) return operation;
+			}
+			throw new IllegalArgumentException("Unknown operation " + key);
+		}
+	}
+
+	private final int users;
+	private final int groups;
+	private final int groupSize;
+	private final int threads;
+	private final int durationSeconds;
+	private final long seed;
+	private final LinkedHashMap<Operation, Integer> mix;
+	private final int totalWeight;
+
+	public LoadTestConfig(int users, int groups, int groupSize, int threads, int durationSeconds, long seed,
+			LinkedHashMap<Operation, Integer> mix) {
+		if (users < 1 || groups < 1 || groupSize < 1 || threads < 1 || durationSeconds < 1) {
+			throw new IllegalArgumentException("users, groups, groupSize, threads and duration need to be positive");
+		}
+		this.users = users;
+		this.groups = groups;
+		this.groupSize = Math.min(groupSize, users);
+		this.threads = threads;
+		this.durationSeconds = durationSeconds;
+		this.seed = seed;
+		this.mix = mix;
+		int weight = 0;
+		for (int w : mix.values()) {
+			if (w < 0) throw new IllegalArgumentException("Weights of the mix must not be negative");
+			weight += w;
+		}
+		if (weight == 0) throw new IllegalArgumentException("At least one operation needs a positive weight");
+		this.totalWeight = weight;
+	}
+
+	/**
+	 * Reads the configuration from the system properties, using defaults for missing values.
+	 * @return The configuration.
+	 */
+	public static LoadTestConfig fromSystemProperties() {
+		return new LoadTestConfig(Integer.getInteger("loadtest.users", 20), Integer.getInteger("loadtest.groups", 5),
+				Integer.getInteger("loadtest.groupSize", 4), Integer.getInteger("loadtest.threads", 16),
+				Integer.getInteger("loadtest.duration", 30), Long.getLong("loadtest.seed", System.nanoTime()),
+				parseMix(System.getProperty("loadtest.mix", "post:20,get:50,changeMetadata:25,delete:5")));
+	}
+
+	/**
+	 * Parses a mix of operations given as comma separated list of operation:weight pairs.
+	 * @param mix Mix, e.g. "post:20,get:50,changeMetadata:25,delete:5".
+	 * @return Weight per operation.
+	 */
+	public static LinkedHashMap<Operation, Integer> parseMix(String mix) {
+		LinkedHashMap<Operation, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split(":");
+			if (parts.length != 2) throw new IllegalArgumentException("Invalid mix entry " + entry);
+			weights.put(Operation.fromKey(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+		}
+		return weights;
+	}
+
+	/**
+	 * Picks an operation according to the configured mix.
+	 * @param random Random used for picking.
+	 * @return The operation.
+	 */
+	public Operation nextOperation(Random random) {
+		int value = random.nextInt(this.totalWeight);
+		for (Map.Entry<Operation, Integer> entry : this.mix.entrySet()) {
+			value -= entry.getValue();
+			if (value < 0) return entry.getKey();
+		}
+		throw new IllegalStateException();
+	}
+
+	public int getUsers() {
+		return users;
+	}
+
+	public int getGroups() {
+		return groups;
+	}
+
+	public int getGroupSize() {
+		return groupSize;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public Map<Operation, Integer> getMix() {
+		return mix;
+	}
+
+	@Override
+	public String toString() {
+		return "users=" + users + ", groups=" + groups + ", groupSize=" + groupSize + ", threads=" + threads
+				+ ", duration=" + durationSeconds + "s, seed=" + seed + ", mix=" + mix;
+	}
+
+}
@@ -0,0 +1,87 @@
+package i5.las2peer.services.projectService.project;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.services.projectService.util.github.GitHubProject;
+
+import static org.junit.Assert.*;
+
+public class ProjectTest {
+
+    private static final String projectJSON = "{\"name\": \"project\", \"linkedGroup\": {\"name\": \"group\", \"id\": \"groupId\"},"
+            + " \"metadata\": {\"attr\": \"value\"}}";
+
+    @Test
+    public void toJSONObjectTest() throws Exception {
+        Project project = new Project(null, projectJSON);
+        JSONObject json = project.toJSONObject();
+        assertEquals("project", json.get("name"));
+        assertEquals("groupId", json.get("groupIdentifier"));
+        assertEquals("value", ((JSONObject) json.get("metadata")).get("attr"));
+
+        // modifying the returned object must not change the cached representation
+        json.put("name", "changed");
+        assertEquals("project", project.toJSONObject().get("name"));
+    }
+
+    @Test
+    public void changesInvalidateJSONTest() throws Exception {
+        Project project = new Project(null, projectJSON);
+        project.toJSONObject();
+
+        project.changeMetadata("{\"attr\": \"newValue\"}");
+        assertEquals("newValue", ((JSONObject) project.toJSONObject().get("metadata")).get("attr"));
+        assertEquals("newValue", project.getMetadataAsJSONObject().get("attr"));
+
+        project.changeGroup("newGroupId", "newGroup");
+        assertEquals("newGroupId", project.toJSONObject().get("groupIdentifier"));
+        assertEquals("newGroup", project.toJSONObject().get("groupName"));
+
+        JSONObject chatInfo = new JSONObject();
+        chatInfo.put("channelName", "channel");
+        project.setChatInfo(chatInfo);
+        assertEquals(chatInfo, project.toJSONObject().get("chatInfo"));
+    }
+
+    @Test
+    public void gitHubProjectStatusJSONTest() throws Exception {
+        Project project = new Project(null, projectJSON);
+        assertNull(project.toJSONObject().get("gitHubProject"));
+
+        project.setGitHubProjectPending();
+        JSONObject gitHubProject = (JSONObject) project.toJSONObject().get("gitHubProject");
+        assertEquals("pending", gitHubProject.get("status"));
+        assertNull(gitHubProject.get("id"));
+
+        project.setConnectedGitHubProject(new GitHubProject(1, "url"));
+        gitHubProject = (JSONObject) project.toJSONObject().get("gitHubProject");
+        assertEquals("created", gitHubProject.get("status"));
+        assertEquals(1, gitHubProject.get("id"));
+        assertEquals("url", gitHubProject.get("url"));
+    }
+
+
+    @Test
+    public void removeGitHubUsernamesTest() throws Exception {
+        Project project = new Project(null, projectJSON);
+        UserAgentImpl member = UserAgentImpl.createUserAgent("pass");
+        UserAgentImpl leftGroup = UserAgentImpl.createUserAgent("pass");
+        project.addGitHubUsername(member, "member");
+        project.addGitHubUsername(leftGroup, "left");
+
+        List<String> removed = project.removeNonGroupMembersGitHubUsernames(new String[] { member.getIdentifier() });
+        assertEquals(Arrays.asList("left"), removed);
+        assertEquals(1, project.getMemberGitHubUsernamesByUser().size());
+        assertEquals("member", project.getMemberGitHubUsernamesByUser().get(member.getIdentifier()));
+
+        // username is only removed if it did not change in the meantime
+        assertFalse(project.removeGitHubUsername(member.getIdentifier(), "other"));
+        assertTrue(project.removeGitHubUsername(member.getIdentifier(), "member"));
+        assertTrue(project.getMemberGitHubUsernames().isEmpty());
+    }
+}
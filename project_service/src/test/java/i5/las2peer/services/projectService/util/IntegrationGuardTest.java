@@ -0,0 +1,92 @@
+package i5.las2peer.services.projectService.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntegrationGuardTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private IntegrationGuard guard(int maxConcurrentCalls) {
+        return new IntegrationGuard("test", maxConcurrentCalls, 4, 4, 50, 1000, now::get);
+    }
+
+    @Test
+    public void bulkheadTest() {
+        IntegrationGuard guard = guard(2);
+        IntegrationGuard.Permit first = guard.tryAcquire();
+        IntegrationGuard.Permit second = guard.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, guard.getActiveCalls());
+
+        // limit reached
+        assertNull(guard.tryAcquire());
+        assertEquals(1, guard.getRejectedCalls());
+
+        first.release(true);
+        // releasing twice must not free another permit
+        first.release(true);
+        assertEquals(1, guard.getActiveCalls());
+        assertNotNull(guard.tryAcquire());
+        assertNull(guard.tryAcquire());
+    }
+
+    @Test
+    public void opensOnFailuresTest() {
+        IntegrationGuard guard = guard(10);
+        guard.tryAcquire().release(true);
+        guard.tryAcquire().release(true);
+        guard.tryAcquire().release(false);
+        assertEquals(IntegrationGuard.State.CLOSED, guard.getState());
+
+        // 2 of 4 calls failed
+        guard.tryAcquire().release(false);
+        assertEquals(IntegrationGuard.State.OPEN, guard.getState());
+        assertNull(guard.tryAcquire());
+        assertEquals(1000, guard.getRetryAfter());
+        assertEquals(2, guard.getFailedCalls());
+    }
+
+    @Test
+    public void windowOnlyContainsRecentCallsTest() {
+        IntegrationGuard guard = guard(10);
+        guard.tryAcquire().release(false);
+        for (int i = 0; i < 10; i++) {
+            guard.tryAcquire().release(true);
+        }
+        // the failure is not part of the window anymore
+        guard.tryAcquire().release(false);
+        assertEquals(IntegrationGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    public void probeTest() {
+        IntegrationGuard guard = guard(10);
+        for (int i = 0; i < 4; i++) {
+            guard.tryAcquire().release(false);
+        }
+        assertEquals(IntegrationGuard.State.OPEN, guard.getState());
+
+        now.addAndGet(1000);
+        IntegrationGuard.Permit probe = guard.tryAcquire();
+        assertNotNull(probe);
+        assertEquals(IntegrationGuard.State.HALF_OPEN, guard.getState());
+        // only one probe at a time
+        assertNull(guard.tryAcquire());
+
+        probe.release(false);
+        assertEquals(IntegrationGuard.State.OPEN, guard.getState());
+        assertNull(guard.tryAcquire());
+
+        now.addAndGet(1000);
+        guard.tryAcquire().release(true);
+        assertEquals(IntegrationGuard.State.CLOSED, guard.getState());
+        assertEquals(0, guard.getRetryAfter());
+        assertNotNull(guard.tryAcquire());
+    }
+
+}
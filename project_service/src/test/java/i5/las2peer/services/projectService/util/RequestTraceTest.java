@@ -0,0 +1,73 @@
+package i5.las2peer.services.projectService.util;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestTraceTest {
+
+    private static JSONObject phases(RequestTrace trace) {
+        return (JSONObject) trace.toJSONObject("test", 200).get("phasesMs");
+    }
+
+    @Test
+    public void nestedSpansTest() throws Exception {
+        RequestTrace.begin();
+        try (RequestTrace.Span outer = RequestTrace.span(RequestTrace.MEMBERSHIP_CHECK)) {
+            try (RequestTrace.Span inner = RequestTrace.span(RequestTrace.AGENT_REQUEST)) {
+                Thread.sleep(5);
+            }
+        }
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENVELOPE_FETCH)) {
+            Thread.sleep(5);
+        }
+        RequestTrace trace = RequestTrace.end();
+
+        JSONObject phases = phases(trace);
+        // inner spans are not recorded separately
+        assertEquals(2, phases.size());
+        assertTrue((double) phases.get(RequestTrace.MEMBERSHIP_CHECK) >= 5);
+        assertTrue((double) phases.get(RequestTrace.ENVELOPE_FETCH) >= 5);
+        assertNull(RequestTrace.end());
+    }
+
+    @Test
+    public void recordTest() {
+        RequestTrace.begin();
+        RequestTrace.record(RequestTrace.SERIALIZATION, 2_000_000);
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.EXTERNAL_CALL)) {
+            // ignored, since a span is open
+            RequestTrace.record(RequestTrace.SERIALIZATION, 2_000_000);
+        }
+        JSONObject json = RequestTrace.end().toJSONObject("getProjects", 200);
+        assertEquals("getProjects", json.get("endpoint"));
+        assertEquals(200, json.get("status"));
+        assertEquals(2.0, ((JSONObject) json.get("phasesMs")).get(RequestTrace.SERIALIZATION));
+    }
+
+    @Test
+    public void wrapTest() throws Exception {
+        RequestTrace.begin();
+        String result = CompletableFuture.supplyAsync(RequestTrace.wrap(() -> {
+            try (RequestTrace.Span span = RequestTrace.span(RequestTrace.EXTERNAL_CALL)) {
+                return "done";
+            }
+        })).get();
+        RequestTrace trace = RequestTrace.end();
+        assertEquals("done", result);
+        assertTrue(phases(trace).containsKey(RequestTrace.EXTERNAL_CALL));
+    }
+
+    @Test
+    public void withoutTraceTest() {
+        // spans without an active trace are ignored
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENVELOPE_STORE)) {
+            RequestTrace.record(RequestTrace.SERIALIZATION, 1);
+        }
+        assertNull(RequestTrace.end());
+    }
+
+}
@@ -0,0 +1,55 @@
+package i5.las2peer.services.projectService.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ServiceMetricsTest {
+
+    @Test
+    public void counterTest() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        metrics.recordEvents("delivered", 3);
+        metrics.recordEvents("delivered", 2);
+        metrics.recordEvents("dropped", 1);
+
+        String text = metrics.toPrometheusText();
+        assertTrue(text.contains("# TYPE project_service_events_total counter\n"));
+        assertTrue(text.contains("project_service_events_total{result=\"delivered\"} 5\n"));
+        assertTrue(text.contains("project_service_events_total{result=\"dropped\"} 1\n"));
+    }
+
+    @Test
+    public void histogramTest() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        // 20ms and 2s
+        metrics.recordSerialization("getProjects", 20_000_000L);
+        metrics.recordSerialization("getProjects", 2_000_000_000L);
+
+        String text = metrics.toPrometheusText();
+        assertTrue(text.contains("# TYPE project_service_serialization_duration_seconds histogram\n"));
+        // buckets are cumulative
+        assertTrue(text.contains("project_service_serialization_duration_seconds_bucket{operation=\"getProjects\",le=\"0.01\"} 0\n"));
+        assertTrue(text.contains("project_service_serialization_duration_seconds_bucket{operation=\"getProjects\",le=\"0.025\"} 1\n"));
+        assertTrue(text.contains("project_service_serialization_duration_seconds_bucket{operation=\"getProjects\",le=\"2.5\"} 2\n"));
+        assertTrue(text.contains("project_service_serialization_duration_seconds_bucket{operation=\"getProjects\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("project_service_serialization_duration_seconds_sum{operation=\"getProjects\"} 2.02\n"));
+        assertTrue(text.contains("project_service_serialization_duration_seconds_count{operation=\"getProjects\"} 2\n"));
+    }
+
+    @Test
+    public void labelEscapingTest() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        metrics.recordRequest("a\"b\\c", 200, System.nanoTime());
+        assertTrue(metrics.toPrometheusText()
+                .contains("project_service_requests_total{endpoint=\"a\\\"b\\\\c\",status=\"200\"} 1\n"));
+    }
+
+    @Test
+    public void outcomeOfStatusTest() {
+        assertEquals(ServiceMetrics.OUTCOME_SUCCESS, ServiceMetrics.outcomeOfStatus(201));
+        assertEquals(ServiceMetrics.OUTCOME_CLIENT_ERROR, ServiceMetrics.outcomeOfStatus(404));
+        assertEquals(ServiceMetrics.OUTCOME_ERROR, ServiceMetrics.outcomeOfStatus(502));
+    }
+
+}
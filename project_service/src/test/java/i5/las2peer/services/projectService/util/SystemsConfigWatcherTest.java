@@ -0,0 +1,83 @@
+package i5.las2peer.services.projectService.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import i5.las2peer.services.projectService.util.github.GitHubProvisioningBackend;
+
+import static org.junit.Assert.*;
+
+public class SystemsConfigWatcherTest {
+
+    private static final String systems = "{\"sbf\": {\"visibilityOfProjects\": \"all\"}, \"cae\": {}, "
+            + "\"gh\": {\"gitHubProjectsEnabled\": true, \"gitHubProvisioningBackend\": \"graphql\"}}";
+
+    @Test
+    public void lookupTest() throws Exception {
+        SystemsConfig config = SystemsConfig.parse(systems);
+        assertTrue(config.isValidSystemName("sbf"));
+        assertTrue(config.isValidSystemName("cae"));
+        assertFalse(config.isValidSystemName("other"));
+        assertFalse(config.isValidSystemName(null));
+        assertEquals(ProjectVisibility.ALL, config.getVisibilityOfProjectsBySystem("sbf"));
+        assertEquals(ProjectVisibility.OWN, config.getVisibilityOfProjectsBySystem("cae"));
+        assertFalse(config.gitHubProjectsEnabled("sbf"));
+        assertNull(config.getGitHubPATBySystem("other"));
+        assertTrue(config.gitHubProjectsEnabled("gh"));
+        assertEquals(GitHubProvisioningBackend.GRAPHQL, config.getGitHubProvisioningBackendBySystem("gh"));
+        assertEquals(GitHubProvisioningBackend.REST, config.getGitHubProvisioningBackendBySystem("cae"));
+    }
+
+    @Test
+    public void reloadTest() throws Exception {
+        File file = File.createTempFile("projectservice", ".properties");
+        file.deleteOnExit();
+        writeSystems(file, systems);
+
+        SystemsConfigWatcher watcher = new SystemsConfigWatcher(systems, file);
+        List<SystemsConfig> notified = new ArrayList<>();
+        watcher.addListener(notified::add);
+        List<String> errors = new ArrayList<>();
+        watcher.addErrorListener(errors::add);
+        SystemsConfig initial = watcher.get();
+
+        // nothing changed
+        assertFalse(watcher.reload());
+        assertSame(initial, watcher.get());
+
+        // add a system
+        writeSystems(file, "{\"sbf\": {}, \"cae\": {}, \"new\": {\"visibilityOfProjects\": \"all\"}}");
+        assertTrue(watcher.reload());
+        assertTrue(watcher.get().isValidSystemName("new"));
+        assertEquals(ProjectVisibility.OWN, watcher.get().getVisibilityOfProjectsBySystem("sbf"));
+        assertEquals(1, notified.size());
+        assertSame(watcher.get(), notified.get(0));
+        assertTrue(errors.isEmpty());
+        // the old snapshot is not changed
+        assertFalse(initial.isValidSystemName("new"));
+
+        // invalid configuration is ignored
+        SystemsConfig current = watcher.get();
+        writeSystems(file, "{\"sbf\": ");
+        assertFalse(watcher.reload());
+        assertSame(current, watcher.get());
+        assertEquals(1, notified.size());
+        // the error gets reported
+        assertEquals(1, errors.size());
+    }
+
+    private static void writeSystems(File file, String systems) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(SystemsConfigWatcher.SYSTEMS_PROPERTY, systems);
+        try (OutputStream out = new FileOutputStream(file)) {
+            props.store(out, null);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package i5.las2peer.services.projectService.util.github;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSession;
+
+import org.junit.Test;
+
+import i5.las2peer.services.projectService.util.github.GitHubRequestScheduler.Priority;
+
+import static org.junit.Assert.*;
+
+public class GitHubRequestSchedulerTest {
+
+    private static final long NOW = 1_000_000_000L;
+
+    @Test
+    public void interactiveBeforeBackgroundTest() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(1, 0, () -> NOW);
+        List<String> order = new ArrayList<>();
+        CompletableFuture<HttpResponse<String>> first = new CompletableFuture<>();
+        scheduler.submit(Priority.INTERACTIVE, () -> first);
+        scheduler.submit(Priority.BACKGROUND, () -> {
+            order.add("background");
+            return CompletableFuture.completedFuture(response(200, null));
+        });
+        scheduler.submit(Priority.INTERACTIVE, () -> {
+            order.add("interactive");
+            return CompletableFuture.completedFuture(response(200, null));
+        });
+        assertEquals(2, scheduler.getQueueDepth());
+        assertEquals(1, scheduler.getQueueDepth(Priority.BACKGROUND));
+
+        first.complete(response(200, null));
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals("interactive", order.get(0));
+        assertEquals("background", order.get(1));
+    }
+
+    @Test
+    public void exhaustedBudgetTest() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(4, 0, () -> NOW);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", "0");
+        headers.put("X-RateLimit-Reset", String.valueOf(NOW / 1000 + 3600));
+        scheduler.submit(Priority.INTERACTIVE, () -> CompletableFuture.completedFuture(response(200, headers))).get();
+        assertEquals(0, scheduler.getRemaining());
+
+        AtomicInteger sent = new AtomicInteger();
+        CompletableFuture<HttpResponse<String>> queued = scheduler.submit(Priority.INTERACTIVE, () -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(response(200, null));
+        });
+        assertEquals(0, sent.get());
+        assertFalse(queued.isDone());
+        assertEquals(1, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void backgroundReserveTest() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(4, 100, () -> NOW);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", "50");
+        headers.put("X-RateLimit-Reset", String.valueOf(NOW / 1000 + 3600));
+        scheduler.submit(Priority.INTERACTIVE, () -> CompletableFuture.completedFuture(response(200, headers))).get();
+
+        CompletableFuture<HttpResponse<String>> background = scheduler.submit(Priority.BACKGROUND,
+                () -> CompletableFuture.completedFuture(response(200, null)));
+        CompletableFuture<HttpResponse<String>> interactive = scheduler.submit(Priority.INTERACTIVE,
+                () -> CompletableFuture.completedFuture(response(200, null)));
+        assertFalse(background.isDone());
+        assertTrue(interactive.isDone());
+    }
+
+    @Test
+    public void retryAfterTest() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(4, 0, () -> NOW);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Retry-After", "0");
+        AtomicInteger attempts = new AtomicInteger();
+        HttpResponse<String> result = scheduler.submit(Priority.INTERACTIVE, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                return CompletableFuture.completedFuture(response(403, headers));
+            }
+            return CompletableFuture.completedFuture(response(200, null));
+        }).get();
+        assertEquals(2, attempts.get());
+        assertEquals(200, result.statusCode());
+    }
+
+    @Test
+    public void otherForbiddenNotRetriedTest() throws Exception {
+        GitHubRequestScheduler scheduler = new GitHubRequestScheduler(4, 0, () -> NOW);
+        AtomicInteger attempts = new AtomicInteger();
+        HttpResponse<String> result = scheduler.submit(Priority.INTERACTIVE, () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture(response(403, null));
+        }).get();
+        assertEquals(1, attempts.get());
+        assertEquals(403, result.statusCode());
+    }
+
+    private static HttpResponse<String> response(int status, Map<String, String> headerValues) {
+        Map<String, List<String>> headerMap = new HashMap<>();
+        if (headerValues != null) {
+            for (Map.Entry<String, String> header : headerValues.entrySet()) {
+                headerMap.put(header.getKey(), List.of(header.getValue()));
+            }
+        }
+        HttpHeaders headers = HttpHeaders.of(headerMap, (name, value) -> true);
+        return new HttpResponse<String>() {
+            public int statusCode() {
+                return status;
+            }
+
+            public HttpRequest request() {
+                return null;
+            }
+
+            public Optional<HttpResponse<String>> previousResponse() {
+                return Optional.empty();
+            }
+
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            public String body() {
+                return "";
+            }
+
+            public Optional<SSLSession> sslSession() {
+                return Optional.empty();
+            }
+
+            public URI uri() {
+                return null;
+            }
+
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_2;
+            }
+        };
+    }
+}
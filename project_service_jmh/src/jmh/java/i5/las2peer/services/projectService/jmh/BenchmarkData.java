@@ -0,0 +1,49 @@
+package i5.las2peer.services.projectService.jmh;
+
+import org.json.simple.parser.ParseException;
+
+import i5.las2peer.services.projectService.ProjectContainer;
+import i5.las2peer.services.projectService.project.Project;
+
+/**
+ * Helper methods to create the data used in the benchmarks.
+ */
+public final class BenchmarkData {
+
+	/**
+	 * Group identifier with the length of a real las2peer group agent identifier.
+	 */
+	public static final String GROUP_ID = "37d88b7f9b6a41f47bbf7e825fa642349fdc2d61ae8f319dc834ce9f7cf0f96a"
+			+ "168ebff0ea376e657ae081915c44a55023719a1868c8c6c295a9769e7c23f0e6";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Returns a JSON string representation of a project, containing some metadata.
+	 * @param projectName Name of the project.
+	 * @param groupId Identifier of the group linked to the project.
+	 * @return JSON representation of the project.
+	 */
+	public static String getProjectJSON(String projectName, String groupId) {
+		return "{\"name\": \"" + projectName + "\", \"linkedGroup\": { \"name\": \"group\", \"id\": \"" + groupId
+				+ "\"}, \"users\": [], \"metadata\": {\"description\": \"Project used for benchmarks\", "
+				+ "\"components\": [\"frontend\", \"microservice\"], \"version\": 3}}";
+	}
+
+	/**
+	 * Creates a container with the given number of projects. Every ten projects share the same group.
+	 * @param projectCount Number of projects.
+	 * @return Container containing the projects.
+	 * @throws ParseException If creating a project fails.
+	 */
+	public static ProjectContainer createContainer(int projectCount) throws ParseException {
+		ProjectContainer container = new ProjectContainer();
+		for (int i = 0; i < projectCount; i++) {
+			String groupId = GROUP_ID.substring(0, GROUP_ID.length() - 8) + String.format("%08d", i / 10);
+			container.addProject(new Project(null, getProjectJSON("project" + i, groupId)));
+		}
+		return container;
+	}
+
+}
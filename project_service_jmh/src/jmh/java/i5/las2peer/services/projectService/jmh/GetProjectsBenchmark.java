@@ -0,0 +1,137 @@
+package i5.las2peer.services.projectService.jmh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.api.security.Agent;
+import i5.las2peer.connectors.webConnector.WebConnector;
+import i5.las2peer.connectors.webConnector.client.ClientResponse;
+import i5.las2peer.connectors.webConnector.client.MiniClient;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.ServiceAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.services.projectService.ProjectService;
+import i5.las2peer.testing.MockAgentFactory;
+
+/**
+ * End-to-end benchmark of GET /projects/{system} on a local node, using the same setup as the ServiceTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GetProjectsBenchmark {
+
+	private static final String SYSTEM = "bench";
+	private static final String MAIN_PATH = "projects/" + SYSTEM + "/";
+	private static final String PROPERTIES_PATH = "properties/" + ProjectService.class.getName() + ".properties";
+
+	@Param({ "10", "1000" })
+	public int projectCount;
+
+	private LocalNode node;
+	private WebConnector connector;
+	private MiniClient client;
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		this.node = new LocalNodeManager().newNode();
+		this.node.launch();
+
+		UserAgentImpl adam = MockAgentFactory.getAdam();
+		adam.unlock("adamspass");
+		this.node.storeAgent(adam);
+
+		UserAgentImpl serviceGroupAdmin = MockAgentFactory.getAbel();
+		serviceGroupAdmin.unlock("abelspass");
+		this.node.storeAgent(serviceGroupAdmin);
+
+		GroupAgentImpl groupA = MockAgentFactory.getGroupA();
+		groupA.unlock(adam);
+		this.node.storeAgent(groupA);
+
+		GroupAgentImpl serviceGroup = GroupAgentImpl.createGroupAgent(new Agent[] { serviceGroupAdmin });
+		serviceGroup.unlock(serviceGroupAdmin);
+		this.node.storeAgent(serviceGroup);
+
+		writeProperties(serviceGroup.getIdentifier());
+
+		ServiceAgentImpl projectService = this.node
+				.startService(new ServiceNameVersion(ProjectService.class.getName(), "1.0.0"), "a pass");
+		serviceGroup.addMember(projectService);
+		this.node.storeAgent(serviceGroup);
+
+		this.connector = new WebConnector(true, 0, false, 0);
+		this.connector.start(this.node);
+
+		this.client = new MiniClient();
+		this.client.setConnectorEndpoint(this.connector.getHttpEndpoint());
+		this.client.setLogin(adam.getIdentifier(), "adamspass");
+
+		for (int i = 0; i < this.projectCount; i++) {
+			ClientResponse result = this.client.sendRequest("POST", MAIN_PATH,
+					BenchmarkData.getProjectJSON("project" + i, groupA.getIdentifier()));
+			if (result.getHttpCode() != HttpURLConnection.HTTP_CREATED) {
+				throw new IllegalStateException("Creating project failed: " + result.getHttpCode());
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void shutDownServer() throws Exception {
+		if (this.connector != null) {
+			this.connector.stop();
+			this.connector = null;
+		}
+		if (this.node != null) {
+			this.node.shutDown();
+			this.node = null;
+		}
+	}
+
+	@Benchmark
+	public String getProjects() {
+		ClientResponse result = this.client.sendRequest("GET", MAIN_PATH, "");
+		if (result.getHttpCode() != HttpURLConnection.HTTP_OK) {
+			throw new IllegalStateException("Getting projects failed: " + result.getHttpCode());
+		}
+		return result.getResponse();
+	}
+
+	/**
+	 * Writes the properties file of the project service, which is read when the service gets started.
+	 * @param serviceGroupId Identifier of the service group.
+	 * @throws IOException If writing the file fails.
+	 */
+	private static void writeProperties(String serviceGroupId) throws IOException {
+		Properties props = new Properties();
+		props.setProperty("serviceGroupId", serviceGroupId);
+		props.setProperty("oldServiceAgentId", "");
+		props.setProperty("oldServiceAgentPw", "");
+		props.setProperty("systems", "{\"" + SYSTEM + "\": {\"visibilityOfProjects\": \"all\"}}");
+		File file = new File(PROPERTIES_PATH);
+		file.getParentFile().mkdirs();
+		try (OutputStream out = new FileOutputStream(file)) {
+			props.store(out, null);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package i5.las2peer.services.projectService.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import i5.las2peer.services.projectService.project.Project;
+
+/**
+ * Benchmarks for creating projects from JSON and converting them back to JSON.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectBenchmark {
+
+	private Project project;
+
+	@Setup
+	public void setup() throws ParseException {
+		this.project = new Project(null, BenchmarkData.getProjectJSON("project", BenchmarkData.GROUP_ID));
+	}
+
+	@Benchmark
+	public Project createFromJSON() throws ParseException {
+		return new Project(null, BenchmarkData.getProjectJSON("project", BenchmarkData.GROUP_ID));
+	}
+
+	@Benchmark
+	public JSONObject toJSONObject() {
+		return this.project.toJSONObject();
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return this.project.toJSONObject().toJSONString();
+	}
+
+}
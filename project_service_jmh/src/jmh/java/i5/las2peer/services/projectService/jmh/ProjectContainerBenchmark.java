@@ -0,0 +1,73 @@
+package i5.las2peer.services.projectService.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import i5.las2peer.services.projectService.ProjectContainer;
+
+/**
+ * Benchmarks for (de)serializing project lists, as done when storing or reading a project list envelope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectContainerBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int projectCount;
+
+	private ProjectContainer container;
+
+	private byte[] serialized;
+
+	@Setup(Level.Trial)
+	public void setup() throws ParseException, IOException {
+		this.container = BenchmarkData.createContainer(this.projectCount);
+		this.serialized = serialize(this.container);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return serialize(this.container);
+	}
+
+	@Benchmark
+	public ProjectContainer deserialize() throws IOException, ClassNotFoundException {
+		return deserialize(this.serialized);
+	}
+
+	@Benchmark
+	public ProjectContainer roundTrip() throws IOException, ClassNotFoundException {
+		return deserialize(serialize(this.container));
+	}
+
+	private static byte[] serialize(ProjectContainer container) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(container);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static ProjectContainer deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (ProjectContainer) in.readObject();
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package i5.las2peer.services.projectService.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import i5.las2peer.services.projectService.util.ProjectVisibility;
+import i5.las2peer.services.projectService.util.SystemsConfig;
+
+/**
+ * Benchmarks for the lookups in the systems config, which are done several times per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SystemsConfigBenchmark {
+
+	@Param({ "2", "50" })
+	public int systemCount;
+
+	private SystemsConfig systemsConfig;
+
+	private String lastSystem;
+
+	@Setup
+	public void setup() {
+		StringBuilder systems = new StringBuilder("{");
+		for (int i = 0; i < this.systemCount; i++) {
+			if (i > 0) systems.append(",");
+			systems.append("\"system").append(i).append("\": {\"visibilityOfProjects\": \"all\"}");
+		}
+		systems.append("}");
+		this.systemsConfig = new SystemsConfig((JSONObject) JSONValue.parse(systems.toString()));
+		this.lastSystem = "system" + (this.systemCount - 1);
+	}
+
+	@Benchmark
+	public boolean isValidSystemName() {
+		return this.systemsConfig.isValidSystemName(this.lastSystem);
+	}
+
+	@Benchmark
+	public ProjectVisibility getVisibilityOfProjects() {
+		return this.systemsConfig.getVisibilityOfProjectsBySystem(this.lastSystem);
+	}
+
+	@Benchmark
+	public boolean gitHubProjectsEnabled() {
+		return this.systemsConfig.gitHubProjectsEnabled(this.lastSystem);
+	}
+
+}